@@ -0,0 +1,49 @@
+package ir.benchmarks;
+
+import ir.algorithms.analysis.Analyzer;
+import ir.algorithms.scoreAndRank.BM25;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to evaluate the results of all the CACM queries against the relevance judgements, Analyzer.generateStats
+ * @author Surbhi Gupta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 25)
+@Measurement(iterations = 30)
+@Fork(5)
+public class AnalyzerBenchmark {
+	private static final int RESULT_SIZE = 100;
+
+	private BenchmarkCorpus corpus;
+	private String resultPrefix;
+	private String analysisPrefix;
+
+	@Setup
+	public void setup() throws Exception {
+		corpus = BenchmarkCorpus.get(1);
+		resultPrefix = corpus.newDir("analyzerResults") + "result_";
+		BM25.scoreAndRetrieveBatch(corpus.queries, RESULT_SIZE, corpus.corpusPath, corpus.indexPath,
+				corpus.docLengthPath, resultPrefix, "", corpus.queries.size(), corpus.queries.size());
+		analysisPrefix = corpus.newDir("analysis") + "analysis";
+	}
+
+	@Benchmark
+	public void generateStats() throws Exception {
+		Analyzer.generateStats(resultPrefix, BenchmarkCorpus.REL_FEEDBACK_PATH, analysisPrefix, corpus.queries.size());
+	}
+}
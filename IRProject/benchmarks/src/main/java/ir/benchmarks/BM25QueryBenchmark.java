@@ -0,0 +1,75 @@
+package ir.benchmarks;
+
+import ir.algorithms.indexer.DocumentTable;
+import ir.algorithms.scoreAndRank.BM25;
+import ir.algorithms.scoreAndRank.DocScore;
+import ir.commons.SearchQuery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a full BM25 search on the CACM queries: a single query scored on its own, one query after the other,
+ * and all the queries scored as one batch
+ * @author Surbhi Gupta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(5)
+public class BM25QueryBenchmark {
+	private static final int RESULT_SIZE = 100;
+
+	@Param({"1", "4"})
+	public int scale;
+
+	private BenchmarkCorpus corpus;
+	private DocumentTable docTable;
+	private String resultPrefix;
+	private int next;
+
+	@Setup
+	public void setup() throws Exception {
+		corpus = BenchmarkCorpus.get(scale);
+		docTable = DocumentTable.load(corpus.docLengthPath);
+		resultPrefix = corpus.newDir("bm25") + "result_";
+	}
+
+	/**
+	 * The method to start every iteration at the first query, so that the iterations all score the same queries and
+	 * differ only by their timing
+	 */
+	@Setup(Level.Iteration)
+	public void rewind() {
+		next = -1;
+	}
+
+	@Benchmark
+	public void singleQuery() throws Exception {
+		next = (next + 1) % corpus.queries.size();
+		List<SearchQuery> query = Collections.singletonList(corpus.queries.get(next));
+		BM25.scoreAndRetrieve(query, RESULT_SIZE, corpus.corpusPath, corpus.indexPath, corpus.docLengthPath,
+				resultPrefix, "", 1);
+	}
+
+	@Benchmark
+	public List<List<DocScore>> allQueriesBatch() throws Exception {
+		return BM25.searchBatch(corpus.queries, RESULT_SIZE, corpus.indexPath, docTable);
+	}
+}
@@ -0,0 +1,104 @@
+package ir.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The tool to compare a JMH run, written with -rf csv, against the committed baseline and report every benchmark
+ * that got slower by more than the allowed margin. A change is only a regression if the 99.9% error intervals of the
+ * two scores do not overlap either, so that the noise of a run is not taken for a slowdown. The exit status is 1 if
+ * there is any such regression
+ * @author Surbhi Gupta
+ */
+public class BaselineComparator {
+	private static final double DEFAULT_ALLOWED_REGRESSION = 0.10d;
+	private static final String THROUGHPUT_MODE = "thrpt";
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("usage: BaselineComparator <baseline.csv> <results.csv> [allowed regression, e.g. 0.10]");
+			System.exit(2);
+		}
+		double allowed = (args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_ALLOWED_REGRESSION);
+
+		Map<String, String[]> baseline = readResults(args[0]);
+		Map<String, String[]> results = readResults(args[1]);
+
+		int regressions = 0;
+		for (Map.Entry<String, String[]> result : results.entrySet()) {
+			String[] base = baseline.get(result.getKey());
+			if (base == null) {
+				System.out.println("NEW      " + result.getKey());
+				continue;
+			}
+
+			double before = Double.parseDouble(base[1]);
+			double beforeError = parseError(base[2]);
+			double after = Double.parseDouble(result.getValue()[1]);
+			double afterError = parseError(result.getValue()[2]);
+			// a lower score is better for all the modes but throughput
+			boolean throughput = THROUGHPUT_MODE.equals(base[0]);
+			double change = (throughput ? before / after : after / before) - 1d;
+			boolean outsideError = (throughput ? after + afterError < before - beforeError
+					: after - afterError > before + beforeError);
+			boolean regressed = change > allowed && outsideError;
+			if (regressed) regressions++;
+
+			System.out.println(String.format("%-8s %s: %.3f +/- %.3f -> %.3f +/- %.3f %s (%+.1f%%)",
+					(regressed ? "SLOWER" : "OK"), result.getKey(), before, beforeError, after, afterError,
+					result.getValue()[3], change * 100));
+		}
+
+		System.out.println(regressions + " regression(s) over " + (int) (allowed * 100) + "%");
+		System.exit(regressions > 0 ? 1 : 0);
+	}
+
+	/**
+	 * The method to read the results of a JMH run from its csv output
+	 * @param csvPath is the path of the csv file
+	 * @return the mapping of each benchmark and its parameters to its mode, score, score error and unit
+	 * @throws IOException
+	 */
+	private static Map<String, String[]> readResults(String csvPath) throws IOException {
+		Map<String, String[]> results = new LinkedHashMap<>();
+
+		try (BufferedReader br = new BufferedReader(new FileReader(csvPath))) {
+			List<String> header = parseCsvLine(br.readLine());
+			String line;
+			while ((line = br.readLine()) != null) {
+				List<String> values = parseCsvLine(line);
+				StringBuilder key = new StringBuilder(values.get(0));
+				for (int i = 7; i < values.size(); i++) {
+					key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(values.get(i));
+				}
+				results.put(key.toString(), new String[]{values.get(1), values.get(4), values.get(5), values.get(6)});
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * @param error is the score error of a result, NaN when JMH had too few samples to compute it
+	 * @return the error, 0 if it is unknown
+	 */
+	private static double parseError(String error) {
+		double e = Double.parseDouble(error);
+		return (Double.isNaN(e) ? 0d : e);
+	}
+
+	private static List<String> parseCsvLine(String line) {
+		List<String> values = new ArrayList<>();
+
+		for (String value : line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)")) {
+			values.add(value.replace("\"", ""));
+		}
+
+		return values;
+	}
+}
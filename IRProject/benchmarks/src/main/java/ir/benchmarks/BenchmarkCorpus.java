@@ -0,0 +1,97 @@
+package ir.benchmarks;
+
+import ir.algorithms.indexer.InvertedIndex;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * The corpus the benchmarks run against: the CACM corpus, its queries, and an index built from them. A scale larger
+ * than 1 copies every CACM document that many times under new document ids, so that the same benchmarks can be run
+ * over larger corpora
+ * @author Surbhi Gupta
+ */
+class BenchmarkCorpus {
+	static final String DATA_DIR = System.getProperty("ir.data", "data") + "/";
+	static final String CACM_HTML_PATH = DATA_DIR + "input/cacm/";
+	static final String CACM_CORPUS_PATH = DATA_DIR + "output/cacm_corpus/";
+	static final String QUERY_PATH = DATA_DIR + "input/cacm.query";
+	static final String REL_FEEDBACK_PATH = DATA_DIR + "input/cacm.rel";
+	static final String STOP_LIST_PATH = DATA_DIR + "input/common_words";
+
+	private static final String WORK_DIR = System.getProperty("java.io.tmpdir") + "/ir-benchmarks/";
+	private static final String CORPUS_FILE_TYPE = ".txt";
+	private static final String INDEX_NAME = "invertedIndex1gram.txt";
+
+	final int scale;
+	final String dir;
+	final String corpusPath;
+	final String indexPath;
+	final String docLengthPath;
+	final List<SearchQuery> queries;
+
+	private BenchmarkCorpus(int scale) throws Exception {
+		this.scale = scale;
+		this.dir = WORK_DIR + "scale" + scale + "/";
+		this.corpusPath = dir + "corpus/";
+		this.indexPath = dir + INDEX_NAME;
+		this.docLengthPath = dir + "docLength.txt";
+		this.queries = Utils.parseXML(QUERY_PATH);
+	}
+
+	/**
+	 * The method to get the corpus of the given scale, creating and indexing it the first time it is asked for
+	 * @param scale is the number of copies of the CACM corpus in the benchmark corpus
+	 * @return the benchmark corpus
+	 * @throws Exception
+	 */
+	static BenchmarkCorpus get(int scale) throws Exception {
+		BenchmarkCorpus corpus = new BenchmarkCorpus(scale);
+		if (!new File(corpus.indexPath).exists()) {
+			corpus.create();
+		}
+		return corpus;
+	}
+
+	/**
+	 * The method to get a new empty directory inside the working directory of this corpus
+	 * @param name is the name of the directory
+	 * @return the relative path of the directory, ending with a /
+	 */
+	String newDir(String name) {
+		File d = new File(dir + name);
+		File[] files = d.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		d.mkdirs();
+		return d.getPath() + "/";
+	}
+
+	private void create() throws IOException {
+		new File(corpusPath).mkdirs();
+		List<File> cacmFiles = Utils.readFilesFromDirectory(CACM_CORPUS_PATH, "CACM", CORPUS_FILE_TYPE);
+
+		try (FileWriter docLengths = new FileWriter(docLengthPath)) {
+			for (int copy = 0; copy < scale; copy++) {
+				for (File f : cacmFiles) {
+					String docID = f.getName().replace(CORPUS_FILE_TYPE, "");
+					if (copy > 0) docID = docID.replace("CACM-", String.format("CACM-%03d", copy));
+
+					byte[] content = Files.readAllBytes(f.toPath());
+					Files.write(new File(corpusPath + docID + CORPUS_FILE_TYPE).toPath(), content);
+					docLengths.write(docID + " : " + new String(content).trim().split(" ").length + "\n");
+				}
+			}
+		}
+
+		InvertedIndex.invertedIndexGenerator(corpusPath, dir + "invertedIndex");
+	}
+}
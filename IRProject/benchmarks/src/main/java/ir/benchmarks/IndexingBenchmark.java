@@ -0,0 +1,46 @@
+package ir.benchmarks;
+
+import ir.algorithms.indexer.InvertedIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build and print the inverted index of the whole corpus, InvertedIndex.invertedIndexGenerator
+ * @author Surbhi Gupta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 25)
+@Measurement(iterations = 20)
+@Fork(5)
+public class IndexingBenchmark {
+	@Param({"1", "4"})
+	public int scale;
+
+	private BenchmarkCorpus corpus;
+	private String indexPrefix;
+
+	@Setup
+	public void setup() throws Exception {
+		corpus = BenchmarkCorpus.get(scale);
+		indexPrefix = corpus.newDir("indexing") + "invertedIndex";
+	}
+
+	@Benchmark
+	public void invertedIndexGenerator() throws Exception {
+		InvertedIndex.invertedIndexGenerator(corpus.corpusPath, indexPrefix);
+	}
+}
@@ -0,0 +1,49 @@
+package ir.benchmarks;
+
+import ir.algorithms.scoreAndRank.BM25;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of fetching and decoding the inverted list of a single term, BM25.getInvertedListForTerm, for a rare, a
+ * medium and a very frequent term
+ * @author Surbhi Gupta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(10)
+public class PostingsLookupBenchmark {
+	@Param({"1", "4"})
+	public int scale;
+
+	@Param({"tenance", "system", "the"})
+	public String term;
+
+	private BenchmarkCorpus corpus;
+
+	@Setup
+	public void setup() throws Exception {
+		corpus = BenchmarkCorpus.get(scale);
+	}
+
+	@Benchmark
+	public Map<String, Integer> getInvertedListForTerm() {
+		return BM25.getInvertedListForTerm(term, corpus.indexPath);
+	}
+}
@@ -0,0 +1,53 @@
+package ir.benchmarks;
+
+import ir.algorithms.scoreAndRank.BM25;
+import ir.algorithms.snippet.SnippetGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to generate the snippets of the top 100 results of all the CACM queries, SnippetGenerator.generateSnippet
+ * @author Surbhi Gupta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 25)
+@Measurement(iterations = 30)
+@Fork(5)
+public class SnippetBenchmark {
+	private static final int RESULT_SIZE = 100;
+
+	@Param({"1", "4"})
+	public int scale;
+
+	private SnippetGenerator snippetGenerator;
+
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkCorpus corpus = BenchmarkCorpus.get(scale);
+		String resultPrefix = corpus.newDir("snippetResults") + "result_";
+		BM25.scoreAndRetrieveBatch(corpus.queries, RESULT_SIZE, corpus.corpusPath, corpus.indexPath,
+				corpus.docLengthPath, resultPrefix, "", corpus.queries.size(), corpus.queries.size());
+
+		snippetGenerator = new SnippetGenerator(resultPrefix, corpus.queries, corpus.corpusPath,
+				corpus.newDir("snippets") + "snippet_");
+	}
+
+	@Benchmark
+	public void generateSnippet() throws Exception {
+		snippetGenerator.generateSnippet();
+	}
+}
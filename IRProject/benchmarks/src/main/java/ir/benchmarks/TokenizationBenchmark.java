@@ -0,0 +1,50 @@
+package ir.benchmarks;
+
+import ir.commons.Utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the text processing applied to every CACM document and query, Utils.processContent
+ * @author Surbhi Gupta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(5)
+public class TokenizationBenchmark {
+	private String[] documents;
+	private int next;
+
+	@Setup
+	public void setup() throws Exception {
+		List<File> files = Utils.readFilesFromDirectory(BenchmarkCorpus.CACM_HTML_PATH, "CACM", ".html");
+		documents = new String[files.size()];
+		for (int i = 0; i < documents.length; i++) {
+			String content = new String(Files.readAllBytes(files.get(i).toPath()));
+			documents[i] = content.substring(content.indexOf("<pre>") + 5, content.indexOf("</pre>"));
+		}
+	}
+
+	@Benchmark
+	public String processContent() {
+		next = (next + 1) % documents.length;
+		return Utils.processContent(documents[next]);
+	}
+}
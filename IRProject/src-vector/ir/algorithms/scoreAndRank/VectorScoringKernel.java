@@ -0,0 +1,49 @@
+package ir.algorithms.scoreAndRank;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The scoring kernel computing as many contributions at once as the preferred vector of doubles of the CPU has lanes,
+ * once the length normalizations of the documents are gathered by their numbers. Every lane goes through the same operations
+ * as the scalar kernel, in the same order and without fused multiply-adds, so its contributions are the scalar ones.
+ * It needs the incubating Vector API, so it is compiled for Java 17 in its own source directory, and only loaded
+ * when the JVM runs with --add-modules jdk.incubator.vector
+ * @author Surbhi Gupta
+ */
+class VectorScoringKernel implements ScoringKernel {
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+	// the ints converted to a vector of doubles are half its size
+	private static final VectorSpecies<Integer> INTS =
+			VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+	@Override
+	public void contributions(int[] docs, int[] tfs, int from, int to, double[] docNorms, double k1,
+							  double termFactor, double[] out) {
+		// the normalizations are gathered into the output first, the gather intrinsic of JDK 17 being unreliable
+		for (int j = from; j < to; j++) {
+			out[j - from] = docNorms[docs[j]];
+		}
+
+		int lanes = DOUBLES.length();
+		int j = from;
+		for (; j <= to - lanes; j += lanes) {
+			DoubleVector fi = (DoubleVector) IntVector.fromArray(INTS, tfs, j)
+					.convertShape(VectorOperators.I2D, DOUBLES, 0);
+			DoubleVector K = DoubleVector.fromArray(DOUBLES, out, j - from);
+			fi.mul(k1 + 1).div(K.add(fi)).mul(termFactor).intoArray(out, j - from);
+		}
+		for (; j < to; j++) {
+			double fi = tfs[j];
+			out[j - from] = termFactor * (((k1 + 1) * fi) / (out[j - from] + fi));
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "vector" + DOUBLES.length() * Double.SIZE;
+	}
+}
@@ -7,12 +7,18 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Surbhi Gupta
  */
 public class Analyzer {
 	private static final String RESULT_FILE_TYPE = ".txt";
+	private static final int DOC_ID_LENGTH = 9;			// e.g. CACM-0059
 	private static ArrayList<DocRelevance> DocRelList = new ArrayList<>();
 	private static int totalNumberofRel = 0;
 	private static ArrayList<QueryStats> QueryStatsList = new ArrayList<>();
@@ -29,6 +35,9 @@ public class Analyzer {
      */
 	public static void generateStats(String searchEngineResultFilePrefix, String relevanceFile, String outputFile, int qCount) throws IOException {
 		System.out.println("Generating the stats...");
+		QueryStatsList.clear();
+		MAP = 0.0;
+		MRR = 0.0;
 
 		int q = 1;
 		while(q < qCount)
@@ -60,6 +69,66 @@ public class Analyzer {
 		System.out.println("All stats generated");
 	}
 
+	/**
+	 * The method to read the relevance judgements of all the queries into memory, once for any number of evaluations
+	 * @param relevanceFile is the relative path to the relevance judgement file
+	 * @return the mapping of the query ids to the ids of their relevant documents, e.g. CACM-0059
+	 * @throws IOException
+	 */
+	public static Map<Integer, Set<String>> loadRelevance(String relevanceFile) throws IOException {
+		Map<Integer, Set<String>> relevance = new HashMap<>();
+
+		try (BufferedReader br = new BufferedReader(new FileReader(relevanceFile))) {
+			String line;
+			while ((line = br.readLine()) != null) {
+				String[] words = line.split(" ");
+				String docID = words[2];
+				// the judgements drop the leading zeros of the document numbers, e.g. CACM-59
+				int dash = docID.indexOf('-');
+				StringBuilder padded = new StringBuilder(docID.substring(0, dash + 1));
+				for (int i = docID.length(); i < DOC_ID_LENGTH; i++) {
+					padded.append('0');
+				}
+				padded.append(docID.substring(dash + 1));
+
+				relevance.computeIfAbsent(Integer.parseInt(words[0]), q -> new HashSet<>()).add(padded.toString());
+			}
+		}
+
+		return relevance;
+	}
+
+	/**
+	 * The method to compute the performance statistics of a ranking in memory, the same way generateStats computes
+	 * them from the result files, without writing anything
+	 * @param queryId is the query id for the given query
+	 * @param rankedDocIDs is the ids of the documents returned for the query, best first
+	 * @param relevant is the ids of the documents relevant to the query
+	 * @return the statistics of the ranking, all 0 if nothing was returned
+	 */
+	public static QueryStats evaluate(int queryId, List<String> rankedDocIDs, Set<String> relevant) {
+		int relNumber = 0;
+		double precisionSum = 0.0;
+		double reciRank = 0.0;
+		double precision = 0.0;
+		double precisionAt5 = 0.0;
+		double precisionAt20 = 0.0;
+
+		for (int idx = 0; idx < rankedDocIDs.size(); idx++) {
+			if (relevant.contains(rankedDocIDs.get(idx))) {
+				relNumber++;
+				precisionSum += (double) relNumber / (idx + 1);
+				if (relNumber == 1) reciRank = 1d / (idx + 1);
+			}
+			precision = (double) relNumber / (idx + 1);
+			if (idx + 1 == 5) precisionAt5 = precision;
+			if (idx + 1 == 20) precisionAt20 = precision;
+		}
+
+		return new QueryStats(queryId, precision, (double) relNumber / relevant.size(),
+				(relNumber == 0 ? 0d : precisionSum / relNumber), reciRank, precisionAt5, precisionAt20);
+	}
+
 	/**
 	 * The method to generate the performance statistics for the given query
 	 * @param queryId is the query id for the given query
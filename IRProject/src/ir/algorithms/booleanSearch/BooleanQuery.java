@@ -0,0 +1,144 @@
+package ir.algorithms.booleanSearch;
+
+import ir.algorithms.indexer.PostingList;
+import ir.algorithms.indexer.SearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parsed Boolean query: a term, or the AND, OR or NOT of other queries. A query is evaluated to the sorted numbers
+ * of the documents matching it
+ * @author Surbhi Gupta
+ */
+public abstract class BooleanQuery {
+	/**
+	 * The method to find the documents matching this query
+	 * @param index is the index the query is evaluated against
+	 * @return the numbers of the matching documents, in increasing order, the array must not be modified
+	 */
+	abstract int[] evaluate(SearchIndex index);
+
+	/**
+	 * A query matching the documents a term appears in
+	 */
+	static class Term extends BooleanQuery {
+		final String term;
+
+		Term(String term) {
+			this.term = term;
+		}
+
+		@Override
+		int[] evaluate(SearchIndex index) {
+			PostingList pl = index.getPostings(term);
+			return (pl == null ? DocSets.EMPTY : pl.docs);
+		}
+
+		@Override
+		public String toString() {
+			return term;
+		}
+	}
+
+	/**
+	 * A query matching the documents matching all of its clauses. The clauses that are not negated are intersected
+	 * shortest first, so that every intersection walks the fewest documents, and the negated ones are subtracted
+	 * from the result, without ever building their complement
+	 */
+	static class And extends BooleanQuery {
+		final List<BooleanQuery> clauses;
+
+		And(List<BooleanQuery> clauses) {
+			this.clauses = clauses;
+		}
+
+		@Override
+		int[] evaluate(SearchIndex index) {
+			List<int[]> included = new ArrayList<>();
+			List<BooleanQuery> excluded = new ArrayList<>();
+			for (BooleanQuery clause : clauses) {
+				if (clause instanceof Not)
+					excluded.add(((Not) clause).clause);
+				else
+					included.add(clause.evaluate(index));
+			}
+
+			if (included.isEmpty()) {
+				// only negated clauses, e.g. NOT a AND NOT b, is NOT (a OR b)
+				return new Not(new Or(excluded)).evaluate(index);
+			}
+			included.sort((d1, d2) -> Integer.compare(d1.length, d2.length));
+			int[] result = included.get(0);
+			for (int i = 1; i < included.size() && result.length > 0; i++) {
+				result = DocSets.intersect(result, included.get(i));
+			}
+
+			for (int i = 0; i < excluded.size() && result.length > 0; i++) {
+				result = DocSets.difference(result, excluded.get(i).evaluate(index));
+			}
+
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			return join(clauses, " AND ");
+		}
+	}
+
+	/**
+	 * A query matching the documents matching any of its clauses
+	 */
+	static class Or extends BooleanQuery {
+		final List<BooleanQuery> clauses;
+
+		Or(List<BooleanQuery> clauses) {
+			this.clauses = clauses;
+		}
+
+		@Override
+		int[] evaluate(SearchIndex index) {
+			int[] result = DocSets.EMPTY;
+			for (BooleanQuery clause : clauses) {
+				result = DocSets.union(result, clause.evaluate(index));
+			}
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			return join(clauses, " OR ");
+		}
+	}
+
+	/**
+	 * A query matching the documents not matching its clause
+	 */
+	static class Not extends BooleanQuery {
+		final BooleanQuery clause;
+
+		Not(BooleanQuery clause) {
+			this.clause = clause;
+		}
+
+		@Override
+		int[] evaluate(SearchIndex index) {
+			return DocSets.complement(clause.evaluate(index), index.getDocTable().getDocCount());
+		}
+
+		@Override
+		public String toString() {
+			return "NOT " + clause;
+		}
+	}
+
+	private static String join(List<BooleanQuery> clauses, String operator) {
+		StringBuilder sb = new StringBuilder("(");
+		for (int i = 0; i < clauses.size(); i++) {
+			if (i > 0) sb.append(operator);
+			sb.append(clauses.get(i));
+		}
+		return sb.append(')').toString();
+	}
+}
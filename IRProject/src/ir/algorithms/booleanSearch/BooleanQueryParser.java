@@ -0,0 +1,109 @@
+package ir.algorithms.booleanSearch;
+
+import ir.commons.analysis.AnalysisChain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parser of Boolean queries, e.g. (parallel OR concurrent) AND sorting NOT network
+ * The operators AND, OR and NOT are only recognized in upper case, NOT binding tightest and OR loosest, and terms
+ * next to each other are ANDed. Terms are analysed like the corpus content, so they match the indexed ones
+ * @author Surbhi Gupta
+ */
+public class BooleanQueryParser {
+	private static final String AND = "AND";
+	private static final String OR = "OR";
+	private static final String NOT = "NOT";
+
+	private final List<String> tokens = new ArrayList<>();
+	private final AnalysisChain analysis;
+	private int next;
+
+	private BooleanQueryParser(String query, AnalysisChain analysis) {
+		this.analysis = analysis;
+		for (String token : query.replace("(", " ( ").replace(")", " ) ").trim().split("\\s+")) {
+			if (!token.isEmpty()) tokens.add(token);
+		}
+	}
+
+	/**
+	 * The method to parse a Boolean query
+	 * @param query is the text of the query
+	 * @return the parsed query
+	 * @throws IllegalArgumentException if the query is empty, not well formed or has a word without any term
+	 */
+	public static BooleanQuery parse(String query) {
+		return parse(query, AnalysisChain.STANDARD);
+	}
+
+	/**
+	 * The method to parse a Boolean query against an index built with an analysis chain
+	 * @param query is the text of the query
+	 * @param analysis is the analysis chain of the index, its terms are turned into the terms of the index
+	 * @return the parsed query
+	 * @throws IllegalArgumentException if the query is empty, not well formed or has a word without any term
+	 */
+	public static BooleanQuery parse(String query, AnalysisChain analysis) {
+		BooleanQueryParser parser = new BooleanQueryParser(query, analysis);
+		if (parser.tokens.isEmpty()) throw new IllegalArgumentException("Empty Boolean query");
+
+		BooleanQuery parsed = parser.parseOr();
+		if (parser.next < parser.tokens.size())
+			throw new IllegalArgumentException("Unexpected " + parser.tokens.get(parser.next) + " in: " + query);
+		return parsed;
+	}
+
+	private BooleanQuery parseOr() {
+		List<BooleanQuery> clauses = new ArrayList<>();
+		clauses.add(parseAnd());
+		while (accept(OR)) {
+			clauses.add(parseAnd());
+		}
+		return (clauses.size() == 1 ? clauses.get(0) : new BooleanQuery.Or(clauses));
+	}
+
+	private BooleanQuery parseAnd() {
+		List<BooleanQuery> clauses = new ArrayList<>();
+		clauses.add(parseNot());
+		while (next < tokens.size() && !tokens.get(next).equals(OR) && !tokens.get(next).equals(")")) {
+			accept(AND);
+			clauses.add(parseNot());
+		}
+		return (clauses.size() == 1 ? clauses.get(0) : new BooleanQuery.And(clauses));
+	}
+
+	private BooleanQuery parseNot() {
+		if (accept(NOT)) return new BooleanQuery.Not(parseNot());
+		return parsePrimary();
+	}
+
+	private BooleanQuery parsePrimary() {
+		if (next == tokens.size()) throw new IllegalArgumentException("Boolean query ends with an operator");
+
+		String token = tokens.get(next++);
+		if (token.equals("(")) {
+			BooleanQuery parsed = parseOr();
+			if (!accept(")")) throw new IllegalArgumentException("Missing closing parenthesis");
+			return parsed;
+		}
+		if (token.equals(")") || token.equals(AND) || token.equals(OR))
+			throw new IllegalArgumentException("Unexpected " + token);
+
+		// a token like a.b is processed into several terms, all of which have to match
+		List<BooleanQuery> terms = new ArrayList<>();
+		for (String term : analysis.analyze(token).split(" +")) {
+			if (!term.isEmpty()) terms.add(new BooleanQuery.Term(term));
+		}
+		if (terms.isEmpty()) throw new IllegalArgumentException("No term in " + token);
+		return (terms.size() == 1 ? terms.get(0) : new BooleanQuery.And(terms));
+	}
+
+	private boolean accept(String token) {
+		if (next < tokens.size() && tokens.get(next).equals(token)) {
+			next++;
+			return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,57 @@
+package ir.algorithms.booleanSearch;
+
+import ir.algorithms.indexer.DocumentTable;
+import ir.algorithms.indexer.SearchIndex;
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The searcher that runs Boolean queries against an index held in memory or opened from a snapshot, returning the
+ * documents matching them, unranked, in the order of their numbers. It is safe to use from many threads at once
+ * @author Surbhi Gupta
+ */
+public class BooleanSearcher {
+	private static final Timer QUERY_TIME = Metrics.timer("boolean.query");
+	private static final Counter DOCS_MATCHED = Metrics.counter("boolean.docs.matched");
+
+	private final SearchIndex index;
+
+	public BooleanSearcher(SearchIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * The method to find the numbers of all the documents matching a query
+	 * @param query is the parsed query
+	 * @return the numbers of the matching documents, in increasing order
+	 */
+	public int[] match(BooleanQuery query) {
+		long start = QUERY_TIME.start();
+		int[] docs = query.evaluate(index).clone();
+		DOCS_MATCHED.add(docs.length);
+		QUERY_TIME.stop(start);
+
+		return docs;
+	}
+
+	/**
+	 * The method to find the ids of the first documents matching a query
+	 * @param docs is the numbers of the matching documents, as returned by match
+	 * @param limit is the maximum number of ids to be returned
+	 * @return the ids of the first matching documents, in the order of their numbers
+	 */
+	public List<String> getDocIDs(int[] docs, int limit) {
+		DocumentTable docTable = index.getDocTable();
+		List<String> docIDs = new ArrayList<>();
+
+		for (int i = 0; i < docs.length && i < limit; i++) {
+			docIDs.add(docTable.getDocID(docs[i]));
+		}
+
+		return docIDs;
+	}
+}
@@ -0,0 +1,84 @@
+package ir.algorithms.booleanSearch;
+
+import ir.algorithms.indexer.PostingList;
+
+import java.util.Arrays;
+
+/**
+ * The set operations over sorted arrays of document numbers that Boolean queries are evaluated with. Intersections and
+ * differences walk the shorter array and gallop through the longer one, so their cost depends on the shorter one
+ * @author Surbhi Gupta
+ */
+final class DocSets {
+	static final int[] EMPTY = new int[0];
+
+	private DocSets() {
+	}
+
+	/**
+	 * @return the documents in both arrays
+	 */
+	static int[] intersect(int[] a, int[] b) {
+		if (a.length > b.length) return intersect(b, a);
+
+		int[] result = new int[a.length];
+		int size = 0;
+		int j = 0;
+		for (int doc : a) {
+			j = PostingList.advance(b, b.length, j, doc);
+			if (j == b.length) break;
+			if (b[j] == doc) result[size++] = doc;
+		}
+
+		return Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * @return the documents in any of the two arrays
+	 */
+	static int[] union(int[] a, int[] b) {
+		int[] result = new int[a.length + b.length];
+		int size = 0;
+		int i = 0;
+		int j = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) result[size++] = a[i++];
+			else if (a[i] > b[j]) result[size++] = b[j++];
+			else { result[size++] = a[i++]; j++; }
+		}
+		while (i < a.length) result[size++] = a[i++];
+		while (j < b.length) result[size++] = b[j++];
+
+		return Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * @return the documents in the first array and not in the second one
+	 */
+	static int[] difference(int[] a, int[] b) {
+		int[] result = new int[a.length];
+		int size = 0;
+		int j = 0;
+		for (int doc : a) {
+			j = PostingList.advance(b, b.length, j, doc);
+			if (j == b.length || b[j] != doc) result[size++] = doc;
+		}
+
+		return Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * @return the documents of the corpus that are not in the array
+	 */
+	static int[] complement(int[] a, int docCount) {
+		int[] result = new int[docCount - a.length];
+		int size = 0;
+		int i = 0;
+		for (int doc = 0; doc < docCount; doc++) {
+			if (i < a.length && a[i] == doc) i++;
+			else result[size++] = doc;
+		}
+
+		return result;
+	}
+}
@@ -1,11 +1,16 @@
 package ir.algorithms.corpus;
 
 import ir.commons.Utils;
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Scanner;
 import java.util.regex.Matcher;
@@ -25,36 +30,112 @@ public class CorpusGenerator {
 	private static final String DESTI_DIR_NAME = "data/output/cacm_corpus/";
 	private static final String CORPUS_PATH = "data/output/cacm_corpus/";
 	private static final String DOC_LENGTH_PATH = "data/output/docLength.txt";
+	private static final String METADATA_PATH = "data/output/docMetadata.txt";
+	private static final String NEAR_DUPLICATES_PATH = "data/output/nearDuplicates.txt";
+
+	private static final Counter DOCS_PROCESSED = Metrics.counter("corpus.docs.processed");
+	private static final Timer DOC_PROCESS_TIME = Metrics.timer("corpus.doc.process");
 	
 	/**
 	 * The method to read all the corpus files in the given path name and store them as the desired type after
-	 * processing
+	 * processing, flagging the near-duplicates with the default threshold
 	 * @throws IOException
      */
 	public static void corpus() throws IOException {
+		corpus(NearDuplicateDetector.DEFAULT_THRESHOLD, false);
+	}
+
+	/**
+	 * The method to read all the corpus files in the given path name and store them as the desired type after
+	 * processing. The near-duplicates of the files read before them are written in the near-duplicates file, a line
+	 * per near-duplicate with its original and their estimated Jaccard similarity
+	 * @param threshold is the least Jaccard similarity of the shingles of a near-duplicate to those of its original
+	 * @param collapse is true to leave the near-duplicates out of the corpus, false to only flag them
+	 * @throws IOException
+	 */
+	public static void corpus(double threshold, boolean collapse) throws IOException {
 		List<File> fileList = Utils.readFilesFromDirectory(CORPUS_DIR_PATH, CACM_FILE_PREFIX, CACM_FILE_TYPE );
+		// the directory lists its files in no set order, and which of two near-duplicates is kept depends on it
+		fileList.sort(Comparator.comparing(File::getName));
 		
+		List<DocMetadata> metadataList = new ArrayList<>();
+		NearDuplicateDetector detector = new NearDuplicateDetector(threshold);
+		List<NearDuplicateDetector.NearDuplicate> duplicates = new ArrayList<>();
+
 		System.out.println("Processing files for corpus generation...");
 		for (File file : fileList) {
-			readFileAndAddToCorpus(file);
+			long start = DOC_PROCESS_TIME.start();
+			metadataList.add(readFileAndAddToCorpus(file, detector, collapse, duplicates));
+			DOC_PROCESS_TIME.stop(start);
+			DOCS_PROCESSED.inc();
 		}
 		DocLength.docLengthGenerator(CORPUS_PATH, DOC_LENGTH_PATH, null);
+		writeMetadata(metadataList);
+
+		try (FileWriter writer = new FileWriter(NEAR_DUPLICATES_PATH)) {
+			for (NearDuplicateDetector.NearDuplicate duplicate : duplicates) {
+				writer.write(duplicate + "\n");
+			}
+		}
+		System.out.println(duplicates.size() + " near-duplicates " + (collapse ? "collapsed" : "flagged"));
 		
 		System.out.println("Corpus generated");
 	}
 
 	/**
-	 * The method to read the given file and add it to the corpus after processing
+	 * The method to extract only the metadata of all the corpus files, for a corpus generated without it
+	 * @throws IOException
+	 */
+	public static void metadata() throws IOException {
+		List<DocMetadata> metadataList = new ArrayList<>();
+
+		System.out.println("Extracting the metadata of the corpus files...");
+		for (File file : Utils.readFilesFromDirectory(CORPUS_DIR_PATH, CACM_FILE_PREFIX, CACM_FILE_TYPE)) {
+			metadataList.add(DocMetadata.extract(processFileName(file.getName()), readPreContent(file)));
+		}
+		writeMetadata(metadataList);
+	}
+
+	/**
+	 * The method to write the metadata of all the documents in the metadata file, a line per document in the order
+	 * of their ids
+	 * @param metadataList is the metadata of all the documents
+	 * @throws IOException
+	 */
+	private static void writeMetadata(List<DocMetadata> metadataList) throws IOException {
+		metadataList.sort((m1, m2) -> m1.docID.compareTo(m2.docID));
+		try (FileWriter writer = new FileWriter(METADATA_PATH)) {
+			for (DocMetadata metadata : metadataList) {
+				writer.write(metadata.toLine() + "\n");
+			}
+		}
+		System.out.println("Metadata of " + metadataList.size() + " files written");
+	}
+
+	private static String readPreContent(File file) throws IOException {
+		String fileContent = new String(Files.readAllBytes(file.toPath()));
+		return fileContent.substring(fileContent.indexOf(READ_START_TAG) + 5, fileContent.indexOf(READ_END_TAG)).trim();
+	}
+
+	/**
+	 * The method to read the given file and add it to the corpus after processing, unless it is a near-duplicate to be
+	 * collapsed
 	 * @param file is the file to be read and processed
+	 * @param detector is the near-duplicate detector the file is checked against and added to
+	 * @param collapse is true to leave the file out of the corpus if it is a near-duplicate
+	 * @param duplicates is the list of the near-duplicates, the file is added to it if it is one
+	 * @return the metadata at the end of the file, which is not added to the corpus
 	 * @throws IOException
      */
-	private static void readFileAndAddToCorpus(File file) throws IOException {
+	private static DocMetadata readFileAndAddToCorpus(File file, NearDuplicateDetector detector, boolean collapse,
+			List<NearDuplicateDetector.NearDuplicate> duplicates) throws IOException {
 		Scanner sc = new Scanner(file, UTF8);
 		String fileContent = new String(Files.readAllBytes(file.toPath()));	//parse the entire file content into a string
 		sc.close();
     	
 		String fileName = DESTI_DIR_NAME + processFileName(file.getName() + CORPUS_FILE_TYPE);
 		String content = fileContent.substring(fileContent.indexOf(READ_START_TAG) + 5, fileContent.indexOf(READ_END_TAG)).trim();
+		DocMetadata metadata = DocMetadata.extract(processFileName(file.getName()), content);
 		content = Utils.processContent(content);
 		
 		Pattern p1 = Pattern.compile("[c][a][0-9][0-9][0-9][0-9][0-9][0-9] [a-z][a-z]");
@@ -71,7 +152,14 @@ public class CorpusGenerator {
 		else if (m3.find()) { int position = m3.start(); content = content.substring(0, position).trim(); }
 		else if (m4.find()) { int position = m4.start(); content = content.substring(0, position).trim(); }
 		
-		addToCorpus(fileName, content);
+		NearDuplicateDetector.NearDuplicate duplicate = detector.add(processFileName(file.getName()), content);
+		if (duplicate != null) duplicates.add(duplicate);
+		if (duplicate != null && collapse) {
+			Files.deleteIfExists(new File(fileName).toPath());		// left by an earlier generation
+		} else {
+			addToCorpus(fileName, content);
+		}
+		return metadata;
 	}
 
 	/**
@@ -0,0 +1,77 @@
+package ir.algorithms.corpus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class to store the metadata CACM keeps after the text of a document: its publication year and month, taken
+ * from its CA record, e.g. CA581203, and its authors, taken from the lines after its publication date
+ * @author Surbhi Gupta
+ */
+class DocMetadata {
+	static final String SEPARATOR = " : ";
+	static final String AUTHOR_SEPARATOR = "|";
+
+	private static final Pattern RECORD = Pattern.compile("(?m)^(CA(\\d\\d)(\\d\\d)\\d\\d[a-z]?)(?!\\d)");
+	private static final Pattern DATE = Pattern.compile("(?m)^\\s*(CACM\\s+)?(January|February|March|April|May|June|July" +
+			"|August|September|October|November|December),?\\s*\\d{4}\\s*$");
+	private static final Pattern AUTHOR = Pattern.compile("^\\s*([A-Z][A-Za-z'\\-]+(?:\\s[A-Za-z'\\-]+\\.?)?),\\s*" +
+			"[A-Z][A-Za-z]*\\.?(?:[\\s\\-]*[A-Z][a-z]*\\.?)*\\s*(?:\\(.*\\))?\\s*$");
+
+	String docID;
+	String record = "";
+	int year;
+	int month;
+	List<String> authors = new ArrayList<>();
+
+	/**
+	 * The method to extract the metadata of a document from its raw content
+	 * @param docID is the id of the document, e.g. CACM-0001
+	 * @param content is the raw content of the document, before any processing
+	 * @return the metadata of the document, with a year and a month of 0 if it has no CA record
+	 */
+	static DocMetadata extract(String docID, String content) {
+		DocMetadata metadata = new DocMetadata();
+		metadata.docID = docID;
+
+		Matcher record = RECORD.matcher(content);
+		if (record.find()) {
+			metadata.record = record.group(1);
+			metadata.year = 1900 + Integer.parseInt(record.group(2));
+			metadata.month = Integer.parseInt(record.group(3));
+		}
+
+		// the authors are the first lines after the publication date, one per line as "Last, F. M."
+		Matcher date = DATE.matcher(content);
+		if (date.find()) {
+			String[] lines = content.substring(date.end()).split("\n");
+			int i = 0;
+			while (i < lines.length && lines[i].trim().isEmpty()) i++;
+			for (; i < lines.length && !lines[i].trim().isEmpty(); i++) {
+				Matcher author = AUTHOR.matcher(lines[i]);
+				if (!author.matches()) break;
+				metadata.authors.add(normalizeAuthor(author.group(1)));
+			}
+		}
+
+		return metadata;
+	}
+
+	/**
+	 * @param lastName is the last name of an author as printed
+	 * @return the last name as it is searched for, in lower case with only letters and dashes
+	 */
+	static String normalizeAuthor(String lastName) {
+		return lastName.replaceAll("\\s+(Jr|Sr)\\.?$", "").toLowerCase().replaceAll("[^a-z\\-]", "");
+	}
+
+	/**
+	 * @return the metadata as a line of the metadata file, e.g. CACM-0001 : 1958 : 12 : CA581203 : perlis|samelson
+	 */
+	String toLine() {
+		return docID + SEPARATOR + year + SEPARATOR + month + SEPARATOR + record + SEPARATOR +
+				String.join(AUTHOR_SEPARATOR, authors);
+	}
+}
@@ -0,0 +1,221 @@
+package ir.algorithms.corpus;
+
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The detection of near-duplicate documents as they are ingested, without comparing every pair of them. A document is
+ * the set of its shingles, the sequences of shingleSize consecutive words, and its MinHash signature holds, for each of
+ * HASH_COUNT hash functions, the least hash of its shingles: two signatures agree on a hash with a probability equal
+ * to the Jaccard similarity of the two sets. The signatures are cut into bands of rows hashes, and two documents are
+ * compared only if they agree on a whole band, i.e. fall in the same bucket of that band. The number of rows is the
+ * highest one for which two documents exactly at the threshold still share a bucket with a probability of
+ * MIN_CANDIDATE_PROBABILITY, so that few dissimilar documents are compared and few near-duplicates are missed. A
+ * near-duplicate is never added to the buckets, its original stands for it, so a document is compared to at most the
+ * originals of its buckets
+ * @author Surbhi Gupta
+ */
+public class NearDuplicateDetector {
+	public static final double DEFAULT_THRESHOLD = 0.9;
+	public static final int DEFAULT_SHINGLE_SIZE = 3;
+	private static final int HASH_COUNT = 128;
+	private static final double MIN_CANDIDATE_PROBABILITY = 0.99;
+	private static final long SEED = 42;
+
+	private static final Counter NEAR_DUPLICATES = Metrics.counter("corpus.near.duplicates");
+	private static final Counter CANDIDATES = Metrics.counter("corpus.near.duplicates.candidates");
+	private static final Timer ADD_TIME = Metrics.timer("corpus.near.duplicates.add");
+
+	private final double threshold;
+	private final int shingleSize;
+	private final int rows;
+	private final int bands;
+	private final long[] multipliers = new long[HASH_COUNT];
+	private final long[] increments = new long[HASH_COUNT];
+
+	private final List<String> docIDs = new ArrayList<>();			// of the originals, by number
+	private final List<int[]> signatures = new ArrayList<>();		// of the originals, by number
+	private final List<Map<Long, List<Integer>>> buckets = new ArrayList<>();	// per band, the originals of each bucket
+
+	/**
+	 * Utility class to store a near-duplicate: its document, the original it duplicates and their estimated Jaccard
+	 * similarity
+	 */
+	public static class NearDuplicate {
+		public final String docID;
+		public final String originalID;
+		public final double similarity;
+
+		NearDuplicate(String docID, String originalID, double similarity) {
+			this.docID = docID;
+			this.originalID = originalID;
+			this.similarity = similarity;
+		}
+
+		@Override
+		public String toString() {
+			return docID + " " + originalID + " " + String.format("%.3f", similarity);
+		}
+	}
+
+	public NearDuplicateDetector(double threshold) {
+		this(threshold, DEFAULT_SHINGLE_SIZE);
+	}
+
+	/**
+	 * @param threshold is the least Jaccard similarity of a near-duplicate to its original, between 0 and 1
+	 * @param shingleSize is the number of words of a shingle
+	 */
+	public NearDuplicateDetector(double threshold, int shingleSize) {
+		if (threshold <= 0 || threshold > 1)
+			throw new IllegalArgumentException("The threshold must be in (0, 1]: " + threshold);
+		if (shingleSize < 1)
+			throw new IllegalArgumentException("A shingle has at least one word: " + shingleSize);
+		this.threshold = threshold;
+		this.shingleSize = shingleSize;
+
+		int r = 1;
+		while (r < HASH_COUNT &&
+				candidateProbability(threshold, r + 1, HASH_COUNT / (r + 1)) >= MIN_CANDIDATE_PROBABILITY) r++;
+		this.rows = r;
+		this.bands = HASH_COUNT / r;
+		for (int b = 0; b < bands; b++) buckets.add(new HashMap<>());
+
+		// h(x) = (a * x + c) >>> 33 with an odd a, a multiply-shift hash, a different one per hash of the signature
+		Random random = new Random(SEED);
+		for (int i = 0; i < HASH_COUNT; i++) {
+			multipliers[i] = random.nextLong() | 1;
+			increments[i] = random.nextLong();
+		}
+	}
+
+	/**
+	 * @return the probability that two documents of the given similarity agree on at least one of the bands
+	 */
+	private static double candidateProbability(double similarity, int rows, int bands) {
+		return 1 - Math.pow(1 - Math.pow(similarity, rows), bands);
+	}
+
+	/**
+	 * The method to check a document against the documents added so far, then add it
+	 * @param docID is the id of the document
+	 * @param content is the processed content of the document
+	 * @return the original the document is a near-duplicate of, the most similar one, NULL if the document is original
+	 */
+	public NearDuplicate add(String docID, String content) {
+		long start = ADD_TIME.start();
+		int[] signature = signature(content);
+
+		long[] keys = new long[bands];
+		int best = -1;
+		double bestSimilarity = 0;
+		for (int b = 0; b < bands; b++) {
+			keys[b] = bandKey(signature, b);
+			List<Integer> bucket = buckets.get(b).get(keys[b]);
+			if (bucket == null) continue;
+
+			for (int doc : bucket) {
+				CANDIDATES.inc();
+				double similarity = similarity(signature, signatures.get(doc));
+				if (similarity >= threshold && similarity > bestSimilarity) {
+					best = doc;
+					bestSimilarity = similarity;
+				}
+			}
+		}
+
+		NearDuplicate duplicate = null;
+		if (best >= 0) {
+			duplicate = new NearDuplicate(docID, docIDs.get(best), bestSimilarity);
+			NEAR_DUPLICATES.inc();
+		} else {
+			int doc = docIDs.size();
+			docIDs.add(docID);
+			signatures.add(signature);
+			for (int b = 0; b < bands; b++) {
+				buckets.get(b).computeIfAbsent(keys[b], k -> new ArrayList<>(1)).add(doc);
+			}
+		}
+
+		ADD_TIME.stop(start);
+		return duplicate;
+	}
+
+	/**
+	 * The method to compute the MinHash signature of a document
+	 * @param content is the processed content of the document
+	 * @return the least hash of the shingles of the document for every hash function
+	 */
+	int[] signature(String content) {
+		int[] signature = new int[HASH_COUNT];
+		Arrays.fill(signature, Integer.MAX_VALUE);
+
+		String[] words = content.trim().split("\\s+");
+		int shingleCount = Math.max(1, words.length - shingleSize + 1);
+		for (int s = 0; s < shingleCount; s++) {
+			long x = shingleHash(words, s, Math.min(s + shingleSize, words.length));
+			for (int i = 0; i < HASH_COUNT; i++) {
+				int h = (int) ((multipliers[i] * x + increments[i]) >>> 33);
+				if (h < signature[i]) signature[i] = h;
+			}
+		}
+		return signature;
+	}
+
+	/**
+	 * The method to hash a shingle to 64 bits, with FNV-1a over its words and a space between them
+	 */
+	private static long shingleHash(String[] words, int from, int to) {
+		long h = 0xCBF29CE484222325L;
+		for (int w = from; w < to; w++) {
+			if (w > from) h = (h ^ ' ') * 0x100000001B3L;
+			String word = words[w];
+			for (int i = 0; i < word.length(); i++) h = (h ^ word.charAt(i)) * 0x100000001B3L;
+		}
+		return h ^ (h >>> 29);
+	}
+
+	private long bandKey(int[] signature, int band) {
+		long h = band;
+		for (int i = band * rows; i < (band + 1) * rows; i++) h = h * 0x9E3779B97F4A7C15L + signature[i];
+		return h;
+	}
+
+	/**
+	 * @return the share of the hashes two signatures agree on, the estimate of the Jaccard similarity of their documents
+	 */
+	static double similarity(int[] s1, int[] s2) {
+		int equal = 0;
+		for (int i = 0; i < HASH_COUNT; i++) {
+			if (s1[i] == s2[i]) equal++;
+		}
+		return (double) equal / HASH_COUNT;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getBands() {
+		return bands;
+	}
+
+	/**
+	 * @return the number of documents added that are not near-duplicates
+	 */
+	public int getOriginalCount() {
+		return docIDs.size();
+	}
+}
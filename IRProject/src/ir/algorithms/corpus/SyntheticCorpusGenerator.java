@@ -0,0 +1,262 @@
+package ir.algorithms.corpus;
+
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The generator of synthetic corpora of any size that look like CACM to the indexer and the search engine. It learns
+ * the term frequency distribution from a printed inverted index, the document length distribution from the document
+ * length file and the query length distribution from a query file, then samples documents and queries from them.
+ * Words that appear only once in the learned corpus are emitted as brand new words, so that the vocabulary keeps
+ * growing with the corpus as it does for real text. The same seed always gives the same corpus and queries
+ * @author Surbhi Gupta
+ */
+public class SyntheticCorpusGenerator {
+	private static final String SEPARATOR = " : ";
+	private static final String POSTING_SEPARATOR = ", ";
+	private static final String CORPUS_FILE_PREFIX = "CACM-";
+	private static final String CORPUS_FILE_TYPE = ".txt";
+	private static final double MAX_QUERY_TERM_DF_RATIO = 0.1d;		// query terms are not as common as stop words
+	private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+	private final List<String> terms = new ArrayList<>();
+	private final List<Integer> termDFs = new ArrayList<>();
+	private int[] docLengths;
+	private int[] queryLengths;
+	private double newWordRate;		// share of the tokens that are words seen only once
+	private int learnedDocCount;
+
+	// Vose's alias tables to sample a term in constant time, proportionally to its collection frequency
+	private AliasTable termTable;
+	// the same over the terms rare enough to be query terms only, as indexes into terms
+	private final List<Integer> queryTerms = new ArrayList<>();
+	private AliasTable queryTermTable;
+
+	/**
+	 * a private class holding Vose's alias tables of a distribution over the integers 0 to n - 1
+	 */
+	private static class AliasTable {
+		final double[] probability;
+		final int[] alias;
+
+		AliasTable(double[] probability, int[] alias) {
+			this.probability = probability;
+			this.alias = alias;
+		}
+
+		int sample(Random random) {
+			int column = random.nextInt(probability.length);
+			return (random.nextDouble() < probability[column] ? column : alias[column]);
+		}
+	}
+
+	private SyntheticCorpusGenerator() {
+	}
+
+	/**
+	 * The method to learn the distributions of a corpus
+	 * @param indexPath is the relative path to the inverted index file of the corpus
+	 * @param docLengthPath is the relative path to the document length file of the corpus
+	 * @param queryPath is the relative path to the query file of the corpus
+	 * @return the generator of corpora like the given one
+	 * @throws Exception
+	 */
+	public static SyntheticCorpusGenerator learn(String indexPath, String docLengthPath, String queryPath) throws Exception {
+		SyntheticCorpusGenerator generator = new SyntheticCorpusGenerator();
+		List<Long> collectionFrequencies = new ArrayList<>();
+		long tokens = 0;
+		long hapaxTokens = 0;
+
+		try (BufferedReader buffer = new BufferedReader(new FileReader(indexPath))) {
+			String line;
+			while ((line = buffer.readLine()) != null) {
+				int sep = line.indexOf(SEPARATOR);
+				if (sep <= 0) continue;
+
+				String[] postings = line.substring(sep + SEPARATOR.length()).split(POSTING_SEPARATOR);
+				long cf = 0;
+				for (String posting : postings) {
+					cf += Integer.parseInt(posting.substring(posting.lastIndexOf(':') + 1, posting.indexOf(']')));
+				}
+
+				tokens += cf;
+				if (cf == 1) {
+					hapaxTokens++;
+				} else {
+					generator.terms.add(line.substring(0, sep));
+					generator.termDFs.add(postings.length);
+					collectionFrequencies.add(cf);
+				}
+			}
+		}
+		generator.newWordRate = (tokens == 0 ? 0d : (double) hapaxTokens / tokens);
+		generator.termTable = buildAliasTable(collectionFrequencies);
+
+		List<Integer> lengths = new ArrayList<>();
+		try (BufferedReader buffer = new BufferedReader(new FileReader(docLengthPath))) {
+			String line;
+			while ((line = buffer.readLine()) != null) {
+				lengths.add(Integer.parseInt(line.split(SEPARATOR)[1]));
+			}
+		}
+		generator.learnedDocCount = lengths.size();
+		generator.docLengths = toArray(lengths);
+
+		int maxQueryTermDF = (int) Math.max(1, generator.learnedDocCount * MAX_QUERY_TERM_DF_RATIO);
+		List<Long> queryTermFrequencies = new ArrayList<>();
+		for (int t = 0; t < generator.terms.size(); t++) {
+			if (generator.termDFs.get(t) > maxQueryTermDF) continue;
+			generator.queryTerms.add(t);
+			queryTermFrequencies.add(collectionFrequencies.get(t));
+		}
+		if (!generator.queryTerms.isEmpty()) generator.queryTermTable = buildAliasTable(queryTermFrequencies);
+
+		List<Integer> qLengths = new ArrayList<>();
+		for (SearchQuery q : Utils.parseXML(queryPath)) {
+			qLengths.add(q.queryText.split(" +").length);
+		}
+		generator.queryLengths = toArray(qLengths);
+
+		return generator;
+	}
+
+	/**
+	 * The method to write a synthetic corpus in the cacm_corpus layout, along with its document length file
+	 * @param docCount is the number of documents to be generated
+	 * @param seed is the seed of all the random choices
+	 * @param corpusDirPath is the relative path of the directory the documents are written in
+	 * @param docLengthPath is the relative path of the document length file to be written
+	 * @throws IOException
+	 */
+	public void generateCorpus(long docCount, long seed, String corpusDirPath, String docLengthPath) throws IOException {
+		Random random = new Random(seed);
+		new File(corpusDirPath).mkdirs();
+		int digits = Math.max(4, String.valueOf(docCount).length());
+
+		System.out.println("Generating " + docCount + " synthetic documents...");
+		try (FileWriter docLengthWriter = new FileWriter(docLengthPath)) {
+			StringBuilder doc = new StringBuilder();
+			for (long d = 1; d <= docCount; d++) {
+				String docID = CORPUS_FILE_PREFIX + String.format("%0" + digits + "d", d);
+				int length = docLengths[random.nextInt(docLengths.length)];
+
+				doc.setLength(0);
+				for (int w = 0; w < length; w++) {
+					if (w > 0) doc.append(' ');
+					if (random.nextDouble() < newWordRate)
+						appendNewWord(doc, random);
+					else
+						doc.append(terms.get(termTable.sample(random)));
+				}
+
+				try (FileWriter writer = new FileWriter(corpusDirPath + docID + CORPUS_FILE_TYPE)) {
+					writer.write(doc.toString());
+				}
+				docLengthWriter.write(docID + SEPARATOR + length + "\n");
+
+				if (d % 100000 == 0) System.out.println(d + " documents generated");
+			}
+		}
+		System.out.println("Synthetic corpus generated");
+	}
+
+	/**
+	 * The method to write a synthetic query file in the format of cacm.query. Query terms are sampled like document
+	 * terms, leaving out the terms too common to be asked for
+	 * @param queryCount is the number of queries to be generated
+	 * @param seed is the seed of all the random choices
+	 * @param queryPath is the relative path of the query file to be written
+	 * @throws IOException
+	 * @throws IllegalStateException if every learned term is too common to be a query term
+	 */
+	public void generateQueries(int queryCount, long seed, String queryPath) throws IOException {
+		if (queryTermTable == null) {
+			throw new IllegalStateException("No learned term is in at most " + (int) (MAX_QUERY_TERM_DF_RATIO * 100)
+					+ "% of the documents, there is no term to build queries from");
+		}
+		Random random = new Random(seed);
+
+		try (FileWriter writer = new FileWriter(queryPath)) {
+			for (int q = 1; q <= queryCount; q++) {
+				int length = queryLengths[random.nextInt(queryLengths.length)];
+
+				StringBuilder query = new StringBuilder();
+				for (int w = 0; w < length; w++) {
+					if (w > 0) query.append(' ');
+					query.append(terms.get(queryTerms.get(queryTermTable.sample(random))));
+				}
+
+				writer.write("<DOC>\n<DOCNO> " + q + " </DOCNO>\n" + query + "\n</DOC>\n");
+			}
+		}
+	}
+
+	/**
+	 * The helper method to build the alias tables of a term distribution, with Vose's method
+	 * @param weights is the collection frequency of every term
+	 * @return the alias tables to sample the terms from
+	 */
+	private static AliasTable buildAliasTable(List<Long> weights) {
+		int n = weights.size();
+		double[] aliasProbability = new double[n];
+		int[] alias = new int[n];
+
+		double total = 0d;
+		for (long w : weights) total += w;
+
+		double[] scaled = new double[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int smallCount = 0;
+		int largeCount = 0;
+		for (int i = 0; i < n; i++) {
+			scaled[i] = weights.get(i) * n / total;
+			if (scaled[i] < 1d) small[smallCount++] = i; else large[largeCount++] = i;
+		}
+
+		while (smallCount > 0 && largeCount > 0) {
+			int s = small[--smallCount];
+			int l = large[--largeCount];
+			aliasProbability[s] = scaled[s];
+			alias[s] = l;
+			scaled[l] = (scaled[l] + scaled[s]) - 1d;
+			if (scaled[l] < 1d) small[smallCount++] = l; else large[largeCount++] = l;
+		}
+		while (largeCount > 0) aliasProbability[large[--largeCount]] = 1d;
+		while (smallCount > 0) aliasProbability[small[--smallCount]] = 1d;
+		return new AliasTable(aliasProbability, alias);
+	}
+
+	/**
+	 * The helper method to make up a word that is most likely not in the vocabulary yet
+	 * @param doc is the document the word is appended to
+	 * @param random is the source of the random choices
+	 */
+	private static void appendNewWord(StringBuilder doc, Random random) {
+		int length = 6 + random.nextInt(6);
+		for (int i = 0; i < length; i++) {
+			doc.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+		}
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	public int getLearnedDocCount() {
+		return learnedDocCount;
+	}
+}
@@ -0,0 +1,167 @@
+package ir.algorithms.indexer;
+
+import ir.commons.DocBitmap;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The metadata of all the documents of the corpus, read once from the metadata file: the publication year, month and
+ * CA record and the authors of every document, kept in columns indexed by document number. Every value that can be
+ * filtered on has the bitmap of its documents, so that a filter such as year:1970..1975 author:knuth is evaluated
+ * with bitmap unions and intersections, without looking at a single document
+ * @author Surbhi Gupta
+ */
+public class DocumentMetadata {
+	private static final String SEPARATOR = " : ";
+	private static final String AUTHOR_SEPARATOR = "\\|";
+	private static final String RANGE_SEPARATOR = "..";
+	// a filter clause of a query, e.g. year:1970..1975, month:6 or author:knuth
+	private static final Pattern FILTER = Pattern.compile("(?<!\\S)(year|month|author):(\\S+)");
+
+	private final int[] years;
+	private final int[] months;
+	private final String[] records;
+	private final String[][] authors;
+	private final NavigableMap<Integer, DocBitmap> byYear = new TreeMap<>();
+	private final NavigableMap<Integer, DocBitmap> byMonth = new TreeMap<>();
+	private final Map<String, DocBitmap> byAuthor = new HashMap<>();
+
+	private DocumentMetadata(int docCount) {
+		years = new int[docCount];
+		months = new int[docCount];
+		records = new String[docCount];
+		authors = new String[docCount][];
+	}
+
+	/**
+	 * The method to read the metadata file into columns and bitmaps, numbering the documents like the given table
+	 * Documents missing from the table are dropped, and documents missing from the file have no metadata
+	 * @param metadataPath is the relative path to the metadata file
+	 * @param docTable is the table used to number the documents
+	 * @return the metadata of all the documents of the table
+	 * @throws IOException
+	 */
+	public static DocumentMetadata load(String metadataPath, DocumentTable docTable) throws IOException {
+		DocumentMetadata metadata = new DocumentMetadata(docTable.getDocCount());
+
+		try (BufferedReader buffer = new BufferedReader(new FileReader(metadataPath))) {
+			String line;
+			while ((line = buffer.readLine()) != null) {
+				String[] parts = line.split(SEPARATOR, -1);
+				int doc = docTable.getDocNumber(parts[0]);
+				if (doc < 0) continue;
+
+				metadata.years[doc] = Integer.parseInt(parts[1]);
+				metadata.months[doc] = Integer.parseInt(parts[2]);
+				metadata.records[doc] = parts[3];
+				metadata.authors[doc] = (parts[4].isEmpty() ? new String[0] : parts[4].split(AUTHOR_SEPARATOR));
+			}
+		}
+
+		// documents are added in increasing order, so every bitmap is built by appending
+		for (int doc = 0; doc < docTable.getDocCount(); doc++) {
+			if (metadata.records[doc] == null) continue;
+			metadata.byYear.computeIfAbsent(metadata.years[doc], y -> new DocBitmap()).add(doc);
+			metadata.byMonth.computeIfAbsent(metadata.months[doc], m -> new DocBitmap()).add(doc);
+			for (String author : metadata.authors[doc]) {
+				metadata.byAuthor.computeIfAbsent(author, a -> new DocBitmap()).add(doc);
+			}
+		}
+
+		return metadata;
+	}
+
+	public int getYear(int doc) {
+		return years[doc];
+	}
+
+	public int getMonth(int doc) {
+		return months[doc];
+	}
+
+	public String getRecord(int doc) {
+		return records[doc];
+	}
+
+	public String[] getAuthors(int doc) {
+		return authors[doc];
+	}
+
+	/**
+	 * The method to find the documents with a value of a field, or in a range of values for the year and the month
+	 * @param field is the name of the field, year, month or author
+	 * @param value is the value, e.g. 1970, 1970..1975 or knuth
+	 * @return the documents with the value
+	 * @throws IllegalArgumentException if the field is unknown or the value is not a number or range of numbers
+	 */
+	public DocBitmap filter(String field, String value) {
+		switch (field) {
+			case "year":
+				return range(byYear, value);
+			case "month":
+				return range(byMonth, value);
+			case "author":
+				DocBitmap docs = byAuthor.get(value.toLowerCase());
+				return (docs == null ? new DocBitmap() : docs);
+			default:
+				throw new IllegalArgumentException("Unknown metadata field: " + field);
+		}
+	}
+
+	private static DocBitmap range(NavigableMap<Integer, DocBitmap> byValue, String value) {
+		int sep = value.indexOf(RANGE_SEPARATOR);
+		int from;
+		int to;
+		try {
+			from = Integer.parseInt(sep < 0 ? value : value.substring(0, sep));
+			to = (sep < 0 ? from : Integer.parseInt(value.substring(sep + RANGE_SEPARATOR.length())));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a number or range of numbers: " + value);
+		}
+
+		DocBitmap docs = new DocBitmap();
+		for (DocBitmap d : byValue.subMap(from, true, to, true).values()) {
+			docs = docs.or(d);
+		}
+		return docs;
+	}
+
+	/**
+	 * The method to find the documents passing all the filter clauses of a query, e.g. year:1970..1975 author:knuth
+	 * Clauses on the same field are ORed, and clauses on different fields are ANDed
+	 * @param queryText is the raw text of the query, before any processing
+	 * @return the documents passing the filters, NULL if the query has no filter clause
+	 * @throws IllegalArgumentException if a clause has a value that is not valid for its field
+	 */
+	public DocBitmap parseFilters(String queryText) {
+		Map<String, DocBitmap> byField = new LinkedHashMap<>();
+		Matcher m = FILTER.matcher(queryText);
+		while (m.find()) {
+			DocBitmap docs = filter(m.group(1), m.group(2));
+			byField.merge(m.group(1), docs, DocBitmap::or);
+		}
+
+		DocBitmap result = null;
+		for (DocBitmap docs : byField.values()) {
+			result = (result == null ? docs : result.and(docs));
+		}
+		return result;
+	}
+
+	/**
+	 * @param queryText is the raw text of a query
+	 * @return the text of the query without its filter clauses
+	 */
+	public static String stripFilters(String queryText) {
+		return FILTER.matcher(queryText).replaceAll(" ").trim();
+	}
+}
@@ -0,0 +1,103 @@
+package ir.algorithms.indexer;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The table of all the documents of the corpus, read once from the document length file. Each document is given a
+ * dense number in the order of the file, so that per-document data can be kept in primitive arrays
+ * @author Surbhi Gupta
+ */
+public class DocumentTable {
+	private static final String SEPARATOR = " : ";
+
+	private final List<String> docIDs = new ArrayList<>();
+	private final Map<String, Integer> docNumbers = new HashMap<>();
+	private int[] docLengths;
+	private double avdl;
+
+	private DocumentTable() {
+	}
+
+	/**
+	 * The method to read the document length file into a table
+	 * @param docLengthPath is the relative path to the document length file
+	 * @return the table of all the documents in the file
+	 * @throws IOException
+	 */
+	public static DocumentTable load(String docLengthPath) throws IOException {
+		DocumentTable table = new DocumentTable();
+		List<Integer> lengths = new ArrayList<>();
+
+		try (BufferedReader buffer = new BufferedReader(new FileReader(docLengthPath))) {
+			String line;
+			while ((line = buffer.readLine()) != null) {
+				String[] parts = line.split(SEPARATOR);
+				int dl = Integer.parseInt(parts[1]);
+
+				table.docNumbers.put(parts[0], table.docIDs.size());
+				table.docIDs.add(parts[0]);
+				lengths.add(dl);
+				table.avdl += dl;
+			}
+		}
+
+		table.docLengths = new int[lengths.size()];
+		for (int i = 0; i < table.docLengths.length; i++) {
+			table.docLengths[i] = lengths.get(i);
+		}
+		table.avdl = (table.docLengths.length == 0 ? 0d : table.avdl / table.docLengths.length);
+
+		return table;
+	}
+
+	/**
+	 * The method to build a table from documents already read, numbered in the order they are given
+	 * @param docIDs is the ids of the documents
+	 * @param docLengths is the lengths of the documents, in the same order
+	 * @return the table of the given documents
+	 */
+	static DocumentTable of(String[] docIDs, int[] docLengths) {
+		DocumentTable table = new DocumentTable();
+
+		for (int i = 0; i < docIDs.length; i++) {
+			table.docNumbers.put(docIDs[i], i);
+			table.docIDs.add(docIDs[i]);
+			table.avdl += docLengths[i];
+		}
+		table.docLengths = docLengths;
+		table.avdl = (docLengths.length == 0 ? 0d : table.avdl / docLengths.length);
+
+		return table;
+	}
+
+	/**
+	 * @param docID is the id of a document, e.g. CACM-0001
+	 * @return the number of the document in this table, -1 if it is not in the corpus
+	 */
+	public int getDocNumber(String docID) {
+		Integer docNum = docNumbers.get(docID);
+		return (docNum == null ? -1 : docNum);
+	}
+
+	public String getDocID(int docNum) {
+		return docIDs.get(docNum);
+	}
+
+	public int getDocLength(int docNum) {
+		return docLengths[docNum];
+	}
+
+	public int getDocCount() {
+		return docLengths.length;
+	}
+
+	public double getAverageDocLength() {
+		return avdl;
+	}
+}
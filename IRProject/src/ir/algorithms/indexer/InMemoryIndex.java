@@ -0,0 +1,101 @@
+package ir.algorithms.indexer;
+
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The inverted index of the whole corpus held in memory: the decoded inverted list of every term, along with the
+ * table of all the documents. It is read once, so that a long running searcher pays no file access per query
+ * @author Surbhi Gupta
+ */
+public class InMemoryIndex implements SearchIndex {
+	private static final String TERM_SEPARATOR = " : ";
+	private static final Timer LOAD_TIME = Metrics.timer("index.load");
+
+	private final Map<String, PostingList> postings = new HashMap<>();
+	private final DocumentTable docTable;
+	private volatile TermDictionary dictionary;	// built on first use
+
+	private InMemoryIndex(DocumentTable docTable) {
+		this.docTable = docTable;
+	}
+
+	/**
+	 * The method to build an index from inverted lists already decoded
+	 * @param postings is the mapping of all the terms to their inverted lists, numbered like the given table
+	 * @param docTable is the table of all the documents of the index
+	 * @return the index held in memory
+	 */
+	static InMemoryIndex of(Map<String, PostingList> postings, DocumentTable docTable) {
+		InMemoryIndex index = new InMemoryIndex(docTable);
+		index.postings.putAll(postings);
+		return index;
+	}
+
+	/**
+	 * The method to read a printed inverted index and its document length file into memory
+	 * @param indexPath is the relative path to the inverted index file
+	 * @param docLengthPath is the relative path to the document length file
+	 * @return the index held in memory
+	 * @throws IOException
+	 */
+	public static InMemoryIndex load(String indexPath, String docLengthPath) throws IOException {
+		long start = LOAD_TIME.start();
+		InMemoryIndex index = new InMemoryIndex(DocumentTable.load(docLengthPath));
+
+		try (BufferedReader buffer = new BufferedReader(new FileReader(indexPath))) {
+			String line;
+			while ((line = buffer.readLine()) != null) {
+				int sep = line.indexOf(TERM_SEPARATOR);
+				if (sep < 0) continue;
+
+				String postingsText = line.substring(sep + TERM_SEPARATOR.length()).trim();
+				index.postings.put(line.substring(0, sep), PostingList.decode(postingsText, index.docTable));
+			}
+		}
+		LOAD_TIME.stop(start);
+		Metrics.gauge("index.memory.terms", index::getTermCount);
+
+		return index;
+	}
+
+	@Override
+	public PostingList getPostings(String term) {
+		return postings.get(term);
+	}
+
+	@Override
+	public DocumentTable getDocTable() {
+		return docTable;
+	}
+
+	@Override
+	public int getTermCount() {
+		return postings.size();
+	}
+
+	@Override
+	public Collection<String> getTerms() {
+		return Collections.unmodifiableSet(postings.keySet());
+	}
+
+	@Override
+	public TermDictionary getDictionary() {
+		// two threads building it at once build the same dictionary
+		if (dictionary == null) dictionary = TermDictionary.of(this);
+		return dictionary;
+	}
+
+	@Override
+	public TermStatistics getTermStatistics() {
+		return TermStatistics.of(postings, docTable);
+	}
+}
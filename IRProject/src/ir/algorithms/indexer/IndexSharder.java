@@ -0,0 +1,72 @@
+package ir.algorithms.indexer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The partitioner of an index into shards, each one saved as an index snapshot a shard worker can open. Documents
+ * are dealt round robin: shard s of n gets the documents numbered s, s + n, s + 2n... and numbers them 0, 1, 2...
+ * so the number of a document in the whole index is its number in its shard times n, plus s. The order of the
+ * documents of a shard is the same in the shard and in the whole index, so that ties are broken the same way
+ * @author Surbhi Gupta
+ */
+public class IndexSharder {
+	private static final String SHARD_FILE_PREFIX = "shard-";
+	private static final String SHARD_FILE_TYPE = ".snapshot";
+
+	/**
+	 * The method to partition a printed inverted index into shards
+	 * @param indexPath is the relative path to the inverted index file
+	 * @param docLengthPath is the relative path to the document length file
+	 * @param shardCount is the number of shards
+	 * @param shardDir is the relative path to the directory the shard snapshots are written in
+	 * @throws IOException
+	 */
+	public static void shard(String indexPath, String docLengthPath, int shardCount, String shardDir)
+			throws IOException {
+		InMemoryIndex index = InMemoryIndex.load(indexPath, docLengthPath);
+		DocumentTable docTable = index.getDocTable();
+		new File(shardDir).mkdirs();
+
+		for (int s = 0; s < shardCount; s++) {
+			int docCount = (docTable.getDocCount() - s + shardCount - 1) / shardCount;
+			String[] docIDs = new String[docCount];
+			int[] docLengths = new int[docCount];
+			for (int local = 0; local < docCount; local++) {
+				docIDs[local] = docTable.getDocID(local * shardCount + s);
+				docLengths[local] = docTable.getDocLength(local * shardCount + s);
+			}
+
+			Map<String, PostingList> postings = new HashMap<>();
+			for (String term : index.getTerms()) {
+				PostingList pl = index.getPostings(term);
+				int[] docs = new int[pl.df()];
+				int[] tfs = new int[pl.df()];
+				int size = 0;
+				for (int j = 0; j < pl.df(); j++) {
+					if (pl.docs[j] % shardCount != s) continue;
+					docs[size] = pl.docs[j] / shardCount;
+					tfs[size++] = pl.tfs[j];
+				}
+				if (size > 0)
+					postings.put(term, new PostingList(Arrays.copyOf(docs, size), Arrays.copyOf(tfs, size)));
+			}
+
+			IndexSnapshot.write(InMemoryIndex.of(postings, DocumentTable.of(docIDs, docLengths)),
+					getShardPath(shardDir, s));
+			System.out.println("Shard " + s + ": " + docCount + " documents, " + postings.size() + " terms");
+		}
+	}
+
+	/**
+	 * @param shardDir is the relative path to the directory of the shard snapshots
+	 * @param shard is the number of a shard
+	 * @return the relative path to the snapshot of the shard
+	 */
+	public static String getShardPath(String shardDir, int shard) {
+		return new File(shardDir, SHARD_FILE_PREFIX + shard + SHARD_FILE_TYPE).getPath();
+	}
+}
@@ -0,0 +1,307 @@
+package ir.algorithms.indexer;
+
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The index saved in a single binary file that a searcher can open in milliseconds: the file is memory mapped and
+ * only the document table is read when it is opened. The dictionary is a front coded TermDictionary read in place from
+ * the mapping, so the terms cost no heap, and the inverted list of a term is decoded the first time it is asked for.
+ * The file is laid out as
+ * header: magic, version, docCount, termCount, hotTermCount and the offsets of the sections below
+ * documents: the id and the length of every document, in the order of their numbers
+ * dictionary: the df, maxTf and postings offset of every term, sorted by the UTF-8 bytes of the terms
+ * postings: the document numbers then the frequencies of every term, in the order of the dictionary
+ * hot terms: the dictionary numbers of the terms with the longest inverted lists, to warm up first
+ * @author Surbhi Gupta
+ */
+public class IndexSnapshot implements SearchIndex {
+	private static final int MAGIC = 0x49525831;		// IRX1
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 52;
+	private static final int CHUNK_SIZE = 64;			// terms per chunk of the decoded inverted lists
+	private static final int HOT_TERM_COUNT = 256;
+	private static final int MAX_DOC_ID_BYTES = 0xFFFF;	// the length of an id is written as an unsigned short
+
+	private static final Timer OPEN_TIME = Metrics.timer("snapshot.open");
+	private static final Counter POSTINGS_LOADED = Metrics.counter("snapshot.postings.loaded");
+
+	private final MappedByteBuffer buffer;
+	private final DocumentTable docTable;
+	private final int termCount;
+	private final TermDictionary dictionary;
+	private final long postingsOffset;
+	private final long hotTermsOffset;
+	private final int hotTermCount;
+	// the decoded inverted lists by term number, a chunk being allocated when one of its terms is first asked for
+	private final AtomicReferenceArray<AtomicReferenceArray<PostingList>> postings;
+
+	private IndexSnapshot(MappedByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			throw new IOException("Not an index snapshot of version " + VERSION);
+
+		int docCount = buffer.getInt(8);
+		termCount = buffer.getInt(12);
+		hotTermCount = buffer.getInt(16);
+		long docOffset = buffer.getLong(20);
+		long dictOffset = buffer.getLong(28);
+		postingsOffset = buffer.getLong(36);
+		hotTermsOffset = buffer.getLong(44);
+
+		String[] docIDs = new String[docCount];
+		int[] docLengths = new int[docCount];
+		int pos = (int) docOffset;
+		for (int i = 0; i < docCount; i++) {
+			docIDs[i] = readString(pos);
+			pos += 2 + (buffer.getShort(pos) & 0xFFFF);
+			docLengths[i] = buffer.getInt(pos);
+			pos += 4;
+		}
+		docTable = DocumentTable.of(docIDs, docLengths);
+
+		dictionary = TermDictionary.wrap(buffer, (int) dictOffset);
+		postings = new AtomicReferenceArray<>((termCount + CHUNK_SIZE - 1) / CHUNK_SIZE);
+	}
+
+	/**
+	 * The method to open a snapshot by mapping its file, reading only the document table
+	 * @param path is the relative path to the snapshot file
+	 * @return the opened snapshot
+	 * @throws IOException if the file cannot be read, is not a snapshot or is larger than 2GB
+	 */
+	public static IndexSnapshot open(String path) throws IOException {
+		long start = OPEN_TIME.start();
+
+		try (RandomAccessFile file = new RandomAccessFile(path, "r"); FileChannel channel = file.getChannel()) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Index snapshots larger than 2GB are not supported: " + path);
+
+			// the mapping stays valid after the channel is closed
+			IndexSnapshot snapshot = new IndexSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			OPEN_TIME.stop(start);
+			return snapshot;
+		}
+	}
+
+	/**
+	 * The method to save an index held in memory as a snapshot
+	 * @param index is the index to be saved
+	 * @param path is the relative path to the snapshot file, replaced if it exists
+	 * @throws IOException if the file cannot be written or a document ID is longer than 65535 bytes
+	 */
+	public static void write(InMemoryIndex index, String path) throws IOException {
+		List<String> terms = TermDictionary.sort(index.getTerms());
+		DocumentTable docTable = index.getDocTable();
+
+		byte[][] docIDs = new byte[docTable.getDocCount()][];
+		long docSize = 0;
+		for (int i = 0; i < docIDs.length; i++) {
+			docIDs[i] = docTable.getDocID(i).getBytes(StandardCharsets.UTF_8);
+			if (docIDs[i].length > MAX_DOC_ID_BYTES)
+				throw new IOException("Document ID longer than " + MAX_DOC_ID_BYTES + " bytes: " + docTable.getDocID(i));
+			docSize += 2 + docIDs[i].length + 4;
+		}
+
+		TermDictionary.Builder dictionary = new TermDictionary.Builder();
+		long postingsSize = 0;
+		for (String term : terms) {
+			PostingList pl = index.getPostings(term);
+			int maxTf = 0;
+			for (int tf : pl.tfs) maxTf = Math.max(maxTf, tf);
+
+			dictionary.add(term, pl.df(), maxTf, postingsSize);
+			postingsSize += 8L * pl.df();
+		}
+		byte[] dictBytes = dictionary.toByteArray();
+
+		// the terms with the longest inverted lists cost the most page faults on a cold start
+		Integer[] byDf = new Integer[terms.size()];
+		for (int t = 0; t < byDf.length; t++) byDf[t] = t;
+		Arrays.sort(byDf, (t1, t2) -> Integer.compare(index.getPostings(terms.get(t2)).df(),
+				index.getPostings(terms.get(t1)).df()));
+		int hotTermCount = Math.min(HOT_TERM_COUNT, byDf.length);
+
+		long docOffset = HEADER_SIZE;
+		long dictOffset = docOffset + docSize;
+		long postingsOffset = dictOffset + dictBytes.length;
+		long hotTermsOffset = postingsOffset + postingsSize;
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(docIDs.length);
+			out.writeInt(terms.size());
+			out.writeInt(hotTermCount);
+			out.writeLong(docOffset);
+			out.writeLong(dictOffset);
+			out.writeLong(postingsOffset);
+			out.writeLong(hotTermsOffset);
+
+			for (int i = 0; i < docIDs.length; i++) {
+				writeBytes(out, docIDs[i]);
+				out.writeInt(docTable.getDocLength(i));
+			}
+
+			out.write(dictBytes);
+
+			for (String term : terms) {
+				PostingList pl = index.getPostings(term);
+				for (int doc : pl.docs) out.writeInt(doc);
+				for (int tf : pl.tfs) out.writeInt(tf);
+			}
+
+			for (int i = 0; i < hotTermCount; i++) {
+				out.writeInt(byDf[i]);
+			}
+		}
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	private String readString(int pos) {
+		byte[] bytes = new byte[buffer.getShort(pos) & 0xFFFF];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(pos + 2 + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public PostingList getPostings(String term) {
+		TermDictionary.Cursor cursor = dictionary.find(term);
+		return (cursor == null ? null : getPostings(cursor));
+	}
+
+	/**
+	 * The method to return the inverted list of a term, decoding it on first use
+	 * @param cursor is the cursor of the dictionary on the term
+	 * @return the inverted list of the term
+	 */
+	private PostingList getPostings(TermDictionary.Cursor cursor) {
+		int t = cursor.ordinal();
+		AtomicReferenceArray<PostingList> chunk = postings.get(t / CHUNK_SIZE);
+		if (chunk == null) {
+			postings.compareAndSet(t / CHUNK_SIZE, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+			chunk = postings.get(t / CHUNK_SIZE);
+		}
+		PostingList pl = chunk.get(t % CHUNK_SIZE);
+		if (pl != null) return pl;
+
+		int df = cursor.df();
+		int[] docs = new int[df];
+		int[] tfs = new int[df];
+		int pos = (int) (postingsOffset + cursor.postingOffset());
+		for (int j = 0; j < df; j++) {
+			docs[j] = buffer.getInt(pos + 4 * j);
+			tfs[j] = buffer.getInt(pos + 4 * (df + j));
+		}
+
+		// two threads decoding the same list at once keep the first list stored
+		pl = new PostingList(docs, tfs);
+		if (chunk.compareAndSet(t % CHUNK_SIZE, null, pl)) {
+			POSTINGS_LOADED.inc();
+			return pl;
+		}
+		return chunk.get(t % CHUNK_SIZE);
+	}
+
+	/**
+	 * The method to decode the inverted lists of the terms with the longest ones ahead of the first queries, faulting
+	 * their pages in. It can be run on a background thread while the first queries are served
+	 * @return the number of postings decoded
+	 */
+	public long warmUp() {
+		long postings = 0;
+
+		for (int h = 0; h < hotTermCount; h++) {
+			int t = buffer.getInt((int) hotTermsOffset + 4 * h);
+			postings += getPostings(dictionary.cursor(t)).df();
+		}
+
+		return postings;
+	}
+
+	@Override
+	public TermDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * @param t is the number of a term in the dictionary, from 0 to getTermCount() - 1
+	 * @return the term, the terms being numbered in increasing order
+	 */
+	public String getTerm(int t) {
+		return dictionary.cursor(t).term();
+	}
+
+	@Override
+	public Collection<String> getTerms() {
+		return new AbstractList<String>() {
+			@Override
+			public String get(int t) {
+				return getTerm(t);
+			}
+
+			@Override
+			public int size() {
+				return termCount;
+			}
+
+			@Override
+			public Iterator<String> iterator() {
+				TermDictionary.Cursor cursor = dictionary.first();
+				return new Iterator<String>() {
+					@Override
+					public boolean hasNext() {
+						return cursor.ordinal() + 1 < termCount;
+					}
+
+					@Override
+					public String next() {
+						if (!cursor.next()) throw new NoSuchElementException();
+						return cursor.term();
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public DocumentTable getDocTable() {
+		return docTable;
+	}
+
+	@Override
+	public int getTermCount() {
+		return termCount;
+	}
+
+	@Override
+	public TermStatistics getTermStatistics() {
+		return TermStatistics.of(term -> {
+			TermDictionary.Cursor cursor = dictionary.find(term);
+			return (cursor == null ? null : new int[]{cursor.df(), cursor.maxTf()});
+		}, docTable.getDocCount(), docTable.getAverageDocLength());
+	}
+}
@@ -1,6 +1,10 @@
 package ir.algorithms.indexer;
 
 import ir.commons.Utils;
+import ir.commons.analysis.AnalysisChain;
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -12,38 +16,80 @@ import java.util.Map;
 
 public class InvertedIndex {
 	private static final String INDEX_NAME_SUFFIX = "gram.txt";
+	private static final String SPELLING_NAME_SUFFIX = "gram.spelling";
 	private static final String CORPUS_FILE_TYPE = ".txt";
 	private static final String CACM_FILE_PREFIX = "CACM";
 	private static final int NGRAM = 1;			// 1 for unigram
 	
 	private static Map<String, HashMap<String, Integer>> invIndex = new HashMap<>();
 
+	private static final Counter DOCS_INDEXED = Metrics.counter("index.docs.indexed");
+	private static final Counter TOKENS_INDEXED = Metrics.counter("index.tokens.indexed");
+	private static final Timer DOC_ADD_TIME = Metrics.timer("index.doc.add");
+	private static final Timer PRINT_TIME = Metrics.timer("index.print");
+	private static final Timer SPELLING_TIME = Metrics.timer("index.spelling.write");
+
+	static {
+		Metrics.gauge("index.terms", () -> invIndex.size());
+	}
+
 	/**
-	 * The method to create and write inverted index for the given corpus at the given relative path
+	 * The method to create and write inverted index for the given corpus at the given relative path, and the
+	 * spelling index of its vocabulary next to it
 	 * @param corpusDirPath is the relative directory path of the corpus
 	 * @param invIndexPrefix is the relative path and prefix of the inverted index to be created
 	 * @throws IOException
      */
 	public static void invertedIndexGenerator(String corpusDirPath, String invIndexPrefix) throws IOException {
+		invertedIndexGenerator(corpusDirPath, invIndexPrefix, AnalysisChain.STANDARD);
+	}
+
+	/**
+	 * The method to create and write inverted index for the given corpus at the given relative path, the words of
+	 * the documents turned into terms by an analysis chain, and the spelling index of its vocabulary next to it
+	 * @param corpusDirPath is the relative directory path of the corpus
+	 * @param invIndexPrefix is the relative path and prefix of the inverted index to be created
+	 * @param analysis is the analysis chain the queries run against the index will have to be analysed by too
+	 * @throws IOException
+	 */
+	public static void invertedIndexGenerator(String corpusDirPath, String invIndexPrefix, AnalysisChain analysis)
+			throws IOException {
 		List<File> fileList = Utils.readFilesFromDirectory(corpusDirPath, CACM_FILE_PREFIX, "");
-		
+		invIndex.clear();
+
 		System.out.println("Processing files for indexing...");
+		long start = System.nanoTime();
 		for (File file : fileList) {
-			readFileAndAddToIndex(file, NGRAM);
+			long docStart = DOC_ADD_TIME.start();
+			readFileAndAddToIndex(file, NGRAM, analysis);
+			DOC_ADD_TIME.stop(docStart);
+			DOCS_INDEXED.inc();
 		}
+		double seconds = (System.nanoTime() - start) / 1e9;
 		
 		System.out.println("Printing inverted index...");
+		long printStart = PRINT_TIME.start();
 		printIndex(invIndexPrefix + NGRAM + INDEX_NAME_SUFFIX);
+		PRINT_TIME.stop(printStart);
+
+		System.out.println("Writing spelling index...");
+		long spellingStart = SPELLING_TIME.start();
+		Map<String, Integer> dfs = new HashMap<>();
+		for (Map.Entry<String, HashMap<String, Integer>> e : invIndex.entrySet())
+			dfs.put(e.getKey(), e.getValue().size());
+		SpellingIndex.write(dfs, invIndexPrefix + NGRAM + SPELLING_NAME_SUFFIX);
+		SPELLING_TIME.stop(spellingStart);
 		
-		System.out.println("Index generated");
+		System.out.println("Index generated (" + (int) (fileList.size() / seconds) + " docs/s)");
 	}
 
 	/**
 	 * The method to create n-grams from the consecutive words in the given file and store in the inverted index
 	 * @param file is the file to be read for n-gramming creation
 	 * @param nGram is the n-gramming factor, e.g: 2 for bigrams, 3 for trigrams
+	 * @param analysis is the analysis chain turning the words of the file into terms
      */
-	private static void readFileAndAddToIndex(File file, int nGram) {
+	private static void readFileAndAddToIndex(File file, int nGram, AnalysisChain analysis) {
 		String fileContent = "";
 
 		try {
@@ -54,7 +100,8 @@ public class InvertedIndex {
 		}
     	
 		String fName = file.getName().replaceAll(CORPUS_FILE_TYPE, "");
-		String[] nGramsList = getNGram(fileContent, nGram);
+		String[] nGramsList = getNGram(fileContent, nGram, analysis);
+		TOKENS_INDEXED.add(nGramsList.length);
 		
 		for (String word : nGramsList) {
 			
@@ -81,10 +128,12 @@ public class InvertedIndex {
 	 * The helper method to create n-grams from the consecutive words in the given file
 	 * @param fileContent is the text content file to be read for n-gramming
 	 * @param nGram is the n-gramming factor, e.g: 2 for bigrams, 3 for trigrams
+	 * @param analysis is the analysis chain turning the words of the file into terms
      * @return the array of n-grams created from the text content of the file
      */
-	private static String[] getNGram(String fileContent, int nGram) {
+	private static String[] getNGram(String fileContent, int nGram, AnalysisChain analysis) {
 		String[] wList = fileContent.split("\\s+");
+		for (int i = 0; i < wList.length; i++) wList[i] = analysis.filter(wList[i]);
 		String[] nGramList = new String[wList.length - nGram + 1];
 		
 		for (int i = 0; i < wList.length - nGram + 1; i++) {
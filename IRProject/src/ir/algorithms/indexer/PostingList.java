@@ -0,0 +1,100 @@
+package ir.algorithms.indexer;
+
+import java.util.Arrays;
+
+/**
+ * The decoded inverted list of a single term: the numbers of the documents it appears in, in increasing order, and
+ * its frequency in each of them
+ * @author Surbhi Gupta
+ */
+public class PostingList {
+	private static final String POSTING_SEPARATOR = ", ";
+
+	public final int[] docs;
+	public final int[] tfs;
+
+	public PostingList(int[] docs, int[] tfs) {
+		this.docs = docs;
+		this.tfs = tfs;
+	}
+
+	/**
+	 * The method to decode the postings of a term as printed by InvertedIndex, e.g. [CACM-0001:2], [CACM-0042:1]
+	 * Postings of documents missing from the document table are dropped
+	 * @param postings is the printed postings of the term, without the term itself
+	 * @param docTable is the table used to number the documents
+	 * @return the decoded inverted list, sorted by document number
+	 */
+	public static PostingList decode(String postings, DocumentTable docTable) {
+		String[] docTF = postings.split(POSTING_SEPARATOR);
+		long[] packed = new long[docTF.length];
+		int size = 0;
+
+		for (String docTFPart : docTF) {
+			int colon = docTFPart.lastIndexOf(':');
+			int docNum = docTable.getDocNumber(docTFPart.substring(docTFPart.indexOf('[') + 1, colon));
+			if (docNum < 0) continue;
+
+			int tf = Integer.parseInt(docTFPart.substring(colon + 1, docTFPart.indexOf(']')));
+			packed[size++] = ((long) docNum << 32) | tf;
+		}
+
+		// postings are printed in hash order, sorting the packed pairs orders them by document number
+		Arrays.sort(packed, 0, size);
+		int[] docs = new int[size];
+		int[] tfs = new int[size];
+		for (int i = 0; i < size; i++) {
+			docs[i] = (int) (packed[i] >>> 32);
+			tfs[i] = (int) packed[i];
+		}
+
+		return new PostingList(docs, tfs);
+	}
+
+	public int df() {
+		return docs.length;
+	}
+
+	/**
+	 * The method to find the first posting at or after a position whose document is at least the target one
+	 * @param from is the position the search starts from
+	 * @param target is the document number looked for
+	 * @return the position of the first document at least the target one, df() if there is none
+	 */
+	public int advance(int from, int target) {
+		return advance(docs, docs.length, from, target);
+	}
+
+	/**
+	 * The method to find the first document at or after a position that is at least the target one in a sorted
+	 * array, galloping ahead from the position 1, 2, 4... documents at a time, then binary searching the last gap.
+	 * Reaching a document d positions ahead takes O(log d) probes, so that walking a short list against a long one
+	 * skips over most of the long one, as skip pointers would
+	 * @param docs is the sorted document numbers
+	 * @param size is the number of document numbers in the array
+	 * @param from is the position the search starts from
+	 * @param target is the document number looked for
+	 * @return the position of the first document at least the target one, size if there is none
+	 */
+	public static int advance(int[] docs, int size, int from, int target) {
+		if (from >= size || docs[from] >= target) return from;
+
+		// docs[low] is below the target, find a high bound that is not
+		int low = from;
+		int step = 1;
+		int high = from + 1;
+		while (high < size && docs[high] < target) {
+			low = high;
+			step <<= 1;
+			high = from + step;
+		}
+		if (high > size) high = size;
+
+		// the answer is in (low, high]
+		while (low + 1 < high) {
+			int mid = (low + high) >>> 1;
+			if (docs[mid] < target) low = mid; else high = mid;
+		}
+		return high;
+	}
+}
@@ -0,0 +1,35 @@
+package ir.algorithms.indexer;
+
+import java.util.Collection;
+
+/**
+ * an interface for an index a Searcher can run queries against, whether it is decoded in memory up front or read
+ * from a snapshot as its terms are looked up
+ * @author Surbhi Gupta
+ */
+public interface SearchIndex {
+	/**
+	 * @param term is the term to look up
+	 * @return the inverted list of the term, NULL if it is not in the index
+	 */
+	PostingList getPostings(String term);
+
+	DocumentTable getDocTable();
+
+	int getTermCount();
+
+	/**
+	 * @return all the terms of this index, as a view that must not be modified
+	 */
+	Collection<String> getTerms();
+
+	/**
+	 * @return the terms of this index sorted in a front coded dictionary, for ordered and prefix scans
+	 */
+	TermDictionary getDictionary();
+
+	/**
+	 * @return the statistics of all the terms of this index, for the selection of expansion terms
+	 */
+	TermStatistics getTermStatistics();
+}
@@ -0,0 +1,292 @@
+package ir.algorithms.indexer;
+
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The symmetric delete index of the vocabulary, for spelling corrections: every string obtained by deleting up to
+ * maxEdits characters from the prefix of a term is mapped to the terms it was obtained from. The corrections of a
+ * misspelled term are then among the terms of the deletes of its own prefix, found with a few hash lookups whatever
+ * the size of the vocabulary. It is saved in a single binary file that is memory mapped when opened, laid out as
+ * header: magic, version, maxEdits, prefixLength, slotCount and the offsets of the sections below
+ * dictionary: the TermDictionary of the vocabulary with the df of every term
+ * lengths: the number of characters of every term, 255 at most, to drop the candidates of the wrong length without
+ * decoding them
+ * slots: the open addressing hash table of the deletes, the offset of the entry of a delete plus 1, 0 if empty
+ * entries: the length and bytes of a delete, then the number of its terms and their increasing numbers as
+ * differences, all the numbers as variable length integers
+ * @author Surbhi Gupta
+ */
+public class SpellingIndex {
+	private static final int MAGIC = 0x49525331;		// IRS1
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 52;
+	public static final int DEFAULT_MAX_EDITS = 2;
+	public static final int DEFAULT_PREFIX_LENGTH = 7;
+
+	private static final Timer OPEN_TIME = Metrics.timer("spelling.open");
+
+	private final MappedByteBuffer buffer;
+	private final int maxEdits;
+	private final int prefixLength;
+	private final int slotCount;
+	private final TermDictionary dictionary;
+	private final long lengthsOffset;
+	private final long slotsOffset;
+	private final long entriesOffset;
+
+	private SpellingIndex(MappedByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			throw new IOException("Not a spelling index of version " + VERSION);
+
+		maxEdits = buffer.getInt(8);
+		prefixLength = buffer.getInt(12);
+		slotCount = buffer.getInt(16);
+		dictionary = TermDictionary.wrap(buffer, (int) buffer.getLong(20));
+		lengthsOffset = buffer.getLong(28);
+		slotsOffset = buffer.getLong(36);
+		entriesOffset = buffer.getLong(44);
+	}
+
+	/**
+	 * The method to open a spelling index by mapping its file
+	 * @param path is the relative path to the spelling index file
+	 * @return the opened index
+	 * @throws IOException if the file cannot be read, is not a spelling index or is larger than 2GB
+	 */
+	public static SpellingIndex open(String path) throws IOException {
+		long start = OPEN_TIME.start();
+
+		try (RandomAccessFile file = new RandomAccessFile(path, "r"); FileChannel channel = file.getChannel()) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Spelling indexes larger than 2GB are not supported: " + path);
+
+			SpellingIndex index = new SpellingIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			OPEN_TIME.stop(start);
+			return index;
+		}
+	}
+
+	/**
+	 * The method to save the spelling index of a vocabulary with the default number of edits and prefix length
+	 * @param dfs is the number of documents every term of the vocabulary occurs in
+	 * @param path is the relative path to the spelling index file, replaced if it exists
+	 * @throws IOException
+	 */
+	public static void write(Map<String, Integer> dfs, String path) throws IOException {
+		write(dfs, path, DEFAULT_MAX_EDITS, DEFAULT_PREFIX_LENGTH);
+	}
+
+	/**
+	 * The method to save the spelling index of a vocabulary
+	 * @param dfs is the number of documents every term of the vocabulary occurs in
+	 * @param path is the relative path to the spelling index file, replaced if it exists
+	 * @param maxEdits is the highest number of characters deleted from a term
+	 * @param prefixLength is the number of characters of a term the deletes are made from, the rest is ignored
+	 * @throws IOException
+	 */
+	public static void write(Map<String, Integer> dfs, String path, int maxEdits, int prefixLength) throws IOException {
+		List<String> terms = TermDictionary.sort(dfs.keySet());
+		TermDictionary.Builder dictionary = new TermDictionary.Builder();
+		Map<String, List<Integer>> deletes = new HashMap<>();
+		byte[] lengths = new byte[terms.size()];
+
+		for (int t = 0; t < terms.size(); t++) {
+			String term = terms.get(t);
+			dictionary.add(term, dfs.get(term), 0, 0);
+			lengths[t] = (byte) Math.min(term.length(), 255);
+			for (String delete : deletes(term, maxEdits, prefixLength)) {
+				deletes.computeIfAbsent(delete, d -> new ArrayList<>()).add(t);
+			}
+		}
+		byte[] dictBytes = dictionary.toByteArray();
+
+		// the table is at most half full, so that a lookup probes about two slots
+		int slotCount = Integer.highestOneBit(Math.max(1, deletes.size()) * 2 - 1) << 1;
+		int[] slots = new int[slotCount];
+		Output entries = new Output();
+		for (Map.Entry<String, List<Integer>> e : deletes.entrySet()) {
+			byte[] key = e.getKey().getBytes(StandardCharsets.UTF_8);
+			int slot = hash(key, key.length) & (slotCount - 1);
+			while (slots[slot] != 0) slot = (slot + 1) & (slotCount - 1);
+			slots[slot] = entries.size + 1;
+
+			entries.writeVarInt(key.length);
+			entries.write(key);
+			entries.writeVarInt(e.getValue().size());
+			int previous = 0;
+			for (int t : e.getValue()) {
+				entries.writeVarInt(t - previous);
+				previous = t;
+			}
+		}
+
+		long dictOffset = HEADER_SIZE;
+		long lengthsOffset = dictOffset + dictBytes.length;
+		long slotsOffset = lengthsOffset + lengths.length;
+		long entriesOffset = slotsOffset + 4L * slotCount;
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(maxEdits);
+			out.writeInt(prefixLength);
+			out.writeInt(slotCount);
+			out.writeLong(dictOffset);
+			out.writeLong(lengthsOffset);
+			out.writeLong(slotsOffset);
+			out.writeLong(entriesOffset);
+			out.write(dictBytes);
+			out.write(lengths);
+			for (int slot : slots) out.writeInt(slot);
+			out.write(entries.bytes, 0, entries.size);
+		}
+	}
+
+	/**
+	 * a private class to write the entries in a growing array
+	 */
+	private static class Output {
+		byte[] bytes = new byte[1024];
+		int size;
+
+		void write(byte[] b) {
+			ensureCapacity(b.length);
+			System.arraycopy(b, 0, bytes, size, b.length);
+			size += b.length;
+		}
+
+		void writeVarInt(int v) {
+			ensureCapacity(5);
+			while ((v & ~0x7F) != 0) {
+				bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			bytes[size++] = (byte) v;
+		}
+
+		private void ensureCapacity(int extra) {
+			if (size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + extra));
+		}
+	}
+
+	/**
+	 * The method to generate the strings obtained by deleting up to the given number of characters from the prefix
+	 * of a word, the prefix itself included
+	 * @param word is the word
+	 * @param maxEdits is the highest number of characters deleted
+	 * @param prefixLength is the number of characters of the word the deletes are made from
+	 * @return the distinct deletes
+	 */
+	public static Set<String> deletes(String word, int maxEdits, int prefixLength) {
+		Set<String> deletes = new HashSet<>();
+		String prefix = (word.length() > prefixLength ? word.substring(0, prefixLength) : word);
+		deletes.add(prefix);
+
+		List<String> level = Arrays.asList(prefix);
+		for (int e = 0; e < maxEdits; e++) {
+			List<String> next = new ArrayList<>();
+			for (String s : level) {
+				for (int i = 0; i < s.length(); i++) {
+					String delete = s.substring(0, i) + s.substring(i + 1);
+					if (deletes.add(delete)) next.add(delete);
+				}
+			}
+			level = next;
+		}
+
+		return deletes;
+	}
+
+	private static int hash(byte[] key, int length) {
+		int h = 0x811C9DC5;		// FNV-1a
+		for (int i = 0; i < length; i++) {
+			h ^= key[i] & 0xFF;
+			h *= 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * The method to look up the terms a delete was obtained from
+	 * @param delete is the delete
+	 * @return the increasing numbers of the terms in the dictionary, empty if no term has the delete
+	 */
+	public int[] getTerms(String delete) {
+		byte[] key = delete.getBytes(StandardCharsets.UTF_8);
+
+		for (int slot = hash(key, key.length) & (slotCount - 1); ; slot = (slot + 1) & (slotCount - 1)) {
+			int entry = buffer.getInt((int) slotsOffset + 4 * slot);
+			if (entry == 0) return new int[0];
+
+			int[] pos = {(int) entriesOffset + entry - 1};
+			int length = readVarInt(pos);
+			if (length != key.length || !equals(pos[0], key)) continue;
+			pos[0] += length;
+
+			int[] terms = new int[readVarInt(pos)];
+			int t = 0;
+			for (int i = 0; i < terms.length; i++) {
+				t += readVarInt(pos);
+				terms[i] = t;
+			}
+			return terms;
+		}
+	}
+
+	private boolean equals(int pos, byte[] key) {
+		for (int i = 0; i < key.length; i++) {
+			if (buffer.get(pos + i) != key[i]) return false;
+		}
+		return true;
+	}
+
+	private int readVarInt(int[] pos) {
+		int v = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = buffer.get(pos[0]++);
+			v |= (b & 0x7F) << shift;
+			if (b >= 0) return v;
+		}
+	}
+
+	/**
+	 * @param term is the number of a term in the dictionary
+	 * @return the number of characters of the term, 255 if it has more
+	 */
+	public int getLength(int term) {
+		return buffer.get((int) lengthsOffset + term) & 0xFF;
+	}
+
+	/**
+	 * @return the dictionary of the vocabulary, whose numbers getTerms returns
+	 */
+	public TermDictionary getDictionary() {
+		return dictionary;
+	}
+
+	public int getMaxEdits() {
+		return maxEdits;
+	}
+
+	public int getPrefixLength() {
+		return prefixLength;
+	}
+}
@@ -0,0 +1,463 @@
+package ir.algorithms.indexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A sorted term dictionary front coded in blocks, mapping the UTF-8 bytes of every term to its df, maxTf and postings
+ * offset without keeping a single String: the first term of a block is stored whole and every following one as the
+ * length of the prefix it shares with the term before it plus the rest of its bytes, the numbers as variable length
+ * integers. The terms are numbered in increasing byte order, and a term is found by a binary search on the first
+ * terms of the blocks, then a scan of one block. The dictionary is laid out as
+ * header: termCount, blockSize, blockCount and the length in bytes of the whole dictionary
+ * block index: the offset of every block from the end of the block index
+ * blocks: prefix length, suffix length, suffix, df, maxTf and postings offset of every term, the postings offset of
+ * all but the first term of a block as the zigzag coded difference with the term before it
+ * It reads its bytes in place from a buffer, which can be a memory mapped file, and does not modify them
+ * @author Surbhi Gupta
+ */
+public class TermDictionary {
+	public static final int DEFAULT_BLOCK_SIZE = 16;	// terms per block
+	private static final int HEADER_SIZE = 16;
+
+	private final ByteBuffer buffer;
+	private final int base;
+	private final int termCount;
+	private final int blockSize;
+	private final int blockCount;
+	private final int length;
+	private final int blocksOffset;
+
+	private TermDictionary(ByteBuffer buffer, int base) {
+		this.buffer = buffer;
+		this.base = base;
+		termCount = buffer.getInt(base);
+		blockSize = buffer.getInt(base + 4);
+		blockCount = buffer.getInt(base + 8);
+		length = buffer.getInt(base + 12);
+		blocksOffset = base + HEADER_SIZE + 4 * blockCount;
+	}
+
+	/**
+	 * The method to read a dictionary in place from the bytes written by a builder
+	 * @param buffer is the buffer holding the dictionary
+	 * @param offset is the position of the dictionary in the buffer
+	 * @return the dictionary, reading the buffer with absolute gets only
+	 */
+	public static TermDictionary wrap(ByteBuffer buffer, int offset) {
+		return new TermDictionary(buffer, offset);
+	}
+
+	/**
+	 * The method to build the dictionary of the terms of an index, with their offsets counted in postings
+	 * @param index is the index whose terms are sorted
+	 * @return the dictionary, on the heap
+	 */
+	public static TermDictionary of(SearchIndex index) {
+		Builder builder = new Builder();
+		long postingOffset = 0;
+
+		for (String term : sort(index.getTerms())) {
+			PostingList pl = index.getPostings(term);
+			int maxTf = 0;
+			for (int tf : pl.tfs) maxTf = Math.max(maxTf, tf);
+
+			builder.add(term, pl.df(), maxTf, postingOffset);
+			postingOffset += pl.df();
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * The method to sort terms in the order of the dictionary, that of their UTF-8 bytes, which is the order of their
+	 * code points
+	 * @param terms is the terms to be sorted
+	 * @return the sorted terms, as a new list
+	 */
+	public static List<String> sort(Collection<String> terms) {
+		byte[][] bytes = new byte[terms.size()][];
+		int n = 0;
+		for (String term : terms) bytes[n++] = term.getBytes(StandardCharsets.UTF_8);
+		Arrays.sort(bytes, (a, b) -> compare(a, a.length, b, b.length));
+
+		List<String> sorted = new ArrayList<>(bytes.length);
+		for (byte[] term : bytes) sorted.add(new String(term, StandardCharsets.UTF_8));
+		return sorted;
+	}
+
+	/**
+	 * A builder to which the terms are added in increasing byte order, along with their metadata
+	 */
+	public static class Builder {
+		private final int blockSize;
+		private byte[] bytes = new byte[1024];
+		private int size;
+		private int[] blockOffsets = new int[64];
+		private int termCount;
+		private byte[] last = new byte[0];
+		private long lastPostingOffset;
+
+		public Builder() {
+			this(DEFAULT_BLOCK_SIZE);
+		}
+
+		/**
+		 * @param blockSize is the number of terms per block, larger blocks are smaller but slower to look up
+		 */
+		public Builder(int blockSize) {
+			if (blockSize < 1) throw new IllegalArgumentException("The block size must be positive: " + blockSize);
+			this.blockSize = blockSize;
+		}
+
+		/**
+		 * The method to append a term to the dictionary
+		 * @param term is the term, greater than the one added before it in UTF-8 byte order
+		 * @param df is the number of documents the term occurs in
+		 * @param maxTf is the highest frequency of the term in a document
+		 * @param postingOffset is the position of the inverted list of the term, in any unit the caller likes
+		 * @return this builder
+		 */
+		public Builder add(String term, int df, int maxTf, long postingOffset) {
+			byte[] t = term.getBytes(StandardCharsets.UTF_8);
+			if (termCount > 0 && compare(last, last.length, t, t.length) >= 0)
+				throw new IllegalArgumentException("Terms must be added in increasing order: " + term);
+
+			int prefix = 0;
+			if (termCount % blockSize == 0) {
+				if (termCount / blockSize == blockOffsets.length)
+					blockOffsets = Arrays.copyOf(blockOffsets, blockOffsets.length * 2);
+				blockOffsets[termCount / blockSize] = size;
+			} else {
+				int max = Math.min(last.length, t.length);
+				while (prefix < max && last[prefix] == t[prefix]) prefix++;
+			}
+
+			writeVarLong(prefix);
+			writeVarLong(t.length - prefix);
+			ensureCapacity(t.length - prefix);
+			System.arraycopy(t, prefix, bytes, size, t.length - prefix);
+			size += t.length - prefix;
+			writeVarLong(df);
+			writeVarLong(maxTf);
+			if (termCount % blockSize == 0) {
+				writeVarLong(postingOffset);
+			} else {
+				long delta = postingOffset - lastPostingOffset;
+				writeVarLong((delta << 1) ^ (delta >> 63));
+			}
+
+			last = t;
+			lastPostingOffset = postingOffset;
+			termCount++;
+			return this;
+		}
+
+		private void ensureCapacity(int extra) {
+			if (size + extra > bytes.length)
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+		}
+
+		private void writeVarLong(long v) {
+			ensureCapacity(10);
+			while ((v & ~0x7FL) != 0) {
+				bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			bytes[size++] = (byte) v;
+		}
+
+		/**
+		 * @return the dictionary as bytes, to be saved in a file and read back with TermDictionary.wrap
+		 */
+		public byte[] toByteArray() {
+			int blockCount = (termCount + blockSize - 1) / blockSize;
+			int length = HEADER_SIZE + 4 * blockCount + size;
+			ByteBuffer out = ByteBuffer.allocate(length);
+			out.putInt(termCount).putInt(blockSize).putInt(blockCount).putInt(length);
+			for (int b = 0; b < blockCount; b++) out.putInt(blockOffsets[b]);
+			out.put(bytes, 0, size);
+			return out.array();
+		}
+
+		/**
+		 * @return the dictionary of the terms added so far, on the heap
+		 */
+		public TermDictionary build() {
+			return wrap(ByteBuffer.wrap(toByteArray()), 0);
+		}
+	}
+
+	/**
+	 * The method to compare two byte strings as unsigned bytes, the order of the code points for UTF-8 strings
+	 * @return a negative number, zero or a positive number as the first string is less, equal to or greater
+	 */
+	static int compare(byte[] a, int aLength, byte[] b, int bLength) {
+		int n = Math.min(aLength, bLength);
+		for (int i = 0; i < n; i++) {
+			int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (c != 0) return c;
+		}
+		return aLength - bLength;
+	}
+
+	/**
+	 * A cursor over the terms of the dictionary in increasing order. It decodes one entry per step, reusing its term
+	 * buffer, and is not to be shared between threads
+	 */
+	public class Cursor {
+		private int ordinal = -1;
+		private int pos;
+		private byte[] term = new byte[32];
+		private int termLength;
+		private int df;
+		private int maxTf;
+		private long postingOffset;
+
+		private Cursor(int block) {
+			ordinal = block * blockSize - 1;
+			pos = (block < blockCount ? blockOffset(block) : blocksOffset);
+		}
+
+		/**
+		 * The method to move to the next term
+		 * @return false if the cursor was on the last term, it is then exhausted
+		 */
+		public boolean next() {
+			if (ordinal + 1 >= termCount) {
+				ordinal = termCount;
+				return false;
+			}
+			ordinal++;
+
+			int prefix = (int) readVarLong();
+			int suffix = (int) readVarLong();
+			if (prefix + suffix > term.length) term = Arrays.copyOf(term, Math.max(term.length * 2, prefix + suffix));
+			for (int i = 0; i < suffix; i++) term[prefix + i] = buffer.get(pos + i);
+			pos += suffix;
+			termLength = prefix + suffix;
+			df = (int) readVarLong();
+			maxTf = (int) readVarLong();
+			long offset = readVarLong();
+			postingOffset = (ordinal % blockSize == 0 ? offset : postingOffset + ((offset >>> 1) ^ -(offset & 1)));
+			return true;
+		}
+
+		private long readVarLong() {
+			long v = 0;
+			for (int shift = 0; ; shift += 7) {
+				byte b = buffer.get(pos++);
+				v |= (long) (b & 0x7F) << shift;
+				if (b >= 0) return v;
+			}
+		}
+
+		/**
+		 * The method to move the cursor forward to the first term not less than the given one. The blocks after the
+		 * current one are searched by galloping, so that a seek to a nearby term reads few blocks
+		 * @param key is the UTF-8 bytes of the term to seek
+		 * @return false if all the terms are less than the given one, the cursor is then exhausted
+		 */
+		public boolean advance(byte[] key) {
+			if (ordinal >= termCount) return false;
+			if (ordinal >= 0 && compareTo(key) >= 0) return true;
+
+			int from = (ordinal < 0 ? 0 : ordinal / blockSize + 1);
+			if (from < blockCount && compareFirstTerm(from, key) <= 0) {
+				// the key is past the first term of block from: gallop to a block whose first term is greater
+				int step = 1;
+				int hi = from + step;
+				while (hi < blockCount && compareFirstTerm(hi, key) <= 0) {
+					from = hi;
+					step *= 2;
+					hi = from + step;
+				}
+				int block = findBlock(key, from, Math.min(hi, blockCount) - 1);
+				ordinal = block * blockSize - 1;
+				pos = blockOffset(block);
+			}
+
+			while (next()) {
+				if (compareTo(key) >= 0) return true;
+			}
+			return false;
+		}
+
+		/**
+		 * @return false once the cursor went past the last term
+		 */
+		public boolean isValid() {
+			return ordinal >= 0 && ordinal < termCount;
+		}
+
+		/**
+		 * @return the number of the current term, from 0 to size() - 1
+		 */
+		public int ordinal() {
+			return ordinal;
+		}
+
+		public String term() {
+			return new String(term, 0, termLength, StandardCharsets.UTF_8);
+		}
+
+		public int df() {
+			return df;
+		}
+
+		public int maxTf() {
+			return maxTf;
+		}
+
+		public long postingOffset() {
+			return postingOffset;
+		}
+
+		/**
+		 * @return the number of UTF-8 bytes of the current term
+		 */
+		public int length() {
+			return termLength;
+		}
+
+		/**
+		 * @param i is the position of a byte of the current term, from 0 to length() - 1
+		 * @return the byte of the UTF-8 bytes of the current term at the position
+		 */
+		public byte byteAt(int i) {
+			return term[i];
+		}
+
+		/**
+		 * @param key is the UTF-8 bytes of a term
+		 * @return a negative number, zero or a positive number as the current term is less, equal to or greater
+		 */
+		public int compareTo(byte[] key) {
+			return compare(term, termLength, key, key.length);
+		}
+
+		/**
+		 * @param prefix is the UTF-8 bytes of a prefix
+		 * @return true if the current term starts with the prefix
+		 */
+		public boolean startsWith(byte[] prefix) {
+			if (prefix.length > termLength) return false;
+			for (int i = 0; i < prefix.length; i++) {
+				if (term[i] != prefix[i]) return false;
+			}
+			return true;
+		}
+	}
+
+	private int blockOffset(int b) {
+		return blocksOffset + buffer.getInt(base + HEADER_SIZE + 4 * b);
+	}
+
+	/**
+	 * @return a negative number, zero or a positive number as the first term of the block is less, equal to or greater
+	 */
+	private int compareFirstTerm(int b, byte[] key) {
+		int pos = blockOffset(b) + 1;		// the prefix length of a first term is a single 0
+		int length = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte v = buffer.get(pos++);
+			length |= (v & 0x7F) << shift;
+			if (v >= 0) break;
+		}
+
+		int n = Math.min(length, key.length);
+		for (int i = 0; i < n; i++) {
+			int c = (buffer.get(pos + i) & 0xFF) - (key[i] & 0xFF);
+			if (c != 0) return c;
+		}
+		return length - key.length;
+	}
+
+	/**
+	 * The method to position a cursor on the first term not less than the given one, to start an ordered scan of a
+	 * range or of the terms with a prefix
+	 * @param term is the term to seek
+	 * @return the cursor, not valid if all the terms are less than the given one
+	 */
+	public Cursor seek(String term) {
+		return seek(term.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param key is the UTF-8 bytes of the term to seek
+	 * @return the cursor on the first term not less than the given one
+	 */
+	public Cursor seek(byte[] key) {
+		Cursor cursor = new Cursor(0);
+		cursor.advance(key);
+		return cursor;
+	}
+
+	/**
+	 * @param lo is a block whose first term is not greater than the key
+	 * @param hi is the last block to consider
+	 * @return the last block from lo to hi whose first term is not greater than the key
+	 */
+	private int findBlock(byte[] key, int lo, int hi) {
+		int block = lo++;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (compareFirstTerm(mid, key) <= 0) {
+				block = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return block;
+	}
+
+	/**
+	 * The method to look a term up
+	 * @param term is the term to look up
+	 * @return the cursor on the term, NULL if it is not in the dictionary
+	 */
+	public Cursor find(String term) {
+		byte[] key = term.getBytes(StandardCharsets.UTF_8);
+		Cursor cursor = seek(key);
+		return (cursor.isValid() && cursor.compareTo(key) == 0 ? cursor : null);
+	}
+
+	/**
+	 * @param ordinal is the number of a term, from 0 to size() - 1
+	 * @return the cursor on the term
+	 */
+	public Cursor cursor(int ordinal) {
+		if (ordinal < 0 || ordinal >= termCount)
+			throw new IndexOutOfBoundsException("No term number " + ordinal + " in " + termCount + " terms");
+
+		Cursor cursor = new Cursor(ordinal / blockSize);
+		while (cursor.ordinal < ordinal) cursor.next();
+		return cursor;
+	}
+
+	/**
+	 * @return a cursor before the first term, to be moved with next()
+	 */
+	public Cursor first() {
+		return new Cursor(0);
+	}
+
+	/**
+	 * @return the number of terms
+	 */
+	public int size() {
+		return termCount;
+	}
+
+	/**
+	 * @return the length of the dictionary in bytes
+	 */
+	public int sizeInBytes() {
+		return length;
+	}
+}
@@ -0,0 +1,153 @@
+package ir.algorithms.indexer;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Collection statistics read once from a printed inverted index: the document frequency and the highest term
+ * frequency of every term, plus the corpus size and average document length from the document length file.
+ * These are enough to estimate how expensive a term is to evaluate (its df) and the most it can ever add to a
+ * BM25 score, without decoding a single posting
+ * @author Surbhi Gupta
+ */
+public class TermStatistics {
+	private static final String TERM_SEPARATOR = " : ";
+	private static final String POSTING_SEPARATOR = ", ";
+	private static final double K1 = 1.2d;
+	private static final double B = 0.75d;
+
+	private final Map<String, int[]> termStats = new HashMap<>();	// term -> {df, maxTf}
+	private Function<String, int[]> lookup = termStats::get;
+	private int N;													// number of documents in the corpus
+	private double avdl;											// average document length of the corpus
+
+	private TermStatistics() {
+	}
+
+	/**
+	 * The method to read the statistics of all the terms in the given index in a single pass
+	 * @param indexPath is the relative path to the inverted index file
+	 * @param docLengthPath is the relative path to the document length file
+	 * @return the statistics of the given index
+	 * @throws IOException
+	 */
+	public static TermStatistics load(String indexPath, String docLengthPath) throws IOException {
+		TermStatistics stats = new TermStatistics();
+
+		try (BufferedReader buffer = new BufferedReader(new FileReader(indexPath))) {
+			String line;
+			while ((line = buffer.readLine()) != null) {
+				int sep = line.indexOf(TERM_SEPARATOR);
+				if (sep < 0) continue;
+
+				String term = line.substring(0, sep);
+				int df = 0;
+				int maxTf = 0;
+				int from = sep + TERM_SEPARATOR.length();
+				while (from < line.length()) {
+					int end = line.indexOf(POSTING_SEPARATOR, from);
+					if (end < 0) end = line.length();
+					int tf = Integer.parseInt(line.substring(line.lastIndexOf(':', end) + 1, line.indexOf(']', from)));
+					maxTf = Math.max(maxTf, tf);
+					df++;
+					from = end + POSTING_SEPARATOR.length();
+				}
+				stats.termStats.put(term, new int[]{df, maxTf});
+			}
+		}
+
+		try (BufferedReader buffer = new BufferedReader(new FileReader(docLengthPath))) {
+			String line;
+			while ((line = buffer.readLine()) != null) {
+				stats.avdl += Integer.parseInt(line.split(TERM_SEPARATOR)[1]);
+				stats.N++;
+			}
+			stats.avdl = (stats.N == 0 ? 0d : stats.avdl / stats.N);
+		}
+
+		return stats;
+	}
+
+	/**
+	 * The method to compute the statistics of all the terms of an index already decoded in memory
+	 * @param postings is the mapping of all the terms to their inverted lists
+	 * @param docTable is the table of all the documents of the corpus
+	 * @return the statistics of the given index
+	 */
+	static TermStatistics of(Map<String, PostingList> postings, DocumentTable docTable) {
+		TermStatistics stats = new TermStatistics();
+
+		for (Map.Entry<String, PostingList> e : postings.entrySet()) {
+			int maxTf = 0;
+			for (int tf : e.getValue().tfs) {
+				maxTf = Math.max(maxTf, tf);
+			}
+			stats.termStats.put(e.getKey(), new int[]{e.getValue().df(), maxTf});
+		}
+		stats.N = docTable.getDocCount();
+		stats.avdl = docTable.getAverageDocLength();
+
+		return stats;
+	}
+
+	/**
+	 * The method to wrap the statistics of an index that looks them up term by term, rather than holding them all
+	 * @param lookup is the function returning {df, maxTf} of a term, NULL if it is not in the index
+	 * @param N is the number of documents in the corpus
+	 * @param avdl is the average document length of the corpus
+	 * @return the statistics of the index
+	 */
+	public static TermStatistics of(Function<String, int[]> lookup, int N, double avdl) {
+		TermStatistics stats = new TermStatistics();
+		stats.lookup = lookup;
+		stats.N = N;
+		stats.avdl = avdl;
+
+		return stats;
+	}
+
+	/**
+	 * @param term is the term to look up
+	 * @return the number of documents the term appears in, 0 if it is not in the index
+	 */
+	public int df(String term) {
+		int[] s = lookup.apply(term);
+		return (s == null ? 0 : s[0]);
+	}
+
+	/**
+	 * @param term is the term to look up
+	 * @return the highest frequency of the term in any single document, 0 if it is not in the index
+	 */
+	public int maxTf(String term) {
+		int[] s = lookup.apply(term);
+		return (s == null ? 0 : s[1]);
+	}
+
+	/**
+	 * The method to compute an upper bound of the BM25 contribution of a single occurrence of the term in a query,
+	 * assuming no relevance information and the shortest possible document
+	 * @param term is the term to look up
+	 * @return the maximum score the term can add to any document, 0 if it is not in the index
+	 */
+	public double maxScore(String term) {
+		int[] s = lookup.apply(term);
+		if (s == null) return 0d;
+
+		double idf = Math.log((N - s[0] + 0.5) / (s[0] + 0.5));
+		double K = K1 * (1 - B);
+		return Math.max(0d, idf) * ((K1 + 1) * s[1]) / (K + s[1]);
+	}
+
+	public int getDocCount() {
+		return N;
+	}
+
+	public double getAverageDocLength() {
+		return avdl;
+	}
+}
@@ -0,0 +1,143 @@
+package ir.algorithms.load;
+
+import ir.algorithms.scoreAndRank.SearchResult;
+import ir.algorithms.scoreAndRank.SearchStage;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.commons.LatencyHistogram;
+import ir.commons.SearchQuery;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The driver that replays a list of queries against a Searcher to measure its capacity, either closed loop, with a
+ * fixed number of clients each sending its next query as soon as the previous one is answered, or open loop, with
+ * queries arriving at a fixed rate whether or not the previous ones are answered. In open loop the latency of a
+ * query is measured from the time it was due, so that a stalled searcher is not hidden by queries sent late
+ * @author Surbhi Gupta
+ */
+public class LoadDriver {
+	private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+
+	private final Searcher searcher;
+	private final List<SearchQuery> queries;
+	private final int k;
+	private final boolean withSnippets;
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LatencyHistogram[] stageLatency = new LatencyHistogram[SearchStage.values().length];
+	private final AtomicLong nextQuery = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private long elapsedNanos;
+
+	public LoadDriver(Searcher searcher, List<SearchQuery> queries, int k, boolean withSnippets) {
+		this.searcher = searcher;
+		this.queries = queries;
+		this.k = k;
+		this.withSnippets = withSnippets;
+		for (int i = 0; i < stageLatency.length; i++) {
+			stageLatency[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * The method to run the queries with the given number of concurrent clients for the given time
+	 * @param clients is the number of clients, each one waiting for its answer before sending the next query
+	 * @param durationSeconds is the time the load is run for
+	 * @throws InterruptedException
+	 */
+	public void runClosedLoop(int clients, double durationSeconds) throws InterruptedException {
+		System.out.println("Running closed loop load with " + clients + " clients for " + durationSeconds + "s...");
+		long start = System.nanoTime();
+		long end = start + (long) (durationSeconds * 1e9);
+
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		for (int c = 0; c < clients; c++) {
+			executor.execute(() -> {
+				while (System.nanoTime() < end) {
+					runQuery(System.nanoTime());
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+		elapsedNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * The method to send the queries at a fixed rate for the given time, whatever the time it takes to answer them
+	 * @param qps is the number of queries sent per second
+	 * @param durationSeconds is the time the load is run for
+	 * @param maxConcurrency is the maximum number of queries being answered at the same time
+	 * @throws InterruptedException
+	 */
+	public void runOpenLoop(double qps, double durationSeconds, int maxConcurrency) throws InterruptedException {
+		System.out.println("Running open loop load at " + qps + " queries/s for " + durationSeconds + "s...");
+		long intervalNanos = (long) (1e9 / qps);
+		long total = (long) (qps * durationSeconds);
+		long start = System.nanoTime();
+
+		ExecutorService executor = Executors.newFixedThreadPool(maxConcurrency);
+		for (long i = 0; i < total; i++) {
+			long due = start + i * intervalNanos;
+			long wait = due - System.nanoTime();
+			if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+
+			executor.execute(() -> runQuery(due));
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+		elapsedNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * The method to run the next query and record its latency, measured from the given time
+	 * @param due is the time the query was due to be sent, in nanoseconds
+	 */
+	private void runQuery(long due) {
+		SearchQuery q = queries.get((int) (nextQuery.getAndIncrement() % queries.size()));
+		try {
+			SearchResult result = searcher.search(q, k, withSnippets);
+			latency.record(System.nanoTime() - due);
+			for (int i = 0; i < stageLatency.length; i++) {
+				stageLatency[i].record(result.stageNanos[i]);
+			}
+		} catch (Exception e) {
+			errors.incrementAndGet();
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * The method to write the throughput and latency percentiles of the last run, overall and per stage
+	 * @return the report of the last run
+	 */
+	public String report() {
+		StringBuilder sb = new StringBuilder();
+		double seconds = elapsedNanos / 1e9;
+
+		sb.append(String.format("queries: %d, errors: %d, elapsed: %.2fs, throughput: %.1f queries/s%n",
+				latency.getTotalCount(), errors.get(), seconds, latency.getTotalCount() / seconds));
+		sb.append(String.format("%-16s %10s %10s %10s %10s %10s %10s%n", "latency (ms)", "mean", "p50", "p95", "p99",
+				"p99.9", "max"));
+		appendLatencies(sb, "total", latency);
+		for (SearchStage stage : SearchStage.values()) {
+			appendLatencies(sb, stage.name().toLowerCase(), stageLatency[stage.ordinal()]);
+		}
+
+		return sb.toString();
+	}
+
+	private static void appendLatencies(StringBuilder sb, String name, LatencyHistogram h) {
+		sb.append(String.format("%-16s %10.3f", name, h.getMean() / 1e6));
+		for (double p : PERCENTILES) {
+			sb.append(String.format(" %10.3f", h.getValueAtPercentile(p) / 1e6));
+		}
+		sb.append(String.format(" %10.3f%n", h.getMax() / 1e6));
+	}
+}
@@ -0,0 +1,41 @@
+package ir.algorithms.scoreAndRank;
+
+import java.util.List;
+
+/**
+ * Utility class to store the result of a search under a budget: the top scored documents found before the budget
+ * ran out, and how much of the budget the search used
+ * @author Surbhi Gupta
+ */
+public class AnytimeResult {
+	public List<DocScore> hits;
+	public long postingsScored;
+	public long postingsTotal;		// postings of all the terms of the query, scored if the search is complete
+	public long nanos;
+	public long postingBudget;
+	public long timeBudgetNanos;
+
+	public AnytimeResult(List<DocScore> hits, long postingsScored, long postingsTotal, long nanos, long postingBudget,
+						 long timeBudgetNanos) {
+		this.hits = hits;
+		this.postingsScored = postingsScored;
+		this.postingsTotal = postingsTotal;
+		this.nanos = nanos;
+		this.postingBudget = postingBudget;
+		this.timeBudgetNanos = timeBudgetNanos;
+	}
+
+	/**
+	 * @return TRUE if every posting of the query was scored before the budget ran out
+	 */
+	public boolean isComplete() {
+		return postingsScored == postingsTotal;
+	}
+
+	/**
+	 * @return the fraction of the budget the search used, the larger of its posting and time fractions, the budgets being positive
+	 */
+	public double getBudgetUsed() {
+		return Math.max((double) postingsScored / postingBudget, (double) nanos / timeBudgetNanos);
+	}
+}
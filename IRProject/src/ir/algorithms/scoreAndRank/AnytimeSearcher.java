@@ -0,0 +1,143 @@
+package ir.algorithms.scoreAndRank;
+
+import ir.algorithms.indexer.DocumentTable;
+import ir.commons.SearchQuery;
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Histogram;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The score-at-a-time searcher that runs a query against an index in impact order under a budget of postings and of
+ * time. The impact segments of all the query terms are processed from the one adding the most to a score down to the
+ * one adding the least, so the documents that end up on top are found first, and the search stops as soon as either
+ * budget runs out with the ranking of the postings scored so far. With a budget large enough for all the postings
+ * of the query, it ranks the documents as exhaustive BM25 scoring does, up to the quantization of the impacts.
+ * Queries are scored as they are given, with no expansion. It is safe to use from many threads at once
+ * @author Surbhi Gupta
+ */
+public class AnytimeSearcher {
+	private static final int CLOCK_INTERVAL = 1024;		// postings scored between two reads of the clock
+
+	private static final Timer QUERY_TIME = Metrics.timer("anytime.query");
+	private static final Histogram BUDGET_USED = Metrics.histogram("anytime.budget.used.percent");
+	private static final Counter EARLY_TERMINATIONS = Metrics.counter("anytime.early.terminations");
+	private static final Counter POSTINGS_SCORED = Metrics.counter("anytime.postings.scored");
+
+	private final ImpactIndex index;
+	private final ThreadLocal<BM25.ScoreAccumulator> scratch;	// reused by every query of a thread
+
+	public AnytimeSearcher(ImpactIndex index) {
+		this.index = index;
+		this.scratch = ThreadLocal.withInitial(() -> new BM25.ScoreAccumulator(index.getDocTable().getDocCount()));
+	}
+
+	/**
+	 * The method to search for a query and return its top k documents found within the given budgets
+	 * @param query is the query to be searched
+	 * @param k is the maximum number of documents to be returned
+	 * @param postingBudget is the maximum number of postings to be scored
+	 * @param timeBudgetNanos is the maximum time to be spent scoring, in nanoseconds
+	 * @return the top k documents found and how much of the budgets was used
+	 * @throws IllegalArgumentException if k or either budget is not positive
+	 */
+	public AnytimeResult search(SearchQuery query, int k, long postingBudget, long timeBudgetNanos) {
+		if (k < 1) throw new IllegalArgumentException("k must be at least 1: " + k);
+		if (postingBudget < 1) throw new IllegalArgumentException("Posting budget must be positive: " + postingBudget);
+		if (timeBudgetNanos < 1) throw new IllegalArgumentException("Time budget must be positive: " + timeBudgetNanos);
+
+		long start = System.nanoTime();
+		long deadline = start + timeBudgetNanos;
+
+		// every impact segment of every query term, with what a single posting of it adds to a score
+		List<ImpactIndex.ImpactPostings> terms = new ArrayList<>();
+		List<Double> queryFactors = new ArrayList<>();
+		int segmentCount = 0;
+		long postingsTotal = 0;
+		// the text is split once, counting the frequency of every term in the query on the way
+		Map<String, int[]> termCounts = new LinkedHashMap<>();
+		for (String word : query.queryText.split(" +")) {
+			termCounts.computeIfAbsent(word, w -> new int[1])[0]++;
+		}
+		for (Map.Entry<String, int[]> entry : termCounts.entrySet()) {
+			String term = entry.getKey();
+			if (query.getTermWeight(term) < BM25.MIN_TERM_WEIGHT) continue;
+
+			ImpactIndex.ImpactPostings ip = index.getPostings(term);
+			if (ip != null) {
+				terms.add(ip);
+				queryFactors.add(BM25.queryFactor(entry.getValue()[0], query.getTermWeight(term)));
+				segmentCount += ip.levels.length;
+				postingsTotal += ip.docs.length;
+			}
+		}
+
+		int[] segTerms = new int[segmentCount];
+		int[] segNums = new int[segmentCount];
+		double[] segImpacts = new double[segmentCount];
+		Integer[] order = new Integer[segmentCount];
+		int n = 0;
+		for (int t = 0; t < terms.size(); t++) {
+			ImpactIndex.ImpactPostings ip = terms.get(t);
+			for (int s = 0; s < ip.levels.length; s++) {
+				segTerms[n] = t;
+				segNums[n] = s;
+				segImpacts[n] = ip.levels[s] * index.getQuantum() * queryFactors.get(t);
+				order[n] = n;
+				n++;
+			}
+		}
+		Arrays.sort(order, (s1, s2) -> Double.compare(segImpacts[s2], segImpacts[s1]));
+
+		DocumentTable docTable = index.getDocTable();
+		BM25.ScoreAccumulator acc = scratch.get();
+		long scored = 0;
+		long nextClockCheck = CLOCK_INTERVAL;
+		boolean outOfTime = false;
+		for (int i = 0; i < segmentCount && scored < postingBudget && !outOfTime; i++) {
+			int seg = order[i];
+			ImpactIndex.ImpactPostings ip = terms.get(segTerms[seg]);
+			double impact = segImpacts[seg];
+			int end = ip.starts[segNums[seg] + 1];
+
+			for (int j = ip.starts[segNums[seg]]; j < end; j++) {
+				if (scored == postingBudget) break;
+				if (scored == nextClockCheck) {
+					nextClockCheck += CLOCK_INTERVAL;
+					if (System.nanoTime() >= deadline) {
+						outOfTime = true;
+						break;
+					}
+				}
+				acc.add(ip.docs[j], impact);
+				scored++;
+			}
+		}
+
+		int[] top = Searcher.selectTopK(acc.scores, acc.touched, acc.size, k);
+		List<DocScore> hits = new ArrayList<>();
+		for (int doc : top) {
+			DocScore ds = new DocScore();
+			ds.docID = docTable.getDocID(doc);
+			ds.docScore = acc.scores[doc];
+			ds.docLength = docTable.getDocLength(doc);
+			hits.add(ds);
+		}
+		acc.reset();
+
+		AnytimeResult result = new AnytimeResult(hits, scored, postingsTotal, System.nanoTime() - start,
+				postingBudget, timeBudgetNanos);
+		QUERY_TIME.record(result.nanos);
+		BUDGET_USED.record(Math.round(100d * result.getBudgetUsed()));
+		POSTINGS_SCORED.add(scored);
+		if (!result.isComplete()) EARLY_TERMINATIONS.inc();
+
+		return result;
+	}
+}
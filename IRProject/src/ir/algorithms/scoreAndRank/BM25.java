@@ -1,6 +1,11 @@
 package ir.algorithms.scoreAndRank;
 
+import ir.algorithms.indexer.DocumentTable;
+import ir.algorithms.indexer.PostingList;
 import ir.commons.SearchQuery;
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -11,9 +16,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -23,13 +30,77 @@ import java.util.Set;
  */
 public class BM25 {
 	private static List<DocScore> docScoreList;				 // result list of all the documents with their BM25 scores
-	private static Map<String, Integer> queryInDocsCount; 	 // mapping of queries to their document frequency
+	private static Map<String, Integer> queryInDocsCount = new HashMap<>();	// mapping of queries to their document frequency
 	private static int N;								  	 // number of documents in the corpus
 	private static double avdl;							  	 // average document length of the corpus
 	private static Map<String, Integer> queryRelDocCountMap; // mapping of queries to their relevant document frequency
 
 	private static final String SYSTEM_NAME = "BM25";
 	private static final String RESULT_FILE_TYPE = ".txt";
+	static final double MIN_TERM_WEIGHT = 0.05d;
+	private static final String TERM_SEPARATOR = " : ";
+
+	private static final Counter INDEX_BYTES_READ = Metrics.counter("bm25.index.bytes.read");
+	private static final Counter POSTINGS_BYTES_DECODED = Metrics.counter("bm25.postings.bytes.decoded");
+	private static final Counter CANDIDATES_SCORED = Metrics.counter("bm25.candidates.scored");
+	private static final Timer QUERY_TIME = Metrics.timer("bm25.query");
+	private static final Timer BATCH_TIME = Metrics.timer("bm25.batch");
+
+	/**
+	 * a private class to hold a term of a query in a batch, with everything needed to score it for that query
+	 */
+	private static class BatchTerm {
+		final int queryIndex;
+		final double qfi;		// frequency of the term in the query
+		final double ri;		// number of relevant documents of the query containing the term
+		final double R;			// number of relevant documents of the query
+		final double weight;
+
+		BatchTerm(int queryIndex, double qfi, double ri, double R, double weight) {
+			this.queryIndex = queryIndex;
+			this.qfi = qfi;
+			this.ri = ri;
+			this.R = R;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * a private class to accumulate the scores of a single query of a batch over all the documents of the corpus
+	 */
+	static class ScoreAccumulator {
+		final double[] scores;
+		final boolean[] seen;
+		int[] touched = new int[16];
+		int size;
+		final double[] block = new double[ScoringKernel.BLOCK_SIZE];	// contributions of a block of postings
+
+		ScoreAccumulator(int docCount) {
+			scores = new double[docCount];
+			seen = new boolean[docCount];
+		}
+
+		void add(int docNum, double score) {
+			if (!seen[docNum]) {
+				seen[docNum] = true;
+				if (size == touched.length) touched = Arrays.copyOf(touched, size * 2);
+				touched[size++] = docNum;
+			}
+			scores[docNum] += score;
+		}
+
+		/**
+		 * The method to clear the scores of the documents that were scored, so that the accumulator can be reused for
+		 * the next query at a cost proportional to the documents it touched, not to the whole corpus
+		 */
+		void reset() {
+			for (int i = 0; i < size; i++) {
+				scores[touched[i]] = 0d;
+				seen[touched[i]] = false;
+			}
+			size = 0;
+		}
+	}
 
 	/**
 	 * The method to fetch the inverted index of a word from the relative file name of the index file
@@ -37,14 +108,16 @@ public class BM25 {
 	 * @param indexPath is the relative path where the inverted indices are stored
      * @return the inverted index of this word as a Map from the word to the
      */
-	private static Map<String, Integer> getInvertedListForTerm(String term, String indexPath) {
+	public static Map<String, Integer> getInvertedListForTerm(String term, String indexPath) {
 		BufferedReader buffer = null;
 		
 		try {
 			buffer = new BufferedReader(new FileReader(indexPath));
 			String line;
 			while ((line = buffer.readLine()) != null) {
+				INDEX_BYTES_READ.add(line.length() + 1);
 				if (line.startsWith(term + " : ")) {
+					POSTINGS_BYTES_DECODED.add(line.length() + 1);
 					String[] parts = line.trim().split(" : ");
 					String[] docTF = parts[1].split(", ");
 
@@ -120,6 +193,7 @@ public class BM25 {
 			buffer = new BufferedReader(new FileReader(docLengthPath));
 	        String line;
 	        N = 0;
+	        avdl = 0d;
 	        while ((line = buffer.readLine()) != null) {
 	        	String[] parts = line.split(" : ");    	
 	        	String docID = parts[0];
@@ -191,22 +265,38 @@ public class BM25 {
 		/*
 		All variable names here are in line with the standard notations used in the formula
 		 */
+		double k1 = BM25Parameters.DEFAULT.k1;
+		double k2 = BM25Parameters.DEFAULT.k2;
+		double b = BM25Parameters.DEFAULT.b;
+
+		// everything that does not depend on the document is computed once per term, not once per document
+		String[] terms = queryInDocsCount.keySet().toArray(new String[0]);
+		double[] qfis = new double[terms.length];
+		double[] ris = new double[terms.length];
+		double[] nis = new double[terms.length];
+		double[] weights = new double[terms.length];
+		for (int t = 0; t < terms.length; t++) {
+			qfis[t] = getTermCountInQuery(searchQuery.queryText, terms[t]) / 1d;
+			Integer ri = (qTermRelDocCountMap == null ? null : qTermRelDocCountMap.get(terms[t]));
+			ris[t] = (ri == null ? 0d : ri);
+			nis[t] = queryInDocsCount.get(terms[t]);
+			weights[t] = searchQuery.getTermWeight(terms[t]);
+		}
+
 		for (DocScore ds : docScoreList) {
 			double sumBM = 0d;
-			for (String term : queryInDocsCount.keySet()) {
-				double k1 = 1.2d;
-				int k2 = 100;
-				double b = 0.75d;
+			for (int t = 0; t < terms.length; t++) {
 				double K = k1 * ((1 - b) + (b * ds.docLength / avdl));
-				double qfi = getTermCountInQuery(searchQuery.queryText, term) / 1d;
-				double ri = (qTermRelDocCountMap != null && qTermRelDocCountMap.keySet().contains(term) ? qTermRelDocCountMap.get(term) : 0d);
-				double ni = queryInDocsCount.get(term);
-				double fi = (ds.tfMap.keySet().contains(term) ? ds.tfMap.get(term) : 0d);
-				
+				double qfi = qfis[t];
+				double ri = ris[t];
+				double ni = nis[t];
+				Integer tf = ds.tfMap.get(terms[t]);
+				double fi = (tf == null ? 0d : tf);
+
 				double part1BM = ((ri + 0.5) * (N - ni - R + ri + 0.5)) / ((R - ri + 0.5) * (ni - ri + 0.5));
 				double part2BM = ((k1 + 1) * fi) / (K + fi);
 				double part3BM = ((k2 + 1) * qfi) / (k2 + qfi);
-				double partBM = Math.log(part1BM) * part2BM * part3BM;
+				double partBM = Math.log(part1BM) * part2BM * part3BM * weights[t];
 				
 				sumBM += partBM;
 			}
@@ -215,13 +305,92 @@ public class BM25 {
 		}
 	}
 
+	/**
+	 * The part of the BM25 score of a query term that is the same for every document: the idf weighted by the
+	 * relevance information, times the query term frequency part and the weight of the term in the query
+	 * @param N is the number of documents in the corpus
+	 * @param ni is the number of documents the term appears in
+	 * @param R is the number of relevant documents of the query
+	 * @param ri is the number of relevant documents of the query containing the term
+	 * @param qfi is the frequency of the term in the query
+	 * @param weight is the weight of the term in the query
+	 * @return the document independent factor of the score of the term
+	 */
+	static double termFactor(double N, double ni, double R, double ri, double qfi, double weight) {
+		return termFactor(N, ni, R, ri, qfi, weight, BM25Parameters.DEFAULT);
+	}
+
+	/**
+	 * The part of the BM25 score of a query term that is the same for every document, with the given parameters
+	 * @param N is the number of documents in the corpus
+	 * @param ni is the number of documents the term appears in
+	 * @param R is the number of relevant documents of the query
+	 * @param ri is the number of relevant documents of the query containing the term
+	 * @param qfi is the frequency of the term in the query
+	 * @param weight is the weight of the term in the query
+	 * @param p is the parameters of BM25
+	 * @return the document independent factor of the score of the term
+	 */
+	static double termFactor(double N, double ni, double R, double ri, double qfi, double weight, BM25Parameters p) {
+		double part1BM = ((ri + 0.5) * (N - ni - R + ri + 0.5)) / ((R - ri + 0.5) * (ni - ri + 0.5));
+		double part3BM = ((p.k2 + 1) * qfi) / (p.k2 + qfi);
+		return Math.log(part1BM) * part3BM * weight;
+	}
+
+	/**
+	 * The part of the BM25 score of a query term that depends on the query only: its frequency in the query, saturated,
+	 * and its weight. It is the term factor of a term whose idf is 1
+	 * @param qfi is the frequency of the term in the query
+	 * @param weight is the weight of the term in the query
+	 * @return the query dependent factor of the score of the term
+	 */
+	static double queryFactor(double qfi, double weight) {
+		return ((BM25Parameters.DEFAULT.k2 + 1) * qfi) / (BM25Parameters.DEFAULT.k2 + qfi) * weight;
+	}
+
+	/**
+	 * The part of the BM25 score of a query term that depends on the document: its frequency in the document,
+	 * saturated and normalized by the length of the document
+	 * @param fi is the frequency of the term in the document
+	 * @param dl is the length of the document
+	 * @param avdl is the average document length of the corpus
+	 * @return the document dependent factor of the score of the term
+	 */
+	static double docFactor(double fi, double dl, double avdl) {
+		return docFactor(fi, dl, avdl, BM25Parameters.DEFAULT);
+	}
+
+	/**
+	 * The part of the BM25 score of a query term that depends on the document, with the given parameters
+	 * @param fi is the frequency of the term in the document
+	 * @param dl is the length of the document
+	 * @param avdl is the average document length of the corpus
+	 * @param p is the parameters of BM25
+	 * @return the document dependent factor of the score of the term
+	 */
+	static double docFactor(double fi, double dl, double avdl, BM25Parameters p) {
+		double K = docNorm(dl, avdl, p);
+		return ((p.k1 + 1) * fi) / (K + fi);
+	}
+
+	/**
+	 * The part of the document factor of the BM25 score that depends on the document only, K in the formula
+	 * @param dl is the length of the document
+	 * @param avdl is the average document length of the corpus
+	 * @param p is the parameters of BM25
+	 * @return the length normalization of the document
+	 */
+	static double docNorm(double dl, double avdl, BM25Parameters p) {
+		return p.k1 * ((1 - p.b) + (p.b * dl / avdl));
+	}
+
 	/**
 	 * The utility method to find the number of times the given term appears in the query text
 	 * @param queryText is the text of the given query
 	 * @param term is the word whose count is to be calculated
      * @return the count of occurances of the given term in the given query text
      */
-	private static int getTermCountInQuery(String queryText, String term) {
+	static int getTermCountInQuery(String queryText, String term) {
 		String[] words = queryText.split(" ");
 		int count = 0;
 
@@ -234,18 +403,19 @@ public class BM25 {
 
 	/**
 	 * The utility method to print the BM25 scores of all the documents of the given query id in a single file
+	 * @param scores is the list of scored documents of the query, in the order of their rank
 	 * @param queryNo is the id of the query whose
 	 * @param limit is the #results desired in the output
 	 * @param fileNamePrefix is the path and prefix of the file to be created for this query
      */
-	private static void printDocScore(int queryNo, int limit, String fileNamePrefix) {
+	private static void printDocScore(List<DocScore> scores, int queryNo, int limit, String fileNamePrefix) {
 		FileWriter writer = null;
 		try {
 			writer = new FileWriter(fileNamePrefix + queryNo + RESULT_FILE_TYPE);
 			
 			int rank = 1;
-			for (DocScore ds : docScoreList) {
-				DecimalFormat numberFormat = new DecimalFormat("#.00");
+			DecimalFormat numberFormat = new DecimalFormat("#.00");
+			for (DocScore ds : scores) {
 				writer.write(queryNo + " " + ds.docID + " " + rank++ + " " + numberFormat.format(ds.docScore) + " " +
 				SYSTEM_NAME + "\n");
 				if (--limit == 0) break; 
@@ -358,6 +528,146 @@ public class BM25 {
 		return numInstances;
 	}
 
+	/**
+	 * The method to search for the given queries in the corpus in batches, score documents based on BM25 scores and
+	 * write the results in file(s) (one per query). The index is read once per batch and the inverted list of every
+	 * term shared by the queries of a batch is decoded only once
+	 * @param queryList is the list of SearchQuery objects to be searched in the corpus
+	 * @param n is the maximum number of results desired in the final output
+	 * @param corpusPath is the relative path to the corpus directory
+	 * @param indexPath is the relative path to the inverted index file
+	 * @param docLengthPath is the relative path to the document length file
+	 * @param fileNamePrefix is the prefix to be used while saving the writing the final scored documents for each query
+	 * @param relFeedbackFilePath is the relative path to the relevant judgement provided for the queries
+	 * @param batchSize is the number of queries scored together, each one holding a score for every document
+	 * @throws IOException
+	 */
+	public static void scoreAndRetrieveBatch(List<SearchQuery> queryList, int n, String corpusPath,
+								 String indexPath, String docLengthPath, String fileNamePrefix,
+								 String relFeedbackFilePath, int queryCount, int batchSize) throws IOException {
+		DocumentTable docTable = DocumentTable.load(docLengthPath);
+
+		//getting relevance judgements for all the queries
+		Map<String, Map<String, Integer>> qTermRelDocCountMap = getQTermRelDocCountMap(queryList, relFeedbackFilePath, corpusPath);
+
+		System.out.println("Searching for all queries (" + queryCount + " in total) in batches of " + batchSize);
+		for (int from = 0; from < queryList.size(); from += batchSize) {
+			System.out.print(".");
+
+			List<SearchQuery> batch = queryList.subList(from, Math.min(from + batchSize, queryList.size()));
+			long start = BATCH_TIME.start();
+			List<List<DocScore>> results = scoreBatch(batch, n, indexPath, docTable, qTermRelDocCountMap);
+			BATCH_TIME.stop(start);
+			for (int i = 0; i < batch.size(); i++) {
+				printDocScore(results.get(i), batch.get(i).id, n, fileNamePrefix);
+			}
+		}
+		System.out.println("\nBM25 results generated for all queries");
+	}
+
+	/**
+	 * The method to search for a batch of queries without any relevance information, e.g. for the queries of many
+	 * users received at the same time
+	 * @param batch is the list of SearchQuery objects to be searched together
+	 * @param n is the maximum number of results desired for each query
+	 * @param indexPath is the relative path to the inverted index file
+	 * @param docTable is the table of all the documents in the corpus
+	 * @return the top n scored documents of each query, in the order of the batch
+	 * @throws IOException
+	 */
+	public static List<List<DocScore>> searchBatch(List<SearchQuery> batch, int n, String indexPath,
+												   DocumentTable docTable) throws IOException {
+		return scoreBatch(batch, n, indexPath, docTable, null);
+	}
+
+	/**
+	 * The method to score a batch of queries by grouping their terms, so that a single pass over the index decodes
+	 * the inverted list of each term once and adds its BM25 contribution to every query of the batch that has it
+	 * @param batch is the list of SearchQuery objects to be scored together
+	 * @param n is the maximum number of results desired for each query
+	 * @param indexPath is the relative path to the inverted index file
+	 * @param docTable is the table of all the documents in the corpus
+	 * @param qTermRelDocCountMap is the mapping of the query ids to the relevant document frequencies of their terms,
+	 *                            NULL if there is no relevance information
+	 * @return the top n scored documents of each query, in the order of the batch
+	 * @throws IOException
+	 */
+	private static List<List<DocScore>> scoreBatch(List<SearchQuery> batch, int n, String indexPath,
+			DocumentTable docTable, Map<String, Map<String, Integer>> qTermRelDocCountMap) throws IOException {
+		//grouping the terms of all the queries in the batch
+		Map<String, List<BatchTerm>> batchTerms = new HashMap<>();
+		for (int i = 0; i < batch.size(); i++) {
+			SearchQuery q = batch.get(i);
+			Map<String, Integer> relDocCount = (qTermRelDocCountMap == null ? null : qTermRelDocCountMap.get("" + q.id));
+			double R = (qTermRelDocCountMap != null && queryRelDocCountMap.keySet().contains("" + q.id) ?
+					queryRelDocCountMap.get("" + q.id) : 0d);
+
+			for (String term : new LinkedHashSet<>(Arrays.asList(q.queryText.split(" +")))) {
+				// expansion terms weighted too low to matter are pruned before their postings are read
+				if (q.getTermWeight(term) < MIN_TERM_WEIGHT) continue;
+
+				double ri = (relDocCount != null && relDocCount.keySet().contains(term) ? relDocCount.get(term) : 0d);
+				BatchTerm bt = new BatchTerm(i, getTermCountInQuery(q.queryText, term), ri, R, q.getTermWeight(term));
+				batchTerms.computeIfAbsent(term, t -> new ArrayList<>()).add(bt);
+			}
+		}
+
+		ScoreAccumulator[] accumulators = new ScoreAccumulator[batch.size()];
+		for (int i = 0; i < accumulators.length; i++) {
+			accumulators[i] = new ScoreAccumulator(docTable.getDocCount());
+		}
+
+		//a single pass over the index, decoding only the terms of this batch
+		int N = docTable.getDocCount();
+		double avdl = docTable.getAverageDocLength();
+		try (BufferedReader buffer = new BufferedReader(new FileReader(indexPath))) {
+			String line;
+			while ((line = buffer.readLine()) != null) {
+				INDEX_BYTES_READ.add(line.length() + 1);
+				int sep = line.indexOf(TERM_SEPARATOR);
+				if (sep < 0) continue;
+				List<BatchTerm> termList = batchTerms.get(line.substring(0, sep));
+				if (termList == null) continue;
+
+				POSTINGS_BYTES_DECODED.add(line.length() + 1);
+
+				PostingList postings = PostingList.decode(line.substring(sep + TERM_SEPARATOR.length()).trim(), docTable);
+				double ni = postings.df();
+
+				for (BatchTerm bt : termList) {
+					double termFactor = termFactor(N, ni, bt.R, bt.ri, bt.qfi, bt.weight);
+
+					ScoreAccumulator acc = accumulators[bt.queryIndex];
+					for (int j = 0; j < postings.docs.length; j++) {
+						int doc = postings.docs[j];
+						acc.add(doc, termFactor * docFactor(postings.tfs[j], docTable.getDocLength(doc), avdl));
+					}
+				}
+			}
+		}
+
+		//ranking the documents of every query, ties in the order of the document numbers
+		List<List<DocScore>> results = new ArrayList<>();
+		for (ScoreAccumulator acc : accumulators) {
+			CANDIDATES_SCORED.add(acc.size);
+			int[] touched = Arrays.copyOf(acc.touched, acc.size);
+			Arrays.sort(touched);
+
+			List<DocScore> scores = new ArrayList<>();
+			for (int doc : touched) {
+				DocScore ds = new DocScore();
+				ds.docID = docTable.getDocID(doc);
+				ds.docScore = acc.scores[doc];
+				ds.docLength = docTable.getDocLength(doc);
+				scores.add(ds);
+			}
+			Collections.sort(scores);
+			results.add(scores.size() > n ? new ArrayList<>(scores.subList(0, n)) : scores);
+		}
+
+		return results;
+	}
+
 	/**
 	 * The method to search for the given queries in the corpus, score documents based on BM25 scores and write the
 	 * results in file(s) (one per query)
@@ -382,6 +692,7 @@ public class BM25 {
 		System.out.println("Searching for all queries (" + queryCount + " in total)");
 		for (SearchQuery q : queryList) {
 			System.out.print(".");
+			long start = QUERY_TIME.start();
 
 			//reseting the doc score list for this query
         	docScoreList.clear();
@@ -391,6 +702,9 @@ public class BM25 {
     		Map<String, Map<String, Integer>> indexListForAllTerms = new HashMap<>();
     		String[] parts = q.queryText.split(" +");
 			for (String term : parts) {
+				// expansion terms weighted too low to matter are pruned before their postings are read
+				if (q.getTermWeight(term) < MIN_TERM_WEIGHT) continue;
+
 				Map<String, Integer> invertedListForTerm = getInvertedListForTerm(term, indexPath);
 				indexListForAllTerms.put(term, invertedListForTerm);
 			}
@@ -407,7 +721,9 @@ public class BM25 {
         	
         	//printing the details
 			Collections.sort(docScoreList);
-        	printDocScore(q.id, n, fileNamePrefix);
+			CANDIDATES_SCORED.add(docScoreList.size());
+			QUERY_TIME.stop(start);
+        	printDocScore(docScoreList, q.id, n, fileNamePrefix);
 		}
     	System.out.println("\nBM25 results generated for all queries");
 	}
@@ -0,0 +1,25 @@
+package ir.algorithms.scoreAndRank;
+
+/**
+ * Utility class to store the free parameters of BM25: k1 saturates the frequency of a term in a document, k2 its
+ * frequency in the query and b sets how much a document is penalized for being longer than average
+ * @author Surbhi Gupta
+ */
+public class BM25Parameters {
+	public static final BM25Parameters DEFAULT = new BM25Parameters(1.2d, 100d, 0.75d);
+
+	public final double k1;
+	public final double k2;
+	public final double b;
+
+	public BM25Parameters(double k1, double k2, double b) {
+		this.k1 = k1;
+		this.k2 = k2;
+		this.b = b;
+	}
+
+	@Override
+	public String toString() {
+		return "k1=" + k1 + " k2=" + k2 + " b=" + b;
+	}
+}
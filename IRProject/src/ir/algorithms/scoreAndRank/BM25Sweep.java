@@ -0,0 +1,197 @@
+package ir.algorithms.scoreAndRank;
+
+import ir.algorithms.analysis.Analyzer;
+import ir.algorithms.analysis.QueryStats;
+import ir.algorithms.indexer.DocumentTable;
+import ir.algorithms.indexer.PostingList;
+import ir.algorithms.indexer.SearchIndex;
+import ir.commons.SearchQuery;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The sweep of the BM25 parameters over a grid of values: the index, the queries and their relevance judgements are
+ * read once, every query is compiled once into the inverted lists of its terms, and every combination of parameters
+ * is then scored and evaluated in memory, the combinations in parallel. The queries without relevance judgements are
+ * left out, as the Analyzer does
+ * @author Surbhi Gupta
+ */
+public class BM25Sweep {
+	private static final Timer CONFIGURATION_TIME = Metrics.timer("sweep.configuration");
+
+	private final DocumentTable docTable;
+	private final List<JudgedQuery> queries = new ArrayList<>();
+	private final int n;
+
+	/**
+	 * a private class to store a query with everything needed to score it that does not depend on the parameters
+	 */
+	private static class JudgedQuery {
+		final int id;
+		final Set<String> relevant;
+		final List<PostingList> postings = new ArrayList<>();
+		final List<double[]> terms = new ArrayList<>();		// {df, qfi, weight} of every term with postings
+
+		JudgedQuery(int id, Set<String> relevant) {
+			this.id = id;
+			this.relevant = relevant;
+		}
+	}
+
+	/**
+	 * Utility class to store the evaluation of a combination of parameters, averaged over all the judged queries
+	 */
+	public static class Configuration {
+		public final BM25Parameters parameters;
+		public double MAP;
+		public double MRR;
+		public double pAt5;
+		public double pAt20;
+
+		Configuration(BM25Parameters parameters) {
+			this.parameters = parameters;
+		}
+	}
+
+	/**
+	 * The constructor of a sweep over the given queries
+	 * @param index is the index the queries are run against
+	 * @param queryList is the queries, already expanded if they have to be
+	 * @param relevance is the mapping of the query ids to the ids of their relevant documents
+	 * @param n is the number of documents returned for every query
+	 */
+	public BM25Sweep(SearchIndex index, List<SearchQuery> queryList, Map<Integer, Set<String>> relevance, int n) {
+		this.docTable = index.getDocTable();
+		this.n = n;
+
+		for (SearchQuery q : queryList) {
+			Set<String> relevant = relevance.get(q.id);
+			if (relevant == null) continue;
+
+			JudgedQuery jq = new JudgedQuery(q.id, relevant);
+			for (String term : new LinkedHashSet<>(Arrays.asList(q.queryText.split(" +")))) {
+				if (q.getTermWeight(term) < BM25.MIN_TERM_WEIGHT) continue;
+
+				PostingList pl = index.getPostings(term);
+				if (pl != null) {
+					jq.postings.add(pl);
+					jq.terms.add(new double[]{pl.df(), BM25.getTermCountInQuery(q.queryText, term),
+							q.getTermWeight(term)});
+				}
+			}
+			queries.add(jq);
+		}
+	}
+
+	/**
+	 * The method to build the grid of all the combinations of the given values
+	 * @param k1s is the values of k1
+	 * @param k2s is the values of k2
+	 * @param bs is the values of b
+	 * @return every combination of the values
+	 */
+	public static List<BM25Parameters> grid(double[] k1s, double[] k2s, double[] bs) {
+		List<BM25Parameters> grid = new ArrayList<>();
+		for (double k1 : k1s) {
+			for (double k2 : k2s) {
+				for (double b : bs) {
+					grid.add(new BM25Parameters(k1, k2, b));
+				}
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * The method to evaluate every combination of parameters of the grid
+	 * @param grid is the combinations of parameters to be evaluated
+	 * @param threads is the number of combinations evaluated at the same time
+	 * @return the evaluation of every combination, best MAP first, ties broken by MRR
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	public List<Configuration> run(List<BM25Parameters> grid, int threads)
+			throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Configuration> results = new ArrayList<>();
+		try {
+			List<Callable<Configuration>> tasks = new ArrayList<>();
+			for (BM25Parameters p : grid) {
+				tasks.add(() -> evaluate(p));
+			}
+			for (Future<Configuration> f : executor.invokeAll(tasks)) {
+				results.add(f.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		results.sort((c1, c2) -> c1.MAP != c2.MAP ? Double.compare(c2.MAP, c1.MAP) : Double.compare(c2.MRR, c1.MRR));
+		return results;
+	}
+
+	/**
+	 * The method to score all the queries with the given parameters and evaluate their rankings
+	 * @param p is the parameters of BM25
+	 * @return the evaluation of the parameters
+	 */
+	Configuration evaluate(BM25Parameters p) {
+		long start = CONFIGURATION_TIME.start();
+		Configuration c = new Configuration(p);
+		int N = docTable.getDocCount();
+		double avdl = docTable.getAverageDocLength();
+
+		BM25.ScoreAccumulator acc = new BM25.ScoreAccumulator(N);
+		for (JudgedQuery jq : queries) {
+			for (int t = 0; t < jq.postings.size(); t++) {
+				PostingList pl = jq.postings.get(t);
+				double[] term = jq.terms.get(t);
+				double termFactor = BM25.termFactor(N, term[0], 0d, 0d, term[1], term[2], p);
+				for (int j = 0; j < pl.docs.length; j++) {
+					int doc = pl.docs[j];
+					acc.add(doc, termFactor * BM25.docFactor(pl.tfs[j], docTable.getDocLength(doc), avdl, p));
+				}
+			}
+
+			List<String> ranked = new ArrayList<>();
+			for (int doc : Searcher.selectTopK(acc.scores, acc.touched, acc.size, n)) {
+				ranked.add(docTable.getDocID(doc));
+			}
+			acc.reset();
+			QueryStats qs = Analyzer.evaluate(jq.id, ranked, jq.relevant);
+			c.MAP += qs.averagePrecision;
+			c.MRR += qs.reciprocalRank;
+			c.pAt5 += qs.pAt5;
+			c.pAt20 += qs.pAt20;
+		}
+
+		if (!queries.isEmpty()) {
+			c.MAP /= queries.size();
+			c.MRR /= queries.size();
+			c.pAt5 /= queries.size();
+			c.pAt20 /= queries.size();
+		}
+		CONFIGURATION_TIME.stop(start);
+
+		return c;
+	}
+
+	/**
+	 * @return the number of queries with relevance judgements the configurations are evaluated on
+	 */
+	public int getQueryCount() {
+		return queries.size();
+	}
+}
@@ -0,0 +1,40 @@
+package ir.algorithms.scoreAndRank;
+
+import ir.algorithms.indexer.PostingList;
+import ir.commons.DocBitmap;
+
+/**
+ * A query compiled once against the index of a Searcher: it is expanded, its terms are resolved to their inverted
+ * lists, each one with its weight, its frequency in the query and the part of its BM25 score that is the same for
+ * every document, and its filter is turned into document numbers. Running it again pays for no parsing, lookup or
+ * expansion, so a compiled query is what the steady state path of a searcher runs
+ * @author Surbhi Gupta
+ */
+public class CompiledQuery {
+	final int id;
+	final String queryText;			// the text after expansion, for the snippets
+	final String[] terms;			// the terms of the query that are in the index, in the order of the query
+	final PostingList[] postings;
+	final double[] weights;
+	final int[] qfs;				// frequency of every term in the query
+	final double[] termFactors;
+	final DocBitmap filter;			// NULL for all the documents
+	final int[] filterDocs;			// the documents of the filter in increasing order, NULL for all of them
+
+	CompiledQuery(int id, String queryText, String[] terms, PostingList[] postings, double[] weights, int[] qfs,
+				  double[] termFactors, DocBitmap filter) {
+		this.id = id;
+		this.queryText = queryText;
+		this.terms = terms;
+		this.postings = postings;
+		this.weights = weights;
+		this.qfs = qfs;
+		this.termFactors = termFactors;
+		this.filter = filter;
+		this.filterDocs = (filter == null ? null : filter.toArray());
+	}
+
+	public int getTermCount() {
+		return terms.length;
+	}
+}
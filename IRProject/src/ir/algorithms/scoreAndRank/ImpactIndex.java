@@ -0,0 +1,130 @@
+package ir.algorithms.scoreAndRank;
+
+import ir.algorithms.indexer.DocumentTable;
+import ir.algorithms.indexer.PostingList;
+import ir.algorithms.indexer.SearchIndex;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The index laid out for score-at-a-time evaluation: the BM25 contribution of every posting, the idf of its term
+ * times its saturated and length normalized frequency, is computed once and quantized to one of LEVELS levels of the
+ * same size across the whole index. The postings of a term are then grouped in segments of the same impact level,
+ * the highest level first and the documents of a segment in increasing order, so that an evaluator can process the
+ * postings that matter most first and stop at any time with the best approximation it can get so far
+ * @author Surbhi Gupta
+ */
+public class ImpactIndex {
+	static final int LEVELS = 255;		// levels of a positive impact, a negative one has as many below 0
+
+	private static final Timer BUILD_TIME = Metrics.timer("impact.index.build");
+
+	private final Map<String, ImpactPostings> postings = new HashMap<>();
+	private final DocumentTable docTable;
+	private final double quantum;		// the impact of a single level
+
+	/**
+	 * a private class to store the postings of a term in impact order: segment s has the impact level levels[s] and
+	 * the documents docs[starts[s]] to docs[starts[s + 1] - 1]
+	 */
+	static class ImpactPostings {
+		final short[] levels;
+		final int[] starts;
+		final int[] docs;
+
+		ImpactPostings(short[] levels, int[] starts, int[] docs) {
+			this.levels = levels;
+			this.starts = starts;
+			this.docs = docs;
+		}
+	}
+
+	private ImpactIndex(DocumentTable docTable, double quantum) {
+		this.docTable = docTable;
+		this.quantum = quantum;
+	}
+
+	/**
+	 * The method to lay out the postings of an index in impact order
+	 * @param index is the index whose postings are laid out, with the statistics it scores its documents with
+	 * @return the index in impact order
+	 */
+	public static ImpactIndex build(SearchIndex index) {
+		long start = BUILD_TIME.start();
+		DocumentTable docTable = index.getDocTable();
+		int N = docTable.getDocCount();
+		double avdl = docTable.getAverageDocLength();
+
+		// a first pass finds the largest impact, which sets the size of a level
+		double maxImpact = 0d;
+		for (String term : index.getTerms()) {
+			PostingList pl = index.getPostings(term);
+			double idf = BM25.termFactor(N, pl.df(), 0d, 0d, 1d, 1d);
+			for (int j = 0; j < pl.df(); j++) {
+				maxImpact = Math.max(maxImpact,
+						Math.abs(idf * BM25.docFactor(pl.tfs[j], docTable.getDocLength(pl.docs[j]), avdl)));
+			}
+		}
+		ImpactIndex impactIndex = new ImpactIndex(docTable, (maxImpact == 0d ? 1d : maxImpact / LEVELS));
+
+		for (String term : index.getTerms()) {
+			PostingList pl = index.getPostings(term);
+			double idf = BM25.termFactor(N, pl.df(), 0d, 0d, 1d, 1d);
+
+			// sorting (LEVELS - level, doc) pairs puts the highest levels first, their documents in increasing order
+			long[] keys = new long[pl.df()];
+			for (int j = 0; j < pl.df(); j++) {
+				double impact = idf * BM25.docFactor(pl.tfs[j], docTable.getDocLength(pl.docs[j]), avdl);
+				long level = Math.round(impact / impactIndex.quantum);
+				keys[j] = ((LEVELS - level) << 32) | pl.docs[j];
+			}
+			Arrays.sort(keys);
+
+			int[] docs = new int[keys.length];
+			short[] levels = new short[keys.length];
+			int[] starts = new int[keys.length + 1];
+			int segments = 0;
+			for (int j = 0; j < keys.length; j++) {
+				short level = (short) (LEVELS - (keys[j] >>> 32));
+				docs[j] = (int) keys[j];
+				if (segments == 0 || levels[segments - 1] != level) {
+					levels[segments] = level;
+					starts[segments++] = j;
+				}
+			}
+			starts[segments] = keys.length;
+			impactIndex.postings.put(term, new ImpactPostings(Arrays.copyOf(levels, segments),
+					Arrays.copyOf(starts, segments + 1), docs));
+		}
+		BUILD_TIME.stop(start);
+
+		return impactIndex;
+	}
+
+	/**
+	 * @param term is the term to look up
+	 * @return the postings of the term in impact order, NULL if it is not in the index
+	 */
+	ImpactPostings getPostings(String term) {
+		return postings.get(term);
+	}
+
+	/**
+	 * @return the impact of a single level, the impact of a posting being its level times this
+	 */
+	double getQuantum() {
+		return quantum;
+	}
+
+	public DocumentTable getDocTable() {
+		return docTable;
+	}
+
+	public int getTermCount() {
+		return postings.size();
+	}
+}
@@ -0,0 +1,66 @@
+package ir.algorithms.scoreAndRank;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class to store the profile of a single search, built only when it is asked for: for every query term that
+ * was scored, what it cost and how much it added to the score of every returned document. It shows which term, most
+ * often an expansion term, made a query slow or ranked its documents badly
+ * @author Surbhi Gupta
+ */
+public class QueryProfile {
+	public List<TermProfile> terms = new ArrayList<>();
+
+	/**
+	 * Utility class to store the profile of a single query term
+	 */
+	public static class TermProfile {
+		public String term;
+		public double weight;
+		public int df;
+		public long postingsBytes;		// a document number and a frequency per posting
+		public long nanos;				// time spent scoring the inverted list of the term
+		public int docsTouched;			// documents this term added a score to, in the filter if there is one
+		public double[] contributions;	// score added to every hit, in the order of the hits
+
+		TermProfile(String term, double weight, int df) {
+			this.term = term;
+			this.weight = weight;
+			this.df = df;
+			this.postingsBytes = 8L * df;
+		}
+	}
+
+	/**
+	 * The method to write the profile as a table, a row per term and a column per hit
+	 * @param hits is the hits of the profiled search
+	 * @return the profile as text
+	 */
+	public String explain(List<DocScore> hits) {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(String.format("%-20s %6s %7s %10s %10s %8s", "term", "weight", "df", "bytes", "ms", "touched"));
+		for (DocScore ds : hits) {
+			sb.append(String.format(" %10s", ds.docID));
+		}
+		sb.append(String.format("%n"));
+
+		for (TermProfile tp : terms) {
+			sb.append(String.format("%-20s %6.2f %7d %10d %10.3f %8d", tp.term, tp.weight, tp.df, tp.postingsBytes,
+					tp.nanos / 1e6, tp.docsTouched));
+			for (double c : tp.contributions) {
+				sb.append(String.format(" %10.4f", c));
+			}
+			sb.append(String.format("%n"));
+		}
+
+		sb.append(String.format("%-20s %6s %7s %10s %10s %8s", "score", "", "", "", "", ""));
+		for (DocScore ds : hits) {
+			sb.append(String.format(" %10.4f", ds.docScore));
+		}
+		sb.append(String.format("%n"));
+
+		return sb.toString();
+	}
+}
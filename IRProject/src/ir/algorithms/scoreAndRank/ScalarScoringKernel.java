@@ -0,0 +1,21 @@
+package ir.algorithms.scoreAndRank;
+
+/**
+ * The scoring kernel computing one contribution at a time, exactly as BM25.termFactor * BM25.docFactor does
+ * @author Surbhi Gupta
+ */
+class ScalarScoringKernel implements ScoringKernel {
+	@Override
+	public void contributions(int[] docs, int[] tfs, int from, int to, double[] docNorms, double k1,
+							  double termFactor, double[] out) {
+		for (int j = from; j < to; j++) {
+			double fi = tfs[j];
+			out[j - from] = termFactor * (((k1 + 1) * fi) / (docNorms[docs[j]] + fi));
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "scalar";
+	}
+}
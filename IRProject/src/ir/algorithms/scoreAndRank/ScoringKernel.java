@@ -0,0 +1,63 @@
+package ir.algorithms.scoreAndRank;
+
+import ir.algorithms.indexer.DocumentTable;
+
+/**
+ * an interface for the inner loop of BM25 scoring: the contribution of a term to every document of a block of its
+ * postings, termFactor * ((k1 + 1) * tf) / (K + tf), with K the length normalization of the document precomputed for
+ * every document of the corpus. The kernel is the SIMD one when the JVM runs with the incubating Vector API, i.e.
+ * with --add-modules jdk.incubator.vector, and the scalar one otherwise or when -Dir.scoring.vector=false
+ * @author Surbhi Gupta
+ */
+public interface ScoringKernel {
+	int BLOCK_SIZE = 256;				// postings whose contributions are computed at once
+	double EPSILON = 1e-12;				// the largest relative difference allowed from the scalar contributions
+
+	ScoringKernel SCALAR = new ScalarScoringKernel();
+	ScoringKernel DEFAULT = load();
+
+	/**
+	 * The method to compute the contributions of a term to the documents of a block of its postings
+	 * @param docs is the document numbers of the postings
+	 * @param tfs is the frequencies of the term in the documents of the postings
+	 * @param from is the first posting of the block
+	 * @param to is the posting after the last one of the block, at most from + BLOCK_SIZE
+	 * @param docNorms is the length normalization K of every document of the corpus
+	 * @param k1 is the k1 parameter of BM25 the normalizations were computed with
+	 * @param termFactor is the document independent factor of the score of the term
+	 * @param out is where the contribution of posting from + i is written, at index i
+	 */
+	void contributions(int[] docs, int[] tfs, int from, int to, double[] docNorms, double k1, double termFactor,
+					   double[] out);
+
+	String getName();
+
+	/**
+	 * The method to compute the length normalization K of every document of an index, with the default parameters
+	 * @param docTable is the table of all the documents of the index
+	 * @param avdl is the average document length the documents are scored with
+	 * @return the normalization of every document, indexed by document number
+	 */
+	static double[] docNorms(DocumentTable docTable, double avdl) {
+		double[] norms = new double[docTable.getDocCount()];
+		for (int doc = 0; doc < norms.length; doc++) {
+			norms[doc] = BM25.docNorm(docTable.getDocLength(doc), avdl, BM25Parameters.DEFAULT);
+		}
+		return norms;
+	}
+
+	/**
+	 * The method to load the SIMD kernel, compiled apart from the rest of the project for the Java versions that
+	 * have the Vector API, falling back to the scalar kernel if it or the Vector API is missing
+	 * @return the fastest kernel this JVM can run
+	 */
+	static ScoringKernel load() {
+		if (!Boolean.parseBoolean(System.getProperty("ir.scoring.vector", "true"))) return SCALAR;
+		try {
+			return (ScoringKernel) Class.forName("ir.algorithms.scoreAndRank.VectorScoringKernel")
+					.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return SCALAR;
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package ir.algorithms.scoreAndRank;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The position of the last document of a page of results, the score and id of the document, handed to the client as
+ * an opaque string so that it can ask for the page after it. Results are ordered by decreasing score, then by
+ * increasing document number, so the position of a document is enough to find the ones ranked after it
+ * @author Surbhi Gupta
+ */
+public class SearchCursor {
+	private static final char SEPARATOR = ':';
+
+	public final double score;
+	public final String docID;
+
+	public SearchCursor(double score, String docID) {
+		this.score = score;
+		this.docID = docID;
+	}
+
+	/**
+	 * @return the cursor as an opaque string safe to be used in a URL
+	 */
+	public String encode() {
+		String text = Long.toHexString(Double.doubleToLongBits(score)) + SEPARATOR + docID;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * The method to read a cursor back from the string it was encoded to
+	 * @param cursor is the encoded cursor
+	 * @return the decoded cursor
+	 * @throws IllegalArgumentException if the string is not an encoded cursor
+	 */
+	public static SearchCursor decode(String cursor) {
+		String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		int sep = text.indexOf(SEPARATOR);
+		if (sep < 0) throw new IllegalArgumentException("Not a search cursor: " + cursor);
+
+		return new SearchCursor(Double.longBitsToDouble(Long.parseUnsignedLong(text.substring(0, sep), 16)),
+				text.substring(sep + 1));
+	}
+}
@@ -0,0 +1,26 @@
+package ir.algorithms.scoreAndRank;
+
+import java.util.List;
+
+/**
+ * Utility class to store the result of a single search: the top scored documents, their snippets if they were asked
+ * for, the time the query spent in every stage of the search, its profile if it was asked for, and the cursor to get
+ * the page of results after it
+ * @author Surbhi Gupta
+ */
+public class SearchResult {
+	public List<DocScore> hits;
+	public List<String> snippets;	// one per hit, NULL if snippets were not asked for
+	public long[] stageNanos;		// indexed by SearchStage.ordinal()
+	public QueryProfile profile;	// NULL if the search was not profiled
+	public String nextCursor;		// the encoded SearchCursor of the next page, NULL if this page is the last one
+
+	public SearchResult(List<DocScore> hits, List<String> snippets, long[] stageNanos, QueryProfile profile,
+						String nextCursor) {
+		this.hits = hits;
+		this.snippets = snippets;
+		this.stageNanos = stageNanos;
+		this.profile = profile;
+		this.nextCursor = nextCursor;
+	}
+}
@@ -0,0 +1,13 @@
+package ir.algorithms.scoreAndRank;
+
+/**
+ * The stages a query goes through in the Searcher, in the order it goes through them
+ * @author Surbhi Gupta
+ */
+public enum SearchStage {
+	EXPANSION,
+	POSTINGS_FETCH,
+	SCORING,
+	TOP_K,
+	SNIPPET
+}
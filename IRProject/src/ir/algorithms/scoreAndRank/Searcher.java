@@ -0,0 +1,476 @@
+package ir.algorithms.scoreAndRank;
+
+import ir.algorithms.indexer.DocumentTable;
+import ir.algorithms.indexer.PostingList;
+import ir.algorithms.indexer.SearchIndex;
+import ir.algorithms.indexer.TermStatistics;
+import ir.algorithms.snippet.SnippetGenerator;
+import ir.algorithms.suggest.FuzzyExpander;
+import ir.commons.DocBitmap;
+import ir.commons.SearchQuery;
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Histogram;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The searcher that runs one query at a time against an index held in memory or opened from a snapshot, going
+ * through query expansion, postings fetch, BM25 scoring, top k selection and snippet generation, and timing every one
+ * of these stages.
+ * There is no relevance information for the queries it runs. It is safe to use from many threads at once
+ * @author Surbhi Gupta
+ */
+public class Searcher {
+	private static final Timer QUERY_TIME = Metrics.timer("search.query");
+	private static final Timer[] STAGE_TIMES = new Timer[SearchStage.values().length];
+	private static final Histogram TERMS_PER_QUERY = Metrics.histogram("search.terms.per.query");
+	private static final Counter POSTINGS_BYTES_READ = Metrics.counter("search.postings.bytes.read");
+	private static final Counter CANDIDATES_SCORED = Metrics.counter("search.candidates.scored");
+
+	static {
+		for (SearchStage stage : SearchStage.values()) {
+			STAGE_TIMES[stage.ordinal()] = Metrics.timer("search.stage." + stage.name().toLowerCase());
+		}
+	}
+
+	private final SearchIndex index;
+	private final TermStatistics termStats;				// the collection statistics the documents are scored with
+	private final ThesaurusAndOntology thesaurus;		// NULL to search without query expansion
+	private final long expansionPostingBudget;
+	private final FuzzyExpander fuzzyExpander;			// NULL to leave the terms missing from the index unmatched
+	private final SnippetGenerator snippetGenerator;	// NULL if snippets are never asked for
+	private final ThreadLocal<BM25.ScoreAccumulator> scratch;	// reused by every query of a thread
+	private final ScoringKernel kernel = ScoringKernel.DEFAULT;
+	private final double[] docNorms;					// the length normalization of every document
+
+	public Searcher(SearchIndex index, ThesaurusAndOntology thesaurus, long expansionPostingBudget,
+					SnippetGenerator snippetGenerator) {
+		this(index, index.getTermStatistics(), thesaurus, expansionPostingBudget, snippetGenerator);
+	}
+
+	/**
+	 * The constructor of a searcher scoring the documents of its index with the statistics of a larger collection,
+	 * e.g. a shard of an index scoring with the statistics of the whole index, so that its scores are the ones the
+	 * whole index would give
+	 * @param index is the index the queries are run against
+	 * @param termStats is the statistics of the collection the index is part of
+	 * @param thesaurus is the thesaurus expanding the queries, NULL to search without query expansion
+	 * @param expansionPostingBudget is the maximum number of postings an expanded query may have to evaluate
+	 * @param snippetGenerator is the generator of the snippets, NULL if snippets are never asked for
+	 */
+	public Searcher(SearchIndex index, TermStatistics termStats, ThesaurusAndOntology thesaurus,
+					long expansionPostingBudget, SnippetGenerator snippetGenerator) {
+		this(index, termStats, thesaurus, expansionPostingBudget, snippetGenerator, null);
+	}
+
+	/**
+	 * The constructor of a searcher that also matches the query terms missing from its index to the terms a few
+	 * edits away from them
+	 * @param index is the index the queries are run against
+	 * @param termStats is the statistics of the collection the index is part of
+	 * @param thesaurus is the thesaurus expanding the queries, NULL to search without query expansion
+	 * @param expansionPostingBudget is the maximum number of postings an expanded query may have to evaluate
+	 * @param snippetGenerator is the generator of the snippets, NULL if snippets are never asked for
+	 * @param fuzzyExpander is the expander of the misspelled terms, NULL to leave them unmatched
+	 */
+	public Searcher(SearchIndex index, TermStatistics termStats, ThesaurusAndOntology thesaurus,
+					long expansionPostingBudget, SnippetGenerator snippetGenerator, FuzzyExpander fuzzyExpander) {
+		this.index = index;
+		this.termStats = termStats;
+		this.thesaurus = thesaurus;
+		this.expansionPostingBudget = expansionPostingBudget;
+		this.fuzzyExpander = fuzzyExpander;
+		this.snippetGenerator = snippetGenerator;
+		this.scratch = ThreadLocal.withInitial(() -> new BM25.ScoreAccumulator(index.getDocTable().getDocCount()));
+		this.docNorms = ScoringKernel.docNorms(index.getDocTable(), termStats.getAverageDocLength());
+	}
+
+	/**
+	 * The method to search for a query and return its top k documents
+	 * @param query is the query to be searched, it is not modified by the expansion
+	 * @param k is the maximum number of documents to be returned
+	 * @param withSnippets is TRUE if the snippet of every returned document has to be generated
+	 * @return the top k documents, their snippets and the time spent in every stage
+	 * @throws IOException
+	 */
+	public SearchResult search(SearchQuery query, int k, boolean withSnippets) throws IOException {
+		return search(query, k, withSnippets, false);
+	}
+
+	/**
+	 * The method to search for a query and return its top k documents, along with the profile of the search if it is
+	 * asked for. A search that is not profiled only pays for a few branches on the profile flag
+	 * @param query is the query to be searched, it is not modified by the expansion
+	 * @param k is the maximum number of documents to be returned
+	 * @param withSnippets is TRUE if the snippet of every returned document has to be generated
+	 * @param profile is TRUE if the cost and score contribution of every query term has to be returned
+	 * @return the top k documents, their snippets, the time spent in every stage and the profile
+	 * @throws IOException
+	 */
+	public SearchResult search(SearchQuery query, int k, boolean withSnippets, boolean profile) throws IOException {
+		return search(query, k, null, withSnippets, profile);
+	}
+
+	/**
+	 * The method to search for a query and return the page of its k best documents ranked after the given cursor.
+	 * Only the documents after the cursor are admitted to the top k selection, so a deep page costs about the same
+	 * as the first one, with no need to collect and sort all the documents of the pages before it
+	 * @param query is the query to be searched, it is not modified by the expansion
+	 * @param k is the maximum number of documents to be returned
+	 * @param after is the cursor of the previous page, NULL for the first page
+	 * @param withSnippets is TRUE if the snippet of every returned document has to be generated
+	 * @param profile is TRUE if the cost and score contribution of every query term has to be returned
+	 * @return the page of documents, their snippets, the time spent in every stage, the profile and the next cursor
+	 * @throws IOException
+	 * @throws IllegalArgumentException if k is less than 1 or the cursor is of a document that is not in the index
+	 */
+	public SearchResult search(SearchQuery query, int k, SearchCursor after, boolean withSnippets, boolean profile)
+			throws IOException {
+		if (k < 1) throw new IllegalArgumentException("k must be at least 1: " + k);
+		long[] stageNanos = new long[SearchStage.values().length];
+		long queryStart = System.nanoTime();
+		CompiledQuery cq = compile(query, stageNanos);
+		long start = System.nanoTime();
+
+		DocumentTable docTable = index.getDocTable();
+		double avdl = termStats.getAverageDocLength();
+		BM25.ScoreAccumulator acc = scratch.get();
+		QueryProfile queryProfile = (profile ? new QueryProfile() : null);
+		for (int t = 0; t < cq.terms.length; t++) {
+			long termStart = (profile ? System.nanoTime() : 0L);
+			int touched = scoreTerm(cq, t, acc, docTable, avdl);
+
+			if (profile) {
+				QueryProfile.TermProfile tp = new QueryProfile.TermProfile(cq.terms[t], cq.weights[t],
+						cq.postings[t].df());
+				tp.nanos = System.nanoTime() - termStart;
+				tp.docsTouched = touched;
+				queryProfile.terms.add(tp);
+			}
+		}
+		CANDIDATES_SCORED.add(acc.size);
+		start = endStage(stageNanos, SearchStage.SCORING, start);
+
+		double afterScore = Double.POSITIVE_INFINITY;
+		int afterDoc = -1;
+		if (after != null) {
+			afterScore = after.score;
+			afterDoc = docTable.getDocNumber(after.docID);
+			if (afterDoc < 0) {
+				acc.reset();
+				throw new IllegalArgumentException("Cursor of an unknown document: " + after.docID);
+			}
+		}
+		double[] scores = acc.scores;
+		int[] top = selectTopK(scores, acc.touched, acc.size, k, afterScore, afterDoc);
+		List<DocScore> hits = new ArrayList<>();
+		for (int doc : top) {
+			DocScore ds = new DocScore();
+			ds.docID = docTable.getDocID(doc);
+			ds.docScore = scores[doc];
+			ds.docLength = docTable.getDocLength(doc);
+			hits.add(ds);
+		}
+		acc.reset();
+		start = endStage(stageNanos, SearchStage.TOP_K, start);
+
+		if (profile) {
+			// the contributions are looked up again for the few hits, rather than kept for every scored document
+			for (int t = 0; t < cq.terms.length; t++) {
+				PostingList pl = cq.postings[t];
+				double[] contributions = new double[top.length];
+				for (int h = 0; h < top.length; h++) {
+					int j = Arrays.binarySearch(pl.docs, top[h]);
+					if (j >= 0)
+						contributions[h] = cq.termFactors[t] * BM25.docFactor(pl.tfs[j], docTable.getDocLength(top[h]),
+								avdl);
+				}
+				queryProfile.terms.get(t).contributions = contributions;
+			}
+		}
+
+		List<String> snippets = null;
+		if (withSnippets && snippetGenerator != null) {
+			snippets = new ArrayList<>();
+			for (DocScore ds : hits) {
+				snippets.add(snippetGenerator.getSnippet(cq.queryText, ds.docID));
+			}
+		}
+		endStage(stageNanos, SearchStage.SNIPPET, start);
+
+		QUERY_TIME.record(System.nanoTime() - queryStart);
+		for (int i = 0; i < stageNanos.length; i++) {
+			STAGE_TIMES[i].record(stageNanos[i]);
+		}
+		String nextCursor = null;
+		if (!hits.isEmpty() && hits.size() == k) {
+			DocScore last = hits.get(hits.size() - 1);
+			nextCursor = new SearchCursor(last.docScore, last.docID).encode();
+		}
+		return new SearchResult(hits, snippets, stageNanos, queryProfile, nextCursor);
+	}
+
+	/**
+	 * The method to compile a query once, so that it can be run many times by the steady state search method
+	 * @param query is the query to be compiled, it is not modified by the expansion
+	 * @return the compiled query
+	 */
+	public CompiledQuery compile(SearchQuery query) {
+		return compile(query, new long[SearchStage.values().length]);
+	}
+
+	/**
+	 * The method to expand a query, fetch the inverted lists of its terms and compute the document independent
+	 * factors of their scores, timing the expansion and the postings fetch stages
+	 * @param query is the query to be compiled, it is not modified by the expansion
+	 * @param stageNanos is the time spent in every stage, added to
+	 * @return the compiled query
+	 */
+	private CompiledQuery compile(SearchQuery query, long[] stageNanos) {
+		long start = System.nanoTime();
+		SearchQuery q = new SearchQuery(query.id, query.queryText);
+		q.surfaceText = query.surfaceText;
+		q.termWeights.putAll(query.termWeights);
+		q.filter = query.filter;
+		if (fuzzyExpander != null) {
+			fuzzyExpander.expandQuery(q);
+		}
+		if (thesaurus != null) {
+			thesaurus.expandQuery(q, termStats, expansionPostingBudget);
+		}
+		start = endStage(stageNanos, SearchStage.EXPANSION, start);
+
+		// the text is split once, counting the frequency of every term in the query on the way
+		Map<String, int[]> termCounts = new LinkedHashMap<>();
+		for (String word : q.queryText.split(" +")) {
+			termCounts.computeIfAbsent(word, w -> new int[1])[0]++;
+		}
+
+		List<String> terms = new ArrayList<>();
+		List<PostingList> postings = new ArrayList<>();
+		for (String term : termCounts.keySet()) {
+			// expansion terms weighted too low to matter are pruned before their postings are fetched
+			if (q.getTermWeight(term) < BM25.MIN_TERM_WEIGHT) continue;
+
+			PostingList pl = index.getPostings(term);
+			if (pl != null) {
+				terms.add(term);
+				postings.add(pl);
+				POSTINGS_BYTES_READ.add(8L * pl.df());		// a document number and a frequency per posting
+			}
+		}
+		TERMS_PER_QUERY.record(terms.size());
+
+		int N = termStats.getDocCount();
+		double[] weights = new double[terms.size()];
+		int[] qfs = new int[terms.size()];
+		double[] termFactors = new double[terms.size()];
+		for (int t = 0; t < terms.size(); t++) {
+			String term = terms.get(t);
+			weights[t] = q.getTermWeight(term);
+			qfs[t] = termCounts.get(term)[0];
+			termFactors[t] = BM25.termFactor(N, termStats.df(term), 0d, 0d, qfs[t], weights[t]);
+		}
+		CompiledQuery cq = new CompiledQuery(q.id, q.queryText, terms.toArray(new String[0]),
+				postings.toArray(new PostingList[0]), weights, qfs, termFactors, q.filter);
+		endStage(stageNanos, SearchStage.POSTINGS_FETCH, start);
+
+		return cq;
+	}
+
+	/**
+	 * The method to add the scores of a term of a compiled query to the documents that have it
+	 * @param cq is the compiled query
+	 * @param t is the number of the term in the compiled query
+	 * @param acc is the accumulator of the scores of the query
+	 * @param docTable is the table of all the documents of the index
+	 * @param avdl is the average document length the documents are scored with
+	 * @return the number of documents the term added a score to, those outside the filter being left out
+	 */
+	private int scoreTerm(CompiledQuery cq, int t, BM25.ScoreAccumulator acc, DocumentTable docTable, double avdl) {
+		PostingList pl = cq.postings[t];
+		double termFactor = cq.termFactors[t];
+		DocBitmap filter = cq.filter;
+		int[] filterDocs = cq.filterDocs;
+		int scored = 0;
+
+		if (filterDocs != null && filterDocs.length < pl.df()) {
+			// the filter is more selective than the term: walk the filter and gallop through the postings
+			int j = 0;
+			for (int doc : filterDocs) {
+				j = pl.advance(j, doc);
+				if (j == pl.df()) break;
+				if (pl.docs[j] == doc) {
+					acc.add(doc, termFactor * BM25.docFactor(pl.tfs[j], docTable.getDocLength(doc), avdl));
+					scored++;
+				}
+			}
+		} else if (filter != null) {
+			for (int j = 0; j < pl.docs.length; j++) {
+				int doc = pl.docs[j];
+				if (!filter.contains(doc)) continue;
+				acc.add(doc, termFactor * BM25.docFactor(pl.tfs[j], docTable.getDocLength(doc), avdl));
+				scored++;
+			}
+		} else {
+			// the contributions of a whole block are computed at once, in SIMD lanes if the kernel has them
+			double[] block = acc.block;
+			for (int from = 0; from < pl.docs.length; from += ScoringKernel.BLOCK_SIZE) {
+				int to = Math.min(from + ScoringKernel.BLOCK_SIZE, pl.docs.length);
+				kernel.contributions(pl.docs, pl.tfs, from, to, docNorms, BM25Parameters.DEFAULT.k1, termFactor, block);
+				for (int j = from; j < to; j++) {
+					acc.add(pl.docs[j], block[j - from]);
+				}
+			}
+			scored = pl.docs.length;
+		}
+		return scored;
+	}
+
+	/**
+	 * The method to run a compiled query and write its top k documents in the given arrays. It is the steady state
+	 * path of the searcher: the scores are accumulated in the scratch buffers of the calling thread, cleared after
+	 * every query at the cost of the documents it touched, so once they have grown to the largest query it allocates
+	 * nothing. There are no snippets, no profile and no stage timings
+	 * @param cq is the query, compiled by this searcher
+	 * @param k is the maximum number of documents to be returned
+	 * @param docs is where the numbers of the top documents are written, best first, at least k long
+	 * @param scores is where the scores of the top documents are written, in the same order, at least k long
+	 * @return the number of documents written
+	 * @throws IllegalArgumentException if k is less than 1
+	 */
+	public int search(CompiledQuery cq, int k, int[] docs, double[] scores) {
+		if (k < 1) throw new IllegalArgumentException("k must be at least 1: " + k);
+		long queryStart = System.nanoTime();
+		DocumentTable docTable = index.getDocTable();
+		double avdl = termStats.getAverageDocLength();
+		BM25.ScoreAccumulator acc = scratch.get();
+
+		for (int t = 0; t < cq.terms.length; t++) {
+			scoreTerm(cq, t, acc, docTable, avdl);
+		}
+		CANDIDATES_SCORED.add(acc.size);
+
+		int count = selectTopK(acc.scores, acc.touched, acc.size, k, Double.POSITIVE_INFINITY, -1, docs);
+		for (int i = 0; i < count; i++) {
+			scores[i] = acc.scores[docs[i]];
+		}
+		acc.reset();
+		QUERY_TIME.record(System.nanoTime() - queryStart);
+
+		return count;
+	}
+
+	/**
+	 * The method to select the k best scored documents with a bounded heap, the worst kept document at its root
+	 * @param scores is the score of every document
+	 * @param docs is the documents that were scored
+	 * @param size is the number of documents that were scored
+	 * @param k is the number of documents to be selected
+	 * @return the selected documents, best first, ties in the order of the document numbers
+	 */
+	static int[] selectTopK(double[] scores, int[] docs, int size, int k) {
+		return selectTopK(scores, docs, size, k, Double.POSITIVE_INFINITY, -1);
+	}
+
+	/**
+	 * The method to select the k best scored documents ranked strictly after the given position
+	 * @param scores is the score of every document
+	 * @param docs is the documents that were scored
+	 * @param size is the number of documents that were scored
+	 * @param k is the number of documents to be selected
+	 * @param afterScore is the score of the document the selection starts after, +infinity to start from the best
+	 * @param afterDoc is the number of the document the selection starts after
+	 * @return the selected documents, best first, ties in the order of the document numbers
+	 */
+	static int[] selectTopK(double[] scores, int[] docs, int size, int k, double afterScore, int afterDoc) {
+		int[] top = new int[Math.min(k, size)];
+		int count = selectTopK(scores, docs, size, k, afterScore, afterDoc, top);
+		return (count == top.length ? top : Arrays.copyOf(top, count));
+	}
+
+	/**
+	 * The method to select the k best scored documents ranked strictly after the given position, in the given array
+	 * @param scores is the score of every document
+	 * @param docs is the documents that were scored
+	 * @param size is the number of documents that were scored
+	 * @param k is the number of documents to be selected
+	 * @param afterScore is the score of the document the selection starts after, +infinity to start from the best
+	 * @param afterDoc is the number of the document the selection starts after
+	 * @param heap is where the selected documents are written, best first, ties in the order of the document numbers,
+	 *             at least min(k, size) long
+	 * @return the number of selected documents
+	 */
+	static int selectTopK(double[] scores, int[] docs, int size, int k, double afterScore, int afterDoc,
+						  int[] heap) {
+		int capacity = Math.min(k, size);
+		int heapSize = 0;
+
+		for (int i = 0; i < size; i++) {
+			int doc = docs[i];
+			if (scores[doc] > afterScore || (scores[doc] == afterScore && doc <= afterDoc)) continue;
+
+			if (heapSize < capacity) {
+				heap[heapSize] = doc;
+				siftUp(heap, heapSize++, scores);
+			} else if (heapSize > 0 && isBetter(doc, heap[0], scores)) {
+				heap[0] = doc;
+				siftDown(heap, heapSize, scores);
+			}
+		}
+
+		// popping the worst document to the end of the heap, as heapsort does, leaves the best one first
+		int count = heapSize;
+		while (heapSize > 1) {
+			int worst = heap[0];
+			heap[0] = heap[--heapSize];
+			heap[heapSize] = worst;
+			siftDown(heap, heapSize, scores);
+		}
+		return count;
+	}
+
+	private static boolean isBetter(int doc1, int doc2, double[] scores) {
+		return scores[doc1] > scores[doc2] || (scores[doc1] == scores[doc2] && doc1 < doc2);
+	}
+
+	private static void siftUp(int[] heap, int i, double[] scores) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!isBetter(heap[parent], heap[i], scores)) break;
+			int tmp = heap[parent]; heap[parent] = heap[i]; heap[i] = tmp;
+			i = parent;
+		}
+	}
+
+	private static void siftDown(int[] heap, int size, double[] scores) {
+		int i = 0;
+		while (true) {
+			int worst = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+			if (left < size && isBetter(heap[worst], heap[left], scores)) worst = left;
+			if (right < size && isBetter(heap[worst], heap[right], scores)) worst = right;
+			if (worst == i) return;
+			int tmp = heap[worst]; heap[worst] = heap[i]; heap[i] = tmp;
+			i = worst;
+		}
+	}
+
+	private static long endStage(long[] stageNanos, SearchStage stage, long stageStart) {
+		long now = System.nanoTime();
+		stageNanos[stage.ordinal()] += now - stageStart;
+		return now;
+	}
+
+	public SearchIndex getIndex() {
+		return index;
+	}
+}
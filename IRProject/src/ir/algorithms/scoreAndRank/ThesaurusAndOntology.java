@@ -4,29 +4,57 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import edu.smu.tspell.wordnet.Synset;
 import edu.smu.tspell.wordnet.WordNetDatabase;
+import ir.algorithms.indexer.TermStatistics;
 import ir.commons.SearchQuery;
 import ir.commons.Utils;
+import ir.commons.analysis.AnalysisChain;
+import ir.commons.metrics.Histogram;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
 
 /**
  * @author Surbhi Gupta
  */
 public class ThesaurusAndOntology {
 	private static final int NUM_SYNONYMS_TO_ADD = 20;
+	private static final double EXPANSION_TERM_WEIGHT = 0.5d;	// weight of the best expansion term of a query
 	private static final String WORDNET_DB_PATH = "wordnet.database.dir";
 	private static final String WORDNET_DICT_PATH = "WordNet-3.0/dict";
 	private static final String[] relevantDomains = {"(computer science)", "(electronics)", "(communication theory)",
 			"(digital communication)", "(computing)"};
 
+	private static final Histogram TERMS_PER_EXPANDED_QUERY = Metrics.histogram("expansion.terms.per.query");
+	private static final Timer EXPANSION_TIME = Metrics.timer("expansion.query");
+
 	private Set<String> stopWords;
+	private final AnalysisChain analysis;		// of the index the queries are run against, applied to the expansions
+	// the WordNet lookups of every term seen so far, so that a term is looked up once however many queries have it
+	private final Map<String, Set<String>> expansionTable = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> synonymTable = new ConcurrentHashMap<>();
 
 	public ThesaurusAndOntology(String stopListFile) throws IOException {
+		this(stopListFile, AnalysisChain.STANDARD);
+	}
+
+	/**
+	 * @param stopListFile is the relative path to the stop list, a word per line
+	 * @param analysis is the analysis chain of the index, the stop words and the expansion words are turned into its
+	 * terms, the query words being looked up as they were written
+	 * @throws IOException
+	 */
+	public ThesaurusAndOntology(String stopListFile, AnalysisChain analysis) throws IOException {
+		this.analysis = analysis;
 		stopWords = new HashSet<>();
 
 		File stopWordsFile = new File(stopListFile);
@@ -35,6 +63,7 @@ public class ThesaurusAndOntology {
 			while ((line = br.readLine()) != null) {
 				String[] words = line.split(" ");
 				stopWords.add(words[0]);
+				stopWords.add(analysis.filter(words[0]));
 			}
 		}
 	}
@@ -49,23 +78,9 @@ public class ThesaurusAndOntology {
 		System.out.println("Expanding queries...");
 
 		for (SearchQuery sq : queries) {
-			Set<String> totalExpansionWords = new HashSet<>();
+			Set<String> totalExpansionWords = getCandidateExpansionWords(sq);
 			String expansionString = "";
 
-			String[] qTerms = sq.queryText.split(" ");
-
-			for (String qTerm : qTerms) {
-				Set<String> expansionWords = new HashSet<>();
-				if (!stopWords.contains(qTerm))
-					expansionWords = getExpansionWords(qTerm);
-				totalExpansionWords.addAll(expansionWords.stream().filter(e -> !stopWords.contains(e)).collect(Collectors.toList()));
-			}
-
-			if (totalExpansionWords.isEmpty()) {
-				Set<String> expansionTerms = getSynonyms(sq);
-				totalExpansionWords.addAll(expansionTerms.stream().filter(e -> !stopWords.contains(e)).collect(Collectors.toList()));
-			}
-
 			int k = 0;
 			for (String words : totalExpansionWords) {
 				if (k < NUM_SYNONYMS_TO_ADD)
@@ -74,11 +89,119 @@ public class ThesaurusAndOntology {
 			}
 
 			sq.setQueryText(sq.queryText.trim() + " " + expansionString.trim());
+			TERMS_PER_EXPANDED_QUERY.record(sq.queryText.split(" +").length);
 		}
 		
 		return queries;
 	}
 
+	/**
+	 * The method to expand the individual queries with the synonyms of its non-stop terms that give the most score
+	 * per posting, without letting the postings of all the query terms exceed the given budget. Each expansion term
+	 * is weighted relative to the best one picked for the query, so that BM25 can down-weight or prune it
+	 * @param queries is the list of SearchQuery objects representing the original ones without any modification
+	 * @param stats is the statistics of the index the expanded queries will be run against
+	 * @param postingBudget is the maximum number of postings a single expanded query may have to evaluate
+	 * @return the same list of SearchQuery expanded with the selected synonyms and their weights
+	 */
+	public List<SearchQuery> getExpandedQueries_THR(List<SearchQuery> queries, TermStatistics stats, long postingBudget)
+	{
+		System.out.println("Expanding queries within a budget of " + postingBudget + " postings per query...");
+
+		for (SearchQuery sq : queries) {
+			expandQuery(sq, stats, postingBudget);
+		}
+
+		return queries;
+	}
+
+	/**
+	 * The method to expand a single query with the synonyms of its non-stop terms that give the most score per
+	 * posting, without letting the postings of all the query terms exceed the given budget
+	 * @param sq is the SearchQuery to be expanded, its text and term weights are updated
+	 * @param stats is the statistics of the index the expanded query will be run against
+	 * @param postingBudget is the maximum number of postings the expanded query may have to evaluate
+	 */
+	public void expandQuery(SearchQuery sq, TermStatistics stats, long postingBudget) {
+		long start = EXPANSION_TIME.start();
+		Set<String> qTermSet = new HashSet<>(Arrays.asList(sq.queryText.split(" +")));
+		long cost = 0;
+		for (String qTerm : qTermSet) {
+			cost += stats.df(qTerm);
+		}
+
+		// rank the candidates by the score they can add per posting they cost, cheapest first on a tie,
+		// then alphabetically so that the order does not depend on the order of the set
+		List<String> candidates = new ArrayList<>();
+		for (String word : getCandidateExpansionWords(sq)) {
+			if (!qTermSet.contains(word) && stats.df(word) > 0 && stats.maxScore(word) > 0)
+				candidates.add(word);
+		}
+		candidates.sort((t1, t2) -> {
+			int c = Double.compare(stats.maxScore(t2) / stats.df(t2), stats.maxScore(t1) / stats.df(t1));
+			if (c == 0) c = Integer.compare(stats.df(t1), stats.df(t2));
+			return (c != 0 ? c : t1.compareTo(t2));
+		});
+
+		List<String> selected = new ArrayList<>();
+		double bestScore = 0d;
+		for (String word : candidates) {
+			if (selected.size() == NUM_SYNONYMS_TO_ADD) break;
+			if (cost + stats.df(word) > postingBudget) continue;
+
+			cost += stats.df(word);
+			selected.add(word);
+			bestScore = Math.max(bestScore, stats.maxScore(word));
+		}
+
+		StringBuilder expansionString = new StringBuilder();
+		for (String word : selected) {
+			expansionString.append(' ').append(word);
+			sq.setTermWeight(word, EXPANSION_TERM_WEIGHT * stats.maxScore(word) / bestScore);
+		}
+
+		sq.setQueryText(sq.queryText.trim() + expansionString);
+		TERMS_PER_EXPANDED_QUERY.record(sq.queryText.split(" +").length);
+		EXPANSION_TIME.stop(start);
+	}
+
+	/**
+	 * The method to look up the expansion words of all the terms of the given queries ahead of time, so that
+	 * expanding them, or any query made of the same terms, does not touch WordNet again
+	 * @param queries is the list of SearchQuery objects whose terms are to be looked up
+	 */
+	public void preloadExpansionTable(List<SearchQuery> queries) {
+		for (SearchQuery sq : queries) {
+			getCandidateExpansionWords(sq);
+		}
+	}
+
+	/**
+	 * The method to collect all the candidate expansion words for the query: the words from the relevant domain
+	 * definitions of its terms, or all the synonyms of its terms if there are none
+	 * @param sq is the SearchQuery to be expanded
+	 * @return the set of non-stop candidate expansion words
+	 */
+	private Set<String> getCandidateExpansionWords(SearchQuery sq) {
+		Set<String> totalExpansionWords = new HashSet<>();
+
+		String[] qTerms = getSurfaceWords(sq);
+
+		for (String qTerm : qTerms) {
+			Set<String> expansionWords = new HashSet<>();
+			if (!stopWords.contains(qTerm))
+				expansionWords = lookUp(expansionTable, qTerm, true);
+			totalExpansionWords.addAll(expansionWords.stream().filter(e -> !stopWords.contains(e)).collect(Collectors.toList()));
+		}
+
+		if (totalExpansionWords.isEmpty()) {
+			Set<String> expansionTerms = getSynonyms(sq);
+			totalExpansionWords.addAll(expansionTerms.stream().filter(e -> !stopWords.contains(e)).collect(Collectors.toList()));
+		}
+
+		return totalExpansionWords;
+	}
+
 	/**
 	 * The method to find and return the set of synonyms of the query terms of the SearchQuery
 	 * @param sq is a SearchQuery whose synonyms are to be found
@@ -86,23 +209,63 @@ public class ThesaurusAndOntology {
      */
 	private Set<String> getSynonyms(SearchQuery sq) {
 		Set<String> words = new HashSet<>();
-		String query = sq.queryText;
-		String[] qTerms = query.split(" ");
+		String[] qTerms = getSurfaceWords(sq);
+
+		for(String qTerm : qTerms){
+			words.addAll(lookUp(synonymTable, qTerm, false));
+		}
+		return words;
+	}
+
+	/**
+	 * The method to return the words of a query as they were written, before its analysis chain turned them into
+	 * terms: WordNet only knows whole words, so they are what is looked up, and only the words found are analysed
+	 * @param sq is the SearchQuery whose words are to be looked up
+	 * @return the processed words of the query, its terms if it has no surface text
+	 */
+	private static String[] getSurfaceWords(SearchQuery sq) {
+		return (sq.surfaceText != null ? sq.surfaceText : sq.queryText).split(" ");
+	}
+
+	/**
+	 * The method to return the expansion words or the synonyms of a term from the given table, looking them up in
+	 * WordNet the first time the term is seen. WordNet lookups are not thread safe, so they are made one at a time
+	 * @param table is the table of the words already looked up
+	 * @param term is the word to be looked up
+	 * @param domainOnly is TRUE to look up the words from relevant domains, FALSE for all the synonyms
+	 * @return the set of words for this term
+	 */
+	private Set<String> lookUp(Map<String, Set<String>> table, String term, boolean domainOnly) {
+		Set<String> words = table.get(term);
+		if (words == null) {
+			synchronized (this) {
+				words = table.computeIfAbsent(term, t -> (domainOnly ? getExpansionWords(t) : getTermSynonyms(t)));
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * The method to find and return the set of synonyms of a single term
+	 * @param qTerm is the term whose synonyms are to be found
+	 * @return the set of non-stop synonyms of the term
+	 */
+	private Set<String> getTermSynonyms(String qTerm) {
+		Set<String> words = new HashSet<>();
+		System.setProperty(WORDNET_DB_PATH, WORDNET_DICT_PATH);
 
 		WordNetDatabase database = WordNetDatabase.getFileInstance();
 
-		for(String qTerm : qTerms){
-			Synset[] synonymSets = database.getSynsets(qTerm);
+		Synset[] synonymSets = database.getSynsets(qTerm);
 
-			if(synonymSets.length > 0){
-				for (Synset synonymSet : synonymSets) {
-					for (String synonyms : synonymSet.getWordForms()) {
-						String[] synonym = synonyms.split(" ");
+		if(synonymSets.length > 0){
+			for (Synset synonymSet : synonymSets) {
+				for (String synonyms : synonymSet.getWordForms()) {
+					String[] synonym = synonyms.split(" ");
 
-						for (String w : synonym) {
-							if (!stopWords.contains(w))
-								words.add(w);
-						}
+					for (String w : synonym) {
+						if (!stopWords.contains(w))
+							words.add(analysis.filter(w));
 					}
 				}
 			}
@@ -144,7 +307,7 @@ public class ThesaurusAndOntology {
 		for(String s : expansionTerms)
 		{
 			if(! stopWords.contains(s) && ! s.equals(""))
-				expansionWords.add(s);
+				expansionWords.add(analysis.filter(s));
 		}
 		return expansionWords;
 	}
@@ -0,0 +1,452 @@
+package ir.algorithms.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import ir.algorithms.booleanSearch.BooleanQuery;
+import ir.algorithms.booleanSearch.BooleanQueryParser;
+import ir.algorithms.booleanSearch.BooleanSearcher;
+import ir.algorithms.indexer.DocumentMetadata;
+import ir.algorithms.indexer.SearchIndex;
+import ir.algorithms.scoreAndRank.DocScore;
+import ir.algorithms.scoreAndRank.QueryProfile;
+import ir.algorithms.scoreAndRank.SearchCursor;
+import ir.algorithms.scoreAndRank.SearchResult;
+import ir.algorithms.scoreAndRank.SearchStage;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.algorithms.suggest.Autocompleter;
+import ir.algorithms.suggest.SpellChecker;
+import ir.algorithms.suggest.Suggestion;
+import ir.commons.DocBitmap;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+import ir.commons.analysis.AnalysisChain;
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The long running search service: it answers queries over HTTP from a Searcher whose index is already in memory, so
+ * that a request only pays for the query itself. The endpoints are
+ * /search?q=...&k=...&cursor=...&snippets=true|false&explain=true|false for a page of k documents as JSON, where
+ * the query may have metadata filters, e.g. q=parallel sorting year:1970..1975 author:knuth, and a first page of
+ * fewer than k documents comes with the query with its unknown terms corrected as did_you_mean, if there is one
+ * /boolean?q=...&k=... for the number and the first k of the documents matching a Boolean query as JSON,
+ * /suggest?q=...&k=... for the k terms starting with a prefix that occur in the most documents as JSON,
+ * /metrics for the metrics registry as text and /health for the state of the index.
+ * Every request is handled on its own virtual thread when the JVM has them, on a pool of threads otherwise
+ * @author Surbhi Gupta
+ */
+public class SearchServer {
+	private static final int DEFAULT_K = 10;
+	private static final int MAX_K = 1000;
+	private static final int FALLBACK_THREAD_COUNT = 4 * Runtime.getRuntime().availableProcessors();
+
+	private static final Counter REQUESTS = Metrics.counter("server.requests");
+	private static final Counter ERRORS = Metrics.counter("server.errors");
+	private static final Timer REQUEST_TIME = Metrics.timer("server.request");
+
+	private final Searcher searcher;
+	private final BooleanSearcher booleanSearcher;
+	private final Autocompleter autocompleter;
+	private final DocumentMetadata metadata;		// NULL if the queries cannot be filtered
+	private final SpellChecker spellChecker;		// NULL if the queries are not corrected
+	private final AnalysisChain analysis;			// of the index, the queries are analysed by it too
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final AtomicInteger nextQueryId = new AtomicInteger();
+
+	public SearchServer(Searcher searcher, DocumentMetadata metadata, int port) throws IOException {
+		this(searcher, metadata, null, port);
+	}
+
+	public SearchServer(Searcher searcher, DocumentMetadata metadata, SpellChecker spellChecker, int port)
+			throws IOException {
+		this(searcher, metadata, spellChecker, AnalysisChain.STANDARD, port);
+	}
+
+	public SearchServer(Searcher searcher, DocumentMetadata metadata, SpellChecker spellChecker,
+			AnalysisChain analysis, int port) throws IOException {
+		this.searcher = searcher;
+		this.analysis = analysis;
+		this.metadata = metadata;
+		this.spellChecker = spellChecker;
+		this.booleanSearcher = new BooleanSearcher(searcher.getIndex());
+		this.autocompleter = Autocompleter.build(searcher.getIndex().getDictionary(), Autocompleter.DEFAULT_MAX_K);
+		this.executor = newRequestExecutor();
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.setExecutor(executor);
+		server.createContext("/search", new Endpoint(this::search));
+		server.createContext("/boolean", new Endpoint(this::booleanSearch));
+		server.createContext("/suggest", new Endpoint(this::suggest));
+		server.createContext("/metrics", new Endpoint(params -> Metrics.toText()));
+		server.createContext("/health", new Endpoint(params -> health()));
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * The method to stop the server, letting the requests being answered finish for at most the given time
+	 * @param delaySeconds is the time the requests being answered are given to finish
+	 */
+	public void stop(int delaySeconds) {
+		server.stop(delaySeconds);
+		executor.shutdown();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * The method to create the executor of the requests: a virtual thread per request from Java 21 on, looked up by
+	 * reflection so that the server still builds and runs on older JVMs, with a fixed pool of threads
+	 * @return the executor of the requests
+	 */
+	static ExecutorService newRequestExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			return Executors.newFixedThreadPool(FALLBACK_THREAD_COUNT);
+		}
+	}
+
+	/**
+	 * The method to answer a query as JSON
+	 * @param params is the decoded parameters of the request
+	 * @return the hits of the query, with their snippets and its profile if they are asked for
+	 * @throws IOException
+	 */
+	private Response search(Map<String, String> params) throws IOException {
+		String queryText = params.get("q");
+		DocBitmap filter = null;
+		if (queryText != null && metadata != null) {
+			try {
+				filter = metadata.parseFilters(queryText);
+			} catch (IllegalArgumentException e) {
+				StringBuilder sb = new StringBuilder("{\"error\":");
+				appendString(sb, e.getMessage());
+				return Response.json(400, sb.append('}').toString());
+			}
+			queryText = DocumentMetadata.stripFilters(queryText);
+		}
+		String surfaceText = null;
+		if (queryText != null) {
+			surfaceText = Utils.processContent(queryText);
+			queryText = analysis.analyze(queryText).trim();
+		}
+		if (queryText == null || queryText.isEmpty())
+			return Response.json(400, "{\"error\":\"missing query parameter q\"}");
+
+		int k;
+		try {
+			k = (params.containsKey("k") ? Integer.parseInt(params.get("k")) : DEFAULT_K);
+		} catch (NumberFormatException e) {
+			return Response.json(400, "{\"error\":\"k is not a number\"}");
+		}
+		if (k < 1 || k > MAX_K)
+			return Response.json(400, "{\"error\":\"k must be between 1 and " + MAX_K + "\"}");
+
+		boolean withSnippets = Boolean.parseBoolean(params.get("snippets"));
+		boolean explain = Boolean.parseBoolean(params.get("explain"));
+		SearchQuery query = new SearchQuery(nextQueryId.incrementAndGet(), queryText);
+		query.surfaceText = surfaceText;
+		query.filter = filter;
+		SearchCursor after;
+		try {
+			after = (params.containsKey("cursor") ? SearchCursor.decode(params.get("cursor")) : null);
+		} catch (IllegalArgumentException e) {
+			return Response.json(400, "{\"error\":\"invalid cursor\"}");
+		}
+		if (after != null && searcher.getIndex().getDocTable().getDocNumber(after.docID) < 0)
+			return Response.json(400, "{\"error\":\"invalid cursor\"}");
+		SearchResult result = searcher.search(query, k, after, withSnippets, explain);
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"query\":");
+		appendString(sb, queryText);
+		sb.append(",\"k\":").append(k);
+
+		long totalNanos = 0;
+		sb.append(",\"stages_ms\":{");
+		for (SearchStage stage : SearchStage.values()) {
+			if (stage.ordinal() > 0) sb.append(',');
+			appendString(sb, stage.name().toLowerCase());
+			sb.append(':').append(result.stageNanos[stage.ordinal()] / 1e6);
+			totalNanos += result.stageNanos[stage.ordinal()];
+		}
+		sb.append("},\"took_ms\":").append(totalNanos / 1e6);
+
+		sb.append(",\"hits\":[");
+		for (int i = 0; i < result.hits.size(); i++) {
+			DocScore ds = result.hits.get(i);
+			if (i > 0) sb.append(',');
+			sb.append("{\"rank\":").append(i + 1).append(",\"docID\":");
+			appendString(sb, ds.docID);
+			sb.append(",\"score\":").append(ds.docScore);
+			if (result.snippets != null) {
+				sb.append(",\"snippet\":");
+				appendString(sb, result.snippets.get(i));
+			}
+			sb.append('}');
+		}
+		sb.append(']');
+
+		if (result.nextCursor != null) {
+			sb.append(",\"next_cursor\":");
+			appendString(sb, result.nextCursor);
+		}
+
+		if (spellChecker != null && result.hits.size() < k && !params.containsKey("cursor")) {
+			String correction = spellChecker.didYouMean(queryText);
+			if (correction != null) {
+				sb.append(",\"did_you_mean\":");
+				appendString(sb, correction);
+			}
+		}
+
+		if (result.profile != null) {
+			sb.append(",\"profile\":[");
+			for (int t = 0; t < result.profile.terms.size(); t++) {
+				QueryProfile.TermProfile tp = result.profile.terms.get(t);
+				if (t > 0) sb.append(',');
+				sb.append("{\"term\":");
+				appendString(sb, tp.term);
+				sb.append(",\"weight\":").append(tp.weight).append(",\"df\":").append(tp.df)
+						.append(",\"postings_bytes\":").append(tp.postingsBytes).append(",\"ms\":").append(tp.nanos / 1e6)
+						.append(",\"docs_touched\":").append(tp.docsTouched).append(",\"contributions\":[");
+				for (int h = 0; h < tp.contributions.length; h++) {
+					if (h > 0) sb.append(',');
+					sb.append(tp.contributions[h]);
+				}
+				sb.append("]}");
+			}
+			sb.append(']');
+		}
+		sb.append('}');
+
+		return Response.json(200, sb.toString());
+	}
+
+	/**
+	 * The method to answer a Boolean query as JSON
+	 * @param params is the decoded parameters of the request
+	 * @return the parsed query, the number of matching documents and the first k of them
+	 */
+	private Response booleanSearch(Map<String, String> params) {
+		String queryText = params.get("q");
+		if (queryText == null || queryText.trim().isEmpty())
+			return Response.json(400, "{\"error\":\"missing query parameter q\"}");
+
+		int k;
+		try {
+			k = (params.containsKey("k") ? Integer.parseInt(params.get("k")) : DEFAULT_K);
+		} catch (NumberFormatException e) {
+			return Response.json(400, "{\"error\":\"k is not a number\"}");
+		}
+		if (k < 1 || k > MAX_K)
+			return Response.json(400, "{\"error\":\"k must be between 1 and " + MAX_K + "\"}");
+
+		BooleanQuery query;
+		try {
+			query = BooleanQueryParser.parse(queryText, analysis);
+		} catch (IllegalArgumentException e) {
+			StringBuilder sb = new StringBuilder("{\"error\":");
+			appendString(sb, e.getMessage());
+			return Response.json(400, sb.append('}').toString());
+		}
+		int[] docs = booleanSearcher.match(query);
+
+		StringBuilder sb = new StringBuilder("{\"query\":");
+		appendString(sb, query.toString());
+		sb.append(",\"total\":").append(docs.length).append(",\"docs\":[");
+		List<String> docIDs = booleanSearcher.getDocIDs(docs, k);
+		for (int i = 0; i < docIDs.size(); i++) {
+			if (i > 0) sb.append(',');
+			appendString(sb, docIDs.get(i));
+		}
+		sb.append("]}");
+
+		return Response.json(200, sb.toString());
+	}
+
+	/**
+	 * The method to complete a prefix into the terms of the index as JSON
+	 * @param params is the decoded parameters of the request
+	 * @return the completions of the prefix with their document frequencies, the most frequent first
+	 */
+	private Response suggest(Map<String, String> params) {
+		String prefix = params.get("q");
+		if (prefix == null)
+			return Response.json(400, "{\"error\":\"missing query parameter q\"}");
+		prefix = prefix.toLowerCase();
+
+		int k;
+		try {
+			k = (params.containsKey("k") ? Integer.parseInt(params.get("k")) : DEFAULT_K);
+		} catch (NumberFormatException e) {
+			return Response.json(400, "{\"error\":\"k is not a number\"}");
+		}
+		if (k < 1 || k > autocompleter.getMaxK())
+			return Response.json(400, "{\"error\":\"k must be between 1 and " + autocompleter.getMaxK() + "\"}");
+
+		StringBuilder sb = new StringBuilder("{\"prefix\":");
+		appendString(sb, prefix);
+		sb.append(",\"suggestions\":[");
+		List<Suggestion> suggestions = autocompleter.complete(prefix, k);
+		for (int i = 0; i < suggestions.size(); i++) {
+			if (i > 0) sb.append(',');
+			sb.append("{\"term\":");
+			appendString(sb, suggestions.get(i).getTerm());
+			sb.append(",\"df\":").append(suggestions.get(i).getDf()).append('}');
+		}
+		sb.append("]}");
+
+		return Response.json(200, sb.toString());
+	}
+
+	private Response health() {
+		SearchIndex index = searcher.getIndex();
+		return Response.json(200, "{\"status\":\"UP\",\"docs\":" + index.getDocTable().getDocCount() + ",\"terms\":" +
+				index.getTermCount() + "}");
+	}
+
+	/**
+	 * The method to append a string to a JSON document, quoted and escaped
+	 * @param sb is the JSON document being written
+	 * @param s is the string to be appended
+	 */
+	static void appendString(StringBuilder sb, String s) {
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"': sb.append("\\\""); break;
+				case '\\': sb.append("\\\\"); break;
+				case '\n': sb.append("\\n"); break;
+				case '\r': sb.append("\\r"); break;
+				case '\t': sb.append("\\t"); break;
+				default:
+					if (c < 0x20)
+						sb.append(String.format("\\u%04x", (int) c));
+					else
+						sb.append(c);
+			}
+		}
+		sb.append('"');
+	}
+
+	/**
+	 * The method to decode the parameters of the query string of a request
+	 * @param rawQuery is the query string, still URL encoded, NULL if there is none
+	 * @return the decoded parameters by name
+	 * @throws IOException
+	 * @throws IllegalArgumentException if a name or a value has a malformed escape, e.g. %zz
+	 */
+	static Map<String, String> parseParams(String rawQuery) throws IOException {
+		Map<String, String> params = new HashMap<>();
+		if (rawQuery == null) return params;
+
+		for (String pair : rawQuery.split("&")) {
+			if (pair.isEmpty()) continue;
+			int eq = pair.indexOf('=');
+			String name = (eq < 0 ? pair : pair.substring(0, eq));
+			String value = (eq < 0 ? "" : pair.substring(eq + 1));
+			params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+		}
+		return params;
+	}
+
+	/**
+	 * an interface for the function answering the requests of an endpoint
+	 */
+	private interface RequestHandler {
+		Object handle(Map<String, String> params) throws IOException;
+	}
+
+	/**
+	 * Utility class to store the response to a request: its status, content type and body
+	 */
+	private static class Response {
+		int status;
+		String contentType;
+		String body;
+
+		Response(int status, String contentType, String body) {
+			this.status = status;
+			this.contentType = contentType;
+			this.body = body;
+		}
+
+		static Response json(int status, String body) {
+			return new Response(status, "application/json; charset=utf-8", body);
+		}
+	}
+
+	/**
+	 * a private class adapting a RequestHandler to the JDK server: it only accepts GET requests, answers plain text
+	 * for anything that is not a Response, and times and counts every request
+	 */
+	private static class Endpoint implements HttpHandler {
+		private final RequestHandler handler;
+
+		Endpoint(RequestHandler handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			long start = REQUEST_TIME.start();
+			REQUESTS.inc();
+			Response response;
+
+			try {
+				if (!exchange.getRequestMethod().equals("GET")) {
+					response = Response.json(405, "{\"error\":\"only GET is supported\"}");
+				} else {
+					Map<String, String> params;
+					try {
+						params = parseParams(exchange.getRequestURI().getRawQuery());
+					} catch (IllegalArgumentException e) {
+						params = null;
+					}
+					if (params == null) {
+						response = Response.json(400, "{\"error\":\"malformed query string\"}");
+					} else {
+						Object result = handler.handle(params);
+						response = (result instanceof Response ? (Response) result :
+								new Response(200, "text/plain; charset=utf-8", String.valueOf(result)));
+					}
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+				StringBuilder sb = new StringBuilder("{\"error\":");
+				appendString(sb, String.valueOf(e.getMessage()));
+				response = Response.json(500, sb.append('}').toString());
+			}
+			if (response.status >= 400) ERRORS.inc();
+
+			byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", response.contentType);
+			exchange.sendResponseHeaders(response.status, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+			REQUEST_TIME.stop(start);
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package ir.algorithms.shard;
+
+import ir.algorithms.indexer.TermStatistics;
+import ir.algorithms.scoreAndRank.DocScore;
+import ir.algorithms.scoreAndRank.ThesaurusAndOntology;
+import ir.commons.SearchQuery;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The coordinator of a search over an index split into shards, each one served by a ShardWorker. On connecting, it
+ * gathers the statistics of every shard and sends back the statistics of the whole index: the number of documents,
+ * their average length and the df of every term, so that every shard scores its documents exactly as the whole index
+ * would. A query is expanded once on the coordinator, sent to all the shards at once, and the top k documents of
+ * every shard are merged into the top k of the whole index, ties in the order of the documents in the whole index
+ * @author Surbhi Gupta
+ */
+public class ShardCoordinator implements Closeable {
+	private static final Timer SEARCH_TIME = Metrics.timer("shard.search");
+	private static final Timer GATHER_TIME = Metrics.timer("shard.gather");
+
+	private final Shard[] shards;					// indexed by shard number
+	private final ExecutorService executor;
+	private final ThesaurusAndOntology thesaurus;	// NULL to search without query expansion
+	private final long expansionPostingBudget;
+	private TermStatistics termStats;
+
+	/**
+	 * a private class to store the connection to the worker of a shard, used by a single query at a time
+	 */
+	private static class Shard {
+		final Socket socket;
+		final DataInputStream in;
+		final DataOutputStream out;
+		int shardId;
+
+		Shard(InetSocketAddress address) throws IOException {
+			socket = new Socket(address.getAddress(), address.getPort());
+			socket.setTcpNoDelay(true);
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+
+		/**
+		 * The method to send a request and wait for the status of its answer
+		 * @throws IOException if the connection fails or the worker could not answer the request
+		 */
+		void send() throws IOException {
+			out.flush();
+			if (!in.readBoolean()) throw new IOException(in.readUTF());
+		}
+	}
+
+	/**
+	 * The constructor of a coordinator connecting to the workers of all the shards of an index
+	 * @param workers is the addresses of the workers, in any order
+	 * @param thesaurus is the thesaurus expanding the queries, NULL to search without query expansion
+	 * @param expansionPostingBudget is the maximum number of postings an expanded query may have to evaluate
+	 * @throws IOException if a worker cannot be reached, or the workers are not the shards of a single index
+	 */
+	public ShardCoordinator(List<InetSocketAddress> workers, ThesaurusAndOntology thesaurus,
+							long expansionPostingBudget) throws IOException {
+		this.thesaurus = thesaurus;
+		this.expansionPostingBudget = expansionPostingBudget;
+		this.shards = new Shard[workers.size()];
+		this.executor = Executors.newFixedThreadPool(workers.size(), r -> {
+			Thread t = new Thread(r, "shard-scatter");
+			t.setDaemon(true);
+			return t;
+		});
+
+		try {
+			gatherStatistics(workers);
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * The method to gather the statistics of all the shards, sum them up and send them back to every shard
+	 * @param workers is the addresses of the workers
+	 * @throws IOException
+	 */
+	private void gatherStatistics(List<InetSocketAddress> workers) throws IOException {
+		int N = 0;
+		long totalLength = 0;
+		Map<String, int[]> stats = new HashMap<>();		// term -> {df, maxTf} in the whole index
+
+		for (InetSocketAddress address : workers) {
+			Shard shard = new Shard(address);
+			shard.out.writeByte(ShardWorker.STATS);
+			shard.send();
+			shard.shardId = shard.in.readInt();
+			int shardCount = shard.in.readInt();
+			if (shardCount != shards.length || shard.shardId < 0 || shard.shardId >= shardCount
+					|| shards[shard.shardId] != null) {
+				shard.socket.close();
+				throw new IOException("Worker " + address + " serves shard " + shard.shardId + " of " + shardCount
+						+ ", expected each of the " + shards.length + " shards once");
+			}
+			shards[shard.shardId] = shard;
+
+			N += shard.in.readInt();
+			totalLength += shard.in.readLong();
+			int termCount = shard.in.readInt();
+			for (int t = 0; t < termCount; t++) {
+				String term = shard.in.readUTF();
+				int df = shard.in.readInt();
+				int maxTf = shard.in.readInt();
+				int[] s = stats.get(term);
+				if (s == null) {
+					stats.put(term, new int[]{df, maxTf});
+				} else {
+					s[0] += df;
+					s[1] = Math.max(s[1], maxTf);
+				}
+			}
+		}
+		double avdl = (N == 0 ? 0d : (double) totalLength / N);
+		termStats = TermStatistics.of(stats::get, N, avdl);
+
+		for (Shard shard : shards) {
+			shard.out.writeByte(ShardWorker.GLOBAL_STATS);
+			shard.out.writeInt(N);
+			shard.out.writeDouble(avdl);
+			shard.out.writeInt(stats.size());
+			for (Map.Entry<String, int[]> e : stats.entrySet()) {
+				shard.out.writeUTF(e.getKey());
+				shard.out.writeInt(e.getValue()[0]);
+				shard.out.writeInt(e.getValue()[1]);
+			}
+			shard.send();
+		}
+	}
+
+	/**
+	 * The method to search for a query on all the shards and return the top k documents of the whole index
+	 * @param query is the query to be searched, it is not modified by the expansion
+	 * @param k is the maximum number of documents to be returned
+	 * @return the top k documents, best first, ties in the order of the documents in the whole index
+	 * @throws IOException if a shard could not answer
+	 */
+	public List<DocScore> search(SearchQuery query, int k) throws IOException {
+		long start = SEARCH_TIME.start();
+		SearchQuery q = new SearchQuery(query.id, query.queryText);
+		q.surfaceText = query.surfaceText;
+		q.termWeights.putAll(query.termWeights);
+		if (thesaurus != null) {
+			thesaurus.expandQuery(q, termStats, expansionPostingBudget);
+		}
+
+		List<Future<List<ShardHit>>> answers = new ArrayList<>();
+		for (Shard shard : shards) {
+			answers.add(executor.submit(() -> searchShard(shard, q, k)));
+		}
+
+		long gatherStart = GATHER_TIME.start();
+		List<ShardHit> hits = new ArrayList<>();
+		for (Future<List<ShardHit>> answer : answers) {
+			try {
+				hits.addAll(answer.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for the shards", e);
+			} catch (ExecutionException e) {
+				throw new IOException("A shard failed to answer", e.getCause());
+			}
+		}
+		GATHER_TIME.stop(gatherStart);
+
+		hits.sort((h1, h2) -> h1.docScore != h2.docScore ? Double.compare(h2.docScore, h1.docScore) :
+				Long.compare(h1.globalDoc, h2.globalDoc));
+		List<DocScore> top = new ArrayList<>();
+		for (ShardHit hit : hits.subList(0, Math.min(k, hits.size()))) {
+			DocScore ds = new DocScore();
+			ds.docID = hit.docID;
+			ds.docScore = hit.docScore;
+			ds.docLength = hit.docLength;
+			top.add(ds);
+		}
+		SEARCH_TIME.stop(start);
+
+		return top;
+	}
+
+	/**
+	 * a private class to store a document returned by a shard, with its number in the whole index
+	 */
+	private static class ShardHit {
+		long globalDoc;
+		String docID;
+		int docLength;
+		double docScore;
+	}
+
+	private List<ShardHit> searchShard(Shard shard, SearchQuery q, int k) throws IOException {
+		synchronized (shard) {
+			shard.out.writeByte(ShardWorker.SEARCH);
+			shard.out.writeInt(k);
+			shard.out.writeUTF(q.queryText);
+			shard.out.writeInt(q.termWeights.size());
+			for (Map.Entry<String, Double> e : q.termWeights.entrySet()) {
+				shard.out.writeUTF(e.getKey());
+				shard.out.writeDouble(e.getValue());
+			}
+			shard.send();
+
+			int count = shard.in.readInt();
+			List<ShardHit> hits = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				ShardHit hit = new ShardHit();
+				// the documents are dealt round robin to the shards
+				hit.globalDoc = (long) shard.in.readInt() * shards.length + shard.shardId;
+				hit.docID = shard.in.readUTF();
+				hit.docLength = shard.in.readInt();
+				hit.docScore = shard.in.readDouble();
+				hits.add(hit);
+			}
+			return hits;
+		}
+	}
+
+	/**
+	 * @return the statistics of the whole index
+	 */
+	public TermStatistics getTermStatistics() {
+		return termStats;
+	}
+
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	@Override
+	public void close() throws IOException {
+		executor.shutdownNow();
+		for (Shard shard : shards) {
+			if (shard != null) shard.socket.close();
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package ir.algorithms.shard;
+
+import ir.algorithms.indexer.DocumentTable;
+import ir.algorithms.indexer.IndexSnapshot;
+import ir.algorithms.indexer.TermStatistics;
+import ir.algorithms.scoreAndRank.DocScore;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.commons.SearchQuery;
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The worker serving a single shard of the index to a coordinator over a socket. It first sends the statistics of its
+ * shard, then scores its documents with the statistics of the whole index the coordinator sends back, so that every
+ * document gets the score the whole index would give it. Every connection is served on its own thread, one request
+ * at a time: the requests are a command byte followed by its arguments, and every answer starts with a status flag
+ * @author Surbhi Gupta
+ */
+public class ShardWorker {
+	static final byte STATS = 1;			// -> shard, count of shards, docs, total length, terms, {term, df, maxTf}...
+	static final byte GLOBAL_STATS = 2;		// N, avdl, terms, {term, df, maxTf}... ->
+	static final byte SEARCH = 3;			// k, query, weights, {term, weight}... -> hits, {doc, docID, length, score}...
+
+	private static final Counter REQUESTS = Metrics.counter("shard.worker.requests");
+	private static final Timer SEARCH_TIME = Metrics.timer("shard.worker.search");
+
+	private final IndexSnapshot shard;
+	private final int shardId;
+	private final int shardCount;
+	private volatile Searcher searcher;		// NULL until the statistics of the whole index are received
+
+	public ShardWorker(IndexSnapshot shard, int shardId, int shardCount) {
+		this.shard = shard;
+		this.shardId = shardId;
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * The method to serve the shard on the given port until the JVM is stopped
+	 * @param port is the port the coordinator connects to
+	 * @throws IOException
+	 */
+	public void serve(int port) throws IOException {
+		try (ServerSocket serverSocket = new ServerSocket(port)) {
+			while (true) {
+				Socket socket = serverSocket.accept();
+				Thread t = new Thread(() -> handle(socket), "shard-" + shardId + "-connection");
+				t.setDaemon(true);
+				t.start();
+			}
+		}
+	}
+
+	/**
+	 * The method to answer the requests of a connection until the coordinator closes it
+	 * @param socket is the connection to the coordinator
+	 */
+	private void handle(Socket socket) {
+		try (Socket s = socket;
+			 DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+			 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+			s.setTcpNoDelay(true);
+			while (true) {
+				byte command;
+				try {
+					command = in.readByte();
+				} catch (EOFException e) {
+					return;
+				}
+				REQUESTS.inc();
+
+				switch (command) {
+					case STATS: writeStats(out); break;
+					case GLOBAL_STATS: readGlobalStats(in, out); break;
+					case SEARCH: search(in, out); break;
+					default:
+						out.writeBoolean(false);
+						out.writeUTF("Unknown command " + command);
+				}
+				out.flush();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void writeStats(DataOutputStream out) throws IOException {
+		DocumentTable docTable = shard.getDocTable();
+		long totalLength = 0;
+		for (int doc = 0; doc < docTable.getDocCount(); doc++) {
+			totalLength += docTable.getDocLength(doc);
+		}
+		TermStatistics stats = shard.getTermStatistics();
+
+		out.writeBoolean(true);
+		out.writeInt(shardId);
+		out.writeInt(shardCount);
+		out.writeInt(docTable.getDocCount());
+		out.writeLong(totalLength);
+		out.writeInt(shard.getTermCount());
+		for (int t = 0; t < shard.getTermCount(); t++) {
+			String term = shard.getTerm(t);
+			out.writeUTF(term);
+			out.writeInt(stats.df(term));
+			out.writeInt(stats.maxTf(term));
+		}
+	}
+
+	private void readGlobalStats(DataInputStream in, DataOutputStream out) throws IOException {
+		int N = in.readInt();
+		double avdl = in.readDouble();
+		int termCount = in.readInt();
+		Map<String, int[]> termStats = new HashMap<>(2 * termCount);
+		for (int t = 0; t < termCount; t++) {
+			termStats.put(in.readUTF(), new int[]{in.readInt(), in.readInt()});
+		}
+
+		// the coordinator expands the queries, the shards only score them
+		searcher = new Searcher(shard, TermStatistics.of(termStats::get, N, avdl), null, 0, null);
+		out.writeBoolean(true);
+	}
+
+	private void search(DataInputStream in, DataOutputStream out) throws IOException {
+		int k = in.readInt();
+		SearchQuery query = new SearchQuery(0, in.readUTF());
+		int weightCount = in.readInt();
+		for (int i = 0; i < weightCount; i++) {
+			query.setTermWeight(in.readUTF(), in.readDouble());
+		}
+
+		Searcher s = searcher;
+		if (s == null) {
+			out.writeBoolean(false);
+			out.writeUTF("Shard " + shardId + " has not received the statistics of the whole index");
+			return;
+		}
+		if (k < 1) {
+			out.writeBoolean(false);
+			out.writeUTF("k must be at least 1: " + k);
+			return;
+		}
+
+		long start = SEARCH_TIME.start();
+		List<DocScore> hits = s.search(query, k, false).hits;
+		SEARCH_TIME.stop(start);
+
+		DocumentTable docTable = shard.getDocTable();
+		out.writeBoolean(true);
+		out.writeInt(hits.size());
+		for (DocScore ds : hits) {
+			out.writeInt(docTable.getDocNumber(ds.docID));
+			out.writeUTF(ds.docID);
+			out.writeInt(ds.docLength);
+			out.writeDouble(ds.docScore);
+		}
+	}
+}
@@ -2,6 +2,10 @@ package ir.algorithms.snippet;
 
 import ir.commons.SearchQuery;
 import ir.commons.Utils;
+import ir.commons.analysis.AnalysisChain;
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -10,8 +14,15 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Surbhi Gupta
@@ -21,10 +32,26 @@ public class SnippetGenerator {
 	private List<SearchQuery> queryList;
 	private String corpusPath;
 	private String snippetFileSavePrefix;
+	private AnalysisChain analysis = AnalysisChain.STANDARD;	// of the query terms, applied to the document words
+	private final DocumentCache docCache = new DocumentCache(DOC_CACHE_SIZE);
 
 	private static final int SNIPPET_SIZE = 25;
 	private static final int WINDOW_SIZE = 8;
 	private static final String CORPUS_FILE_TYPE = ".txt";
+	private static final int DOC_CACHE_SIZE = 1024;
+	private static final int THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
+	private static final Counter CACHE_HITS = Metrics.counter("snippet.cache.hits");
+	private static final Counter CACHE_MISSES = Metrics.counter("snippet.cache.misses");
+	private static final Timer SNIPPET_TIME = Metrics.timer("snippet.generate");
+
+	static {
+		Metrics.gauge("snippet.cache.hitRate", () -> {
+			long hits = CACHE_HITS.get();
+			long total = hits + CACHE_MISSES.get();
+			return (total == 0 ? 0d : (double) hits / total);
+		});
+	}
 
 	public SnippetGenerator(String resultPath, List<SearchQuery> queryList, String corpusPath, String snippetFileSavePrefix) {
 		this.resultPath = resultPath.substring(0, resultPath.lastIndexOf("/"));
@@ -34,25 +61,83 @@ public class SnippetGenerator {
 	}
 
 	/**
-	 * a private class to score the snippet for a query
+	 * constructor for generating snippets one document at a time, e.g. while serving search requests
+	 * @param corpusPath is the relative path to the corpus directory
+	 */
+	public SnippetGenerator(String corpusPath) {
+		this.corpusPath = corpusPath;
+	}
+
+	/**
+	 * constructor for generating snippets one document at a time for the queries of an index built with an analysis
+	 * chain: the words of the documents are turned into its terms to be matched with the query terms
+	 * @param corpusPath is the relative path to the corpus directory
+	 * @param analysis is the analysis chain of the index the queries are run against
+	 */
+	public SnippetGenerator(String corpusPath, AnalysisChain analysis) {
+		this.corpusPath = corpusPath;
+		this.analysis = analysis;
+	}
+
+	/**
+	 * Utility class to store the words of a document and the terms they are analysed into, position by position
 	 */
-	private static class SnippetFragmentScore implements Comparable<SnippetFragmentScore> {
-		String fragmentText;
-		double score;
-		
-		SnippetFragmentScore(String fragment, double score) {
-			this.fragmentText = fragment;
-			this.score = score;
+	private static class DocWords {
+		final String[] words;
+		final String[] terms;
+
+		DocWords(String[] words, String[] terms) {
+			this.words = words;
+			this.terms = terms;
+		}
+	}
+
+	/**
+	 * a private class to cache the words of the most recently used documents, evicting the least recently used one
+	 * once it holds DOC_CACHE_SIZE documents
+	 */
+	private static class DocumentCache extends LinkedHashMap<String, DocWords> {
+		private static final long serialVersionUID = 1L;
+
+		private final int maxSize;
+		private long hits;
+		private long misses;
+
+		DocumentCache(int maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
 		}
 
 		@Override
-		public int compareTo(SnippetFragmentScore sfc) {
-			return (score < sfc.score ? 1 : score > sfc.score ? -1 : 0);
+		protected boolean removeEldestEntry(Map.Entry<String, DocWords> eldest) {
+			return size() > maxSize;
+		}
+
+		synchronized DocWords getWords(String docID) {
+			DocWords words = get(docID);
+			if (words == null) {
+				misses++;
+				CACHE_MISSES.inc();
+			} else {
+				hits++;
+				CACHE_HITS.inc();
+			}
+			return words;
+		}
+
+		synchronized void putWords(String docID, DocWords words) {
+			put(docID, words);
+		}
+
+		synchronized double hitRate() {
+			return (hits + misses == 0 ? 0d : (double) hits / (hits + misses));
 		}
 	}
 
 	/**
 	 * method to create and write snippets to file(s): 1 file per query
+	 * the snippets of all the results of all the queries are generated in parallel, and the words of each document are
+	 * cached so that a document retrieved by several queries is read and tokenized only once
 	 * this being an optional step in the Search process, it reads the Search results from the disk
  	 * @throws IOException
      */
@@ -61,36 +146,85 @@ public class SnippetGenerator {
 
 		// get all the file names from the directory
 		List<File> fileList = Utils.readFilesFromDirectory(resultPath, "", "");
-		
-		// read all the first run results	-	1 file here is for 1 query
-		int qIndex = 0;
-		for (File f : fileList) {
-			List<String> snippetList = new ArrayList<>();
-			
-			//getting the query text
-        	String qText = queryList.get(qIndex).queryText;
-        	
-			//reading a result file
-			BufferedReader buffer = new BufferedReader(new FileReader(f.getAbsolutePath()));
-	        String line;
-	        while ((line = buffer.readLine()) != null) {
-	        	String docID = line.split(" ")[1];
-	        	String docPath = corpusPath + docID + CORPUS_FILE_TYPE;
-	        	
-	        	//reading the doc file from the corpus dir
-	        	File d = new File(docPath);
-	        	String docContent = new String(Files.readAllBytes(d.toPath()));
-	        	
-	        	String snippet = getSnippetFromContent(qText, docContent);
-	        	snippetList.add(docID + " : " + snippet);
-	        }
-	        buffer.close();
-	        
-	        // create a new file with this snippet list
-	        writeSnippetList(snippetList, qIndex + 1);
-	        qIndex++;
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		try {
+			// read all the first run results	-	1 file here is for 1 query
+			List<List<Future<String>>> snippetsPerQuery = new ArrayList<>();
+			int qIndex = 0;
+			for (File f : fileList) {
+				List<Future<String>> snippetList = new ArrayList<>();
+
+				//getting the query terms
+				Set<String> qTerms = getQueryTermSet(queryList.get(qIndex).queryText);
+
+				//reading a result file
+				try (BufferedReader buffer = new BufferedReader(new FileReader(f.getAbsolutePath()))) {
+					String line;
+					while ((line = buffer.readLine()) != null) {
+						String docID = line.split(" ")[1];
+						snippetList.add(executor.submit(
+								() -> docID + " : " + getSnippetFromContent(qTerms, getDocWords(docID))));
+					}
+				}
+
+				snippetsPerQuery.add(snippetList);
+				qIndex++;
+			}
+
+			// create a new file with the snippet list of every query, in the order of the results
+			for (qIndex = 0; qIndex < snippetsPerQuery.size(); qIndex++) {
+				List<String> snippetList = new ArrayList<>();
+				for (Future<String> snippet : snippetsPerQuery.get(qIndex)) {
+					snippetList.add(snippet.get());
+				}
+				writeSnippetList(snippetList, qIndex + 1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Snippet generation interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Snippet generation failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		System.out.println("All snippets generated, document cache hit rate: " + (int) (docCache.hitRate() * 100) + "%");
+	}
+
+	/**
+	 * method to generate the snippet of a single document for a query
+	 * @param queryText is the text of the query for which the snippet has to be generated
+	 * @param docID is the id of the document
+	 * @return snippet generated for the given query text from the document
+	 * @throws IOException
+	 */
+	public String getSnippet(String queryText, String docID) throws IOException {
+		return getSnippetFromContent(getQueryTermSet(queryText), getDocWords(docID));
+	}
+
+	/**
+	 * helper method to get the words of a document, reading it from the corpus dir only if it is not in the cache
+	 * @param docID is the id of the document
+	 * @return the words of the document and their terms in the order of their position
+	 * @throws IOException
+	 */
+	private DocWords getDocWords(String docID) throws IOException {
+		DocWords words = docCache.getWords(docID);
+
+		if (words == null) {
+			//reading the doc file from the corpus dir
+			File d = new File(corpusPath + docID + CORPUS_FILE_TYPE);
+			String[] tokens = tokenize(new String(Files.readAllBytes(d.toPath())));
+			String[] terms = tokens;
+			if (analysis != AnalysisChain.STANDARD) {
+				terms = new String[tokens.length];
+				for (int i = 0; i < tokens.length; i++) terms[i] = analysis.filter(tokens[i]);
+			}
+			words = new DocWords(tokens, terms);
+			docCache.putWords(docID, words);
 		}
-		System.out.println("All snippets generated");
+
+		return words;
 	}
 
 	/**
@@ -120,94 +254,109 @@ public class SnippetGenerator {
 	}
 
 	/**
-	 * The method to generate snippets from the document content
-	 * @param queryText is the text of the query for which the snippet has to be generated
+	 * The utility method to put the terms of a query in a set, once per query
+	 * @param queryText is the text of the query for which the snippets have to be generated
+	 * @return the set of the non empty query terms
+	 */
+	private static Set<String> getQueryTermSet(String queryText) {
+		Set<String> qTerms = new HashSet<>();
+
+		for (String qTerm : queryText.split(" ")) {
+			if (!qTerm.trim().equals(""))
+				qTerms.add(qTerm.trim());
+		}
+
+		return qTerms;
+	}
+
+	/**
+	 * The utility method to split a document into its words, i.e. its forward index with the word positions
 	 * @param content is the document content as String
-     * @return snippet generated for the given query text from the document content
-     */
-	private String getSnippetFromContent(String queryText, String content) {
-		//init a list of fragments, all with a score of 0
-		List<SnippetFragmentScore> fragments = getFragments(content);
-
-		String[] qTerms = queryText.split(" ");
-		
-		//loop through and update score
-		for (SnippetFragmentScore sf : fragments) {
-			double score = 0d;
-			for (String qTerm : qTerms) {
-				if (!qTerm.equals("")) {
-					String[] parts = sf.fragmentText.split(" ");
-					for (String part : parts) {
-						if (part.trim().equals(qTerm.trim())) {
-							score += 1d;
-						}
-					}
-				}
+	 * @return the words of the document in the order of their position
+	 */
+	private static String[] tokenize(String content) {
+		return content.trim().split("\\s+");
+	}
+
+	/**
+	 * The method to generate snippets from the words of a document. Every window of WINDOW_SIZE consecutive words is
+	 * scored by the number of query terms in it, with a single sliding pass over the word positions, and the best
+	 * non overlapping windows are put together until the snippet has SNIPPET_SIZE words
+	 * @param qTerms is the set of the terms of the query for which the snippet has to be generated
+	 * @param docWords is the words of the document and their terms in the order of their position
+	 * @return snippet generated for the given query terms from the document words
+	 */
+	private String getSnippetFromContent(Set<String> qTerms, DocWords docWords) {
+		long snippetStart = SNIPPET_TIME.start();
+		String[] words = docWords.words;
+		String[] terms = docWords.terms;
+		int windowCount = Math.max(1, words.length - WINDOW_SIZE + 1);
+		int[] windowScores = new int[windowCount];
+
+		//slide the window over the words, adding the word coming in and removing the one going out
+		int score = 0;
+		for (int i = 0; i < words.length; i++) {
+			if (qTerms.contains(terms[i])) score++;
+			if (i >= WINDOW_SIZE && qTerms.contains(terms[i - WINDOW_SIZE])) score--;
+			if (i >= WINDOW_SIZE - 1) windowScores[i - WINDOW_SIZE + 1] = score;
+		}
+		if (words.length < WINDOW_SIZE) windowScores[0] = score;
+
+		//pick the best windows not overlapping the ones already picked, the first one on a tie
+		int maxWindows = (SNIPPET_SIZE + WINDOW_SIZE - 1) / WINDOW_SIZE;
+		int[] picked = new int[maxWindows];
+		int pickedCount = 0;
+		while (pickedCount < maxWindows) {
+			int best = -1;
+			for (int start = 0; start < windowCount; start++) {
+				if ((best < 0 || windowScores[start] > windowScores[best]) && !overlaps(start, picked, pickedCount))
+					best = start;
 			}
-			
-			sf.score = score;
+			if (best < 0) break;
+			picked[pickedCount++] = best;
 		}
-		
-		Collections.sort(fragments);
-		
-		String snippet = "";
+
+		StringBuilder snippet = new StringBuilder();
 		int snippetLength = 0;
-		for (SnippetFragmentScore sf : fragments) {
-			if (snippetLength + WINDOW_SIZE <= SNIPPET_SIZE) {
-				snippet += highlightFragment(qTerms, sf.fragmentText.trim()) + "...";
-				snippetLength += WINDOW_SIZE;
-			} else {
-				String[] words = sf.fragmentText.split(" ");
-				for (String word : words) {
-					snippet += (Utils.listContainsTextIgnoreCase(qTerms, word) ? "[" + word + "]" : word);
-					snippetLength += 1;
-					if (snippetLength == SNIPPET_SIZE) break;
-				}
+		for (int p = 0; p < pickedCount && snippetLength < SNIPPET_SIZE; p++) {
+			int end = Math.min(words.length, picked[p] + Math.min(WINDOW_SIZE, SNIPPET_SIZE - snippetLength));
+			for (int i = picked[p]; i < end; i++) {
+				if (i > picked[p]) snippet.append(' ');
+				highlightWord(snippet, qTerms, words[i], terms[i]);
 			}
-			if (snippetLength == SNIPPET_SIZE) break;
+			snippetLength += end - picked[p];
+			if (snippetLength < SNIPPET_SIZE) snippet.append("...");
 		}
-		
-		return snippet.trim();
+
+		SNIPPET_TIME.stop(snippetStart);
+		return snippet.toString().trim();
 	}
 
 	/**
-	 * The aesthetic method to highlight all the query terms in the generated snippet fragment
-	 * @param qTerms is the array of query terms
-	 * @param fragment is the generated fragment for the given query
-     * @return the highlighted fragment
-     */
-	private String highlightFragment(String[] qTerms, String fragment) {
-		String[] words = fragment.split(" ");
-		fragment = "";
-
-		for (String word : words) {
-			fragment += (Utils.listContainsTextIgnoreCase(qTerms, word) ? "[" + word + "]" : word) + " ";
+	 * The utility method to check if a window overlaps any of the windows already picked for the snippet
+	 * @param start is the position of the first word of the window
+	 * @param picked is the positions of the first words of the picked windows
+	 * @param pickedCount is the number of picked windows
+	 * @return TRUE if the window shares a word with a picked window
+	 */
+	private static boolean overlaps(int start, int[] picked, int pickedCount) {
+		for (int p = 0; p < pickedCount; p++) {
+			if (Math.abs(start - picked[p]) < WINDOW_SIZE) return true;
 		}
-		
-		return fragment.trim();
+		return false;
 	}
 
 	/**
-	 * The method to split the given document text into fragments of length WINDOW_SIZE
-	 * @param fileContent is the is the document content as String
-	 * @return the list of fragments generated
-     */
-	private List<SnippetFragmentScore> getFragments(String fileContent) {
-		List<SnippetFragmentScore> wordList = new ArrayList<>();
-		
-		String[] wList = fileContent.split("\\s+");
-		
-		for (int i = 0; i < wList.length; i += WINDOW_SIZE) {
-			String accumulator = "";
-			for (int j = 0; j < WINDOW_SIZE; j++) {
-				if (i + j < wList.length) {
-					accumulator += wList[i + j] + " ";
-				}
-			}
-			SnippetFragmentScore sf = new SnippetFragmentScore(accumulator, 0d);	//init score with 0
-			wordList.add(sf);
-		}
-		
-		return wordList;
+	 * The aesthetic method to highlight a word of the snippet if its term is a query term
+	 * @param snippet is the snippet being built
+	 * @param qTerms is the set of query terms
+	 * @param word is the word to be added to the snippet
+	 * @param term is the term of the word
+	 */
+	private static void highlightWord(StringBuilder snippet, Set<String> qTerms, String word, String term) {
+		if (qTerms.contains(term))
+			snippet.append('[').append(word).append(']');
+		else
+			snippet.append(word);
 	}
 }
@@ -0,0 +1,199 @@
+package ir.algorithms.suggest;
+
+import ir.algorithms.indexer.TermDictionary;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The completion of prefixes into the terms of a dictionary with the highest document frequencies. It is a trie of
+ * the prefixes of all the terms, over their UTF-8 bytes, every node of which keeps its top completions precomputed,
+ * so that completing a prefix costs a walk down the trie, one step per byte, whatever the size of the vocabulary.
+ * The trie is held in flat arrays, its nodes numbered breadth first so that the children of a node are consecutive
+ * and sorted by their bytes, and its completions as the numbers of the terms in the dictionary
+ * @author Surbhi Gupta
+ */
+public class Autocompleter {
+	public static final int DEFAULT_MAX_K = 10;
+
+	private static final Timer COMPLETE_TIME = Metrics.timer("suggest.complete");
+
+	private final TermDictionary dictionary;
+	private final int maxK;
+	private final byte[] labels;		// byte on the edge from the parent of every node
+	private final int[] firstChildren;
+	private final char[] childCounts;	// at most 256
+	private final int[] topOffsets;		// completions of node n: tops[topOffsets[n]] to tops[topOffsets[n + 1] - 1]
+	private final int[] tops;			// term numbers, highest df first, then in dictionary order
+
+	private Autocompleter(TermDictionary dictionary, int maxK, byte[] labels, int[] firstChildren, char[] childCounts,
+			int[] topOffsets, int[] tops) {
+		this.dictionary = dictionary;
+		this.maxK = maxK;
+		this.labels = labels;
+		this.firstChildren = firstChildren;
+		this.childCounts = childCounts;
+		this.topOffsets = topOffsets;
+		this.tops = tops;
+	}
+
+	/**
+	 * The method to build the trie of a dictionary, keeping the given number of completions for every prefix
+	 * @param dictionary is the dictionary of the terms to complete into
+	 * @param maxK is the highest number of completions a prefix can be asked for
+	 * @return the autocompleter
+	 */
+	public static Autocompleter build(TermDictionary dictionary, int maxK) {
+		int termCount = dictionary.size();
+		byte[][] terms = new byte[termCount][];
+		int[] dfs = new int[termCount];
+		TermDictionary.Cursor cursor = dictionary.first();
+		while (cursor.next()) {
+			terms[cursor.ordinal()] = cursor.term().getBytes(StandardCharsets.UTF_8);
+			dfs[cursor.ordinal()] = cursor.df();
+		}
+
+		// breadth first: a node is the range of the terms starting with its prefix, split in its children by the
+		// byte following the prefix
+		int capacity = Math.max(16, termCount);
+		byte[] labels = new byte[capacity];
+		int[] firstChildren = new int[capacity];
+		char[] childCounts = new char[capacity];
+		int[] los = new int[capacity];
+		int[] his = new int[capacity];
+		int[] depths = new int[capacity];
+		his[0] = termCount;
+		int nodeCount = 1;
+
+		for (int n = 0; n < nodeCount; n++) {
+			int depth = depths[n];
+			int t = los[n];
+			if (t < his[n] && terms[t].length == depth) t++;		// the term equal to the prefix sorts first
+			firstChildren[n] = nodeCount;
+
+			while (t < his[n]) {
+				byte label = terms[t][depth];
+				int end = t + 1;
+				while (end < his[n] && terms[end][depth] == label) end++;
+
+				if (nodeCount == labels.length) {
+					capacity = 2 * capacity;
+					labels = Arrays.copyOf(labels, capacity);
+					firstChildren = Arrays.copyOf(firstChildren, capacity);
+					childCounts = Arrays.copyOf(childCounts, capacity);
+					los = Arrays.copyOf(los, capacity);
+					his = Arrays.copyOf(his, capacity);
+					depths = Arrays.copyOf(depths, capacity);
+				}
+				labels[nodeCount] = label;
+				los[nodeCount] = t;
+				his[nodeCount] = end;
+				depths[nodeCount] = depth + 1;
+				nodeCount++;
+				childCounts[n]++;
+				t = end;
+			}
+		}
+
+		// a node has as many completions as terms start with its prefix, up to maxK
+		int[] topOffsets = new int[nodeCount + 1];
+		for (int n = 0; n < nodeCount; n++) {
+			topOffsets[n + 1] = topOffsets[n] + Math.min(maxK, his[n] - los[n]);
+		}
+
+		// bottom up: the completions of a node are the best of its own term and of the completions of its children
+		int[] tops = new int[topOffsets[nodeCount]];
+		int[] candidates = new int[maxK];
+		for (int n = nodeCount - 1; n >= 0; n--) {
+			int size = 0;
+			if (his[n] > los[n] && terms[los[n]].length == depths[n]) size = offer(candidates, size, los[n], dfs);
+			for (int c = firstChildren[n]; c < firstChildren[n] + childCounts[n]; c++) {
+				for (int i = topOffsets[c]; i < topOffsets[c + 1]; i++) size = offer(candidates, size, tops[i], dfs);
+			}
+			System.arraycopy(candidates, 0, tops, topOffsets[n], size);
+		}
+
+		return new Autocompleter(dictionary, maxK, Arrays.copyOf(labels, nodeCount),
+				Arrays.copyOf(firstChildren, nodeCount), Arrays.copyOf(childCounts, nodeCount), topOffsets, tops);
+	}
+
+	/**
+	 * The method to insert a term among the best candidates, kept sorted by decreasing df then increasing number
+	 * @param candidates is the best candidates so far
+	 * @param size is the number of candidates so far
+	 * @param term is the number of the term to insert
+	 * @param dfs is the df of every term
+	 * @return the new number of candidates
+	 */
+	private static int offer(int[] candidates, int size, int term, int[] dfs) {
+		int i = size;
+		while (i > 0 && (dfs[candidates[i - 1]] < dfs[term] ||
+				(dfs[candidates[i - 1]] == dfs[term] && candidates[i - 1] > term))) i--;
+		if (i == candidates.length) return size;
+
+		int end = Math.min(size, candidates.length - 1);
+		System.arraycopy(candidates, i, candidates, i + 1, end - i);
+		candidates[i] = term;
+		return end + 1;
+	}
+
+	/**
+	 * The method to complete a prefix into the terms with the highest document frequencies
+	 * @param prefix is the prefix typed so far, it may be empty
+	 * @param k is the number of completions wanted, at most the one the autocompleter was built for
+	 * @return the completions, the most frequent first, including the prefix itself if it is a term
+	 */
+	public List<Suggestion> complete(String prefix, int k) {
+		long start = COMPLETE_TIME.start();
+		int node = 0;
+
+		for (byte b : prefix.getBytes(StandardCharsets.UTF_8)) {
+			node = child(node, b);
+			if (node < 0) {
+				COMPLETE_TIME.stop(start);
+				return Collections.emptyList();
+			}
+		}
+
+		int end = Math.min(topOffsets[node + 1], topOffsets[node] + Math.min(k, maxK));
+		List<Suggestion> suggestions = new ArrayList<>(end - topOffsets[node]);
+		for (int i = topOffsets[node]; i < end; i++) {
+			TermDictionary.Cursor cursor = dictionary.cursor(tops[i]);
+			suggestions.add(new Suggestion(cursor.term(), cursor.df()));
+		}
+
+		COMPLETE_TIME.stop(start);
+		return suggestions;
+	}
+
+	/**
+	 * @return the child of the node on the edge of the given byte, -1 if there is none
+	 */
+	private int child(int node, byte b) {
+		int lo = firstChildren[node], hi = lo + childCounts[node] - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int c = (labels[mid] & 0xFF) - (b & 0xFF);
+			if (c == 0) return mid;
+			if (c < 0) lo = mid + 1;
+			else hi = mid - 1;
+		}
+		return -1;
+	}
+
+	public int getMaxK() {
+		return maxK;
+	}
+
+	/**
+	 * @return the number of nodes of the trie
+	 */
+	public int getNodeCount() {
+		return labels.length;
+	}
+}
@@ -0,0 +1,84 @@
+package ir.algorithms.suggest;
+
+import ir.algorithms.indexer.TermDictionary;
+import ir.commons.SearchQuery;
+import ir.commons.metrics.Histogram;
+import ir.commons.metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The expansion of the query terms missing from the index with the terms of the index a few edits away from them, so
+ * that a misspelled term still matches documents. A variant d edits away gets the weight of the misspelled term
+ * divided by 1 + d, so BM25 counts it less the further it is. Short terms are allowed fewer edits, since every short
+ * string is a couple of edits away from too many terms
+ * @author Surbhi Gupta
+ */
+public class FuzzyExpander {
+	public static final int DEFAULT_MAX_EDITS = 2;
+	private static final int MAX_VARIANTS = 5;			// per misspelled term, the closest and most frequent ones
+	private static final int ONE_EDIT_MIN_LENGTH = 3;
+	private static final int TWO_EDITS_MIN_LENGTH = 6;
+
+	private static final Histogram VARIANTS_PER_TERM = Metrics.histogram("expansion.fuzzy.variants.per.term");
+
+	private final TermDictionary dictionary;
+	private final FuzzyMatcher matcher;
+	private final int maxEdits;
+
+	/**
+	 * @param dictionary is the dictionary of the index the expanded queries will be run against
+	 * @param maxEdits is the highest edit distance of a variant, for the longest terms
+	 */
+	public FuzzyExpander(TermDictionary dictionary, int maxEdits) {
+		this.dictionary = dictionary;
+		this.matcher = new FuzzyMatcher(dictionary);
+		this.maxEdits = maxEdits;
+	}
+
+	/**
+	 * @param term is a query term
+	 * @return the number of edits allowed for the term, 0 if it is too short to be matched fuzzily
+	 */
+	int getMaxEdits(String term) {
+		if (term.length() < ONE_EDIT_MIN_LENGTH) return 0;
+		return Math.min(maxEdits, term.length() < TWO_EDITS_MIN_LENGTH ? 1 : 2);
+	}
+
+	/**
+	 * The method to add to a query the variants of its terms that are not in the index
+	 * @param sq is the SearchQuery to be expanded, its text and term weights are updated
+	 */
+	public void expandQuery(SearchQuery sq) {
+		Set<String> qTermSet = new LinkedHashSet<>(Arrays.asList(sq.queryText.trim().split(" +")));
+		Set<String> added = new HashSet<>();
+		StringBuilder expansionString = new StringBuilder();
+
+		for (String term : qTermSet) {
+			int edits = getMaxEdits(term);
+			if (edits == 0 || dictionary.find(term) != null) continue;
+
+			List<FuzzyMatch> matches = matcher.match(term, edits);
+			int variants = 0;
+			for (FuzzyMatch m : matches) {
+				if (variants == MAX_VARIANTS) break;
+				if (qTermSet.contains(m.getTerm())) continue;
+
+				double weight = sq.getTermWeight(term) / (1 + m.getDistance());
+				if (added.add(m.getTerm()))
+					expansionString.append(' ').append(m.getTerm());
+				else
+					weight = Math.max(weight, sq.getTermWeight(m.getTerm()));
+				sq.setTermWeight(m.getTerm(), weight);
+				variants++;
+			}
+			VARIANTS_PER_TERM.record(variants);
+		}
+
+		sq.setQueryText(sq.queryText.trim() + expansionString);
+	}
+}
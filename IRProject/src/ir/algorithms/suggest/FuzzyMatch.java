@@ -0,0 +1,23 @@
+package ir.algorithms.suggest;
+
+/**
+ * Utility class to store a term of the dictionary close to a misspelled one, with the edit distance between them
+ * @author Surbhi Gupta
+ */
+public class FuzzyMatch extends Suggestion {
+	private final int distance;
+
+	public FuzzyMatch(String term, int df, int distance) {
+		super(term, df);
+		this.distance = distance;
+	}
+
+	public int getDistance() {
+		return distance;
+	}
+
+	@Override
+	public String toString() {
+		return getTerm() + " (" + getDf() + ", " + distance + ")";
+	}
+}
@@ -0,0 +1,99 @@
+package ir.algorithms.suggest;
+
+import ir.algorithms.indexer.TermDictionary;
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The matching of a misspelled term to the terms of a dictionary within a small edit distance of it, by intersecting
+ * the Levenshtein automaton of the term with the sorted dictionary: the terms are read in order, the automaton states
+ * of the prefix a term shares with the one before it are reused, and as soon as a prefix cannot lead to a match the
+ * cursor seeks to the least string the automaton can still accept after it. Only the terms starting with a prefix
+ * the automaton accepts are read, however large the dictionary is
+ * @author Surbhi Gupta
+ */
+public class FuzzyMatcher {
+	private static final Timer MATCH_TIME = Metrics.timer("suggest.fuzzy");
+	private static final Counter TERMS_VISITED = Metrics.counter("suggest.fuzzy.terms.visited");
+
+	private final TermDictionary dictionary;
+
+	public FuzzyMatcher(TermDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * The method to find the terms of the dictionary within the given edit distance of a term
+	 * @param term is the term, usually not in the dictionary
+	 * @param maxEdits is the highest edit distance of a match, 2 at most being the useful range
+	 * @return the matches, the closest first, then the most frequent
+	 */
+	public List<FuzzyMatch> match(String term, int maxEdits) {
+		long start = MATCH_TIME.start();
+		LevenshteinAutomaton automaton = new LevenshteinAutomaton(term, maxEdits);
+		List<FuzzyMatch> matches = new ArrayList<>();
+
+		// states[d] is the state after the first d bytes of path, which are computed up to depth
+		int[][] states = new int[16][];
+		states[0] = automaton.start();
+		byte[] path = new byte[16];
+		int depth = 0;
+		long visited = 0;
+		int[] scratch = automaton.start();
+
+		TermDictionary.Cursor cursor = dictionary.first();
+		boolean valid = cursor.next();
+		while (valid) {
+			visited++;
+			int length = cursor.length();
+			int d = 0;
+			while (d < depth && d < length && path[d] == cursor.byteAt(d)) d++;
+
+			int dead = -1;
+			for (; d < length; d++) {
+				if (d + 1 >= states.length) {
+					states = Arrays.copyOf(states, 2 * states.length);
+					path = Arrays.copyOf(path, 2 * path.length);
+				}
+				if (states[d + 1] == null) states[d + 1] = new int[states[0].length];
+				path[d] = cursor.byteAt(d);
+				automaton.step(states[d], path[d], states[d + 1]);
+				if (!automaton.canMatch(states[d + 1])) {
+					dead = d + 1;
+					break;
+				}
+			}
+			depth = (dead < 0 ? length : dead);
+
+			if (dead < 0) {
+				if (automaton.isMatch(states[length]))
+					matches.add(new FuzzyMatch(cursor.term(), cursor.df(), automaton.distance(states[length])));
+				valid = cursor.next();
+			} else {
+				// no term starting with the dead prefix can match: seek to the least string the automaton can still
+				// accept after it, going up the prefix while a byte has no live byte after it
+				int p = dead - 1;
+				int b = -1;
+				while (p >= 0 && (b = automaton.nextLiveByte(states[p], (path[p] & 0xFF) + 1, scratch)) < 0) p--;
+				if (p < 0) break;
+
+				path[p] = (byte) b;
+				depth = p;		// the states are valid up to the byte replaced
+				valid = cursor.advance(Arrays.copyOf(path, p + 1));
+			}
+		}
+
+		matches.sort((m1, m2) -> {
+			int c = Integer.compare(m1.getDistance(), m2.getDistance());
+			return (c != 0 ? c : Integer.compare(m2.getDf(), m1.getDf()));
+		});
+		TERMS_VISITED.add(visited);
+		MATCH_TIME.stop(start);
+		return matches;
+	}
+}
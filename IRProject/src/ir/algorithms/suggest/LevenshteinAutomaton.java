@@ -0,0 +1,107 @@
+package ir.algorithms.suggest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The automaton accepting the strings within a given edit distance of a word, insertions, deletions and substitutions
+ * counting one edit each. A state is the row of the edit distances between the prefix read so far and every prefix of
+ * the word, capped at maxEdits + 1, so that the automaton is deterministic and a state tells both whether the string
+ * read so far is accepted and whether any string starting with it can still be. The strings are read as UTF-8 bytes,
+ * which are the characters of ASCII terms. An automaton can be shared between threads, its states cannot
+ * @author Surbhi Gupta
+ */
+public class LevenshteinAutomaton {
+	private final byte[] word;
+	private final int maxEdits;
+	private final boolean[] inWord = new boolean[256];	// the bytes of the word, every other byte is a mismatch
+
+	/**
+	 * @param word is the word the accepted strings are close to
+	 * @param maxEdits is the highest edit distance of an accepted string
+	 */
+	public LevenshteinAutomaton(String word, int maxEdits) {
+		if (maxEdits < 0) throw new IllegalArgumentException("The edit distance cannot be negative: " + maxEdits);
+		this.word = word.getBytes(StandardCharsets.UTF_8);
+		this.maxEdits = maxEdits;
+		for (byte b : this.word) inWord[b & 0xFF] = true;
+	}
+
+	/**
+	 * @return a new state array, with the initial state: the empty string is i edits away from the first i bytes
+	 */
+	public int[] start() {
+		int[] state = new int[word.length + 1];
+		for (int i = 0; i < state.length; i++) state[i] = Math.min(i, maxEdits + 1);
+		return state;
+	}
+
+	/**
+	 * The method to read a byte, writing the next state in a given array so that a walk allocates nothing
+	 * @param state is the current state
+	 * @param b is the byte read
+	 * @param next is the array receiving the next state, of the length of the state arrays
+	 */
+	public void step(int[] state, byte b, int[] next) {
+		int cap = maxEdits + 1;
+		next[0] = Math.min(state[0] + 1, cap);
+		for (int i = 1; i < next.length; i++) {
+			int substitution = state[i - 1] + (word[i - 1] == b ? 0 : 1);
+			int deletion = state[i] + 1;
+			int insertion = next[i - 1] + 1;
+			next[i] = Math.min(Math.min(substitution, deletion), Math.min(insertion, cap));
+		}
+	}
+
+	/**
+	 * The method to find the least byte after which a string can still be accepted, to jump over the strings that
+	 * cannot. All the bytes missing from the word lead to the same state, which is computed once
+	 * @param state is the current state
+	 * @param from is the least byte to try, as an unsigned value
+	 * @param scratch is an array of the length of the state arrays, overwritten
+	 * @return the least byte not less than from, as an unsigned value, that leads to a live state, -1 if none does
+	 */
+	public int nextLiveByte(int[] state, int from, int[] scratch) {
+		int mismatchLive = -1;		// unknown yet
+		for (int b = from; b < 256; b++) {
+			if (inWord[b]) {
+				step(state, (byte) b, scratch);
+				if (canMatch(scratch)) return b;
+			} else {
+				if (mismatchLive < 0) {
+					step(state, (byte) b, scratch);
+					mismatchLive = (canMatch(scratch) ? 1 : 0);
+				}
+				if (mismatchLive == 1) return b;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return true if the string read so far is within maxEdits of the word
+	 */
+	public boolean isMatch(int[] state) {
+		return state[word.length] <= maxEdits;
+	}
+
+	/**
+	 * @return true if some string starting with the one read so far is within maxEdits of the word
+	 */
+	public boolean canMatch(int[] state) {
+		for (int d : state) {
+			if (d <= maxEdits) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the edit distance between the string read so far and the word, maxEdits + 1 if it is further
+	 */
+	public int distance(int[] state) {
+		return state[word.length];
+	}
+
+	public int getMaxEdits() {
+		return maxEdits;
+	}
+}
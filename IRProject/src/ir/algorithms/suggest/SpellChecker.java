@@ -0,0 +1,168 @@
+package ir.algorithms.suggest;
+
+import ir.algorithms.indexer.SpellingIndex;
+import ir.algorithms.indexer.TermDictionary;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The "did you mean" corrections of the query terms missing from the index, from the spelling index saved with the
+ * inverted index: the candidates of a term are the terms sharing one of the deletes of its prefix, and they are kept
+ * if they are within the edits of the index, counting the swap of two adjacent characters as one edit, the closest
+ * first, then the most frequent. The spelling index is only mapped on the first correction, so that a server that
+ * never needs one never pays for it
+ * @author Surbhi Gupta
+ */
+public class SpellChecker {
+	private static final int ONE_EDIT_MIN_LENGTH = 3;
+	private static final int TWO_EDITS_MIN_LENGTH = 6;
+	private static final int MAX_LENGTH = 255;			// the longest length the spelling index tells apart
+	private static final int NEXT_MAX_STEPS = TermDictionary.DEFAULT_BLOCK_SIZE;	// further away, a seek is cheaper
+
+	private static final Timer CORRECT_TIME = Metrics.timer("spelling.correct");
+
+	private final String path;
+	private volatile SpellingIndex index;		// NULL until the first correction
+
+	/**
+	 * @param path is the relative path to the spelling index file, written by InvertedIndex
+	 */
+	public SpellChecker(String path) {
+		this.path = path;
+	}
+
+	/**
+	 * The method to get the spelling index, mapping it on the first call
+	 * @return the spelling index
+	 * @throws IOException if the spelling index cannot be opened
+	 */
+	private SpellingIndex getIndex() throws IOException {
+		SpellingIndex si = index;
+		if (si == null) {
+			synchronized (this) {
+				si = index;
+				if (si == null) index = si = SpellingIndex.open(path);
+			}
+		}
+		return si;
+	}
+
+	/**
+	 * The method to find the corrections of a term
+	 * @param term is the term, usually not in the index
+	 * @param k is the highest number of corrections
+	 * @return the k best corrections, the closest first, then the most frequent, the term itself first if it is in the
+	 * index, empty if the term is too short to be corrected
+	 * @throws IOException if the spelling index cannot be opened
+	 */
+	public List<FuzzyMatch> correct(String term, int k) throws IOException {
+		SpellingIndex si = getIndex();
+		List<FuzzyMatch> corrections = new ArrayList<>();
+		int edits = (term.length() < ONE_EDIT_MIN_LENGTH ? 0 :
+				Math.min(si.getMaxEdits(), term.length() < TWO_EDITS_MIN_LENGTH ? 1 : 2));
+		if (edits == 0) return corrections;
+
+		long start = CORRECT_TIME.start();
+		int length = Math.min(term.length(), MAX_LENGTH);
+		int[] candidates = new int[16];
+		int count = 0;
+		for (String delete : SpellingIndex.deletes(term, edits, si.getPrefixLength())) {
+			for (int t : si.getTerms(delete)) {
+				if (Math.abs(si.getLength(t) - length) > edits) continue;
+				if (count == candidates.length) candidates = Arrays.copyOf(candidates, 2 * count);
+				candidates[count++] = t;
+			}
+		}
+
+		// the candidates are read in order, so that those of a block are decoded by stepping the same cursor
+		Arrays.sort(candidates, 0, count);
+		TermDictionary dictionary = si.getDictionary();
+		TermDictionary.Cursor cursor = null;
+		for (int i = 0; i < count; i++) {
+			int t = candidates[i];
+			if (i > 0 && t == candidates[i - 1]) continue;
+
+			if (cursor != null && t > cursor.ordinal() && t - cursor.ordinal() < NEXT_MAX_STEPS) {
+				while (cursor.ordinal() < t) cursor.next();
+			} else {
+				cursor = dictionary.cursor(t);
+			}
+			String candidate = cursor.term();
+			int distance = distance(term, candidate, edits);
+			if (distance <= edits) corrections.add(new FuzzyMatch(candidate, cursor.df(), distance));
+		}
+
+		corrections.sort((m1, m2) -> {
+			int c = Integer.compare(m1.getDistance(), m2.getDistance());
+			if (c == 0) c = Integer.compare(m2.getDf(), m1.getDf());
+			return (c != 0 ? c : m1.getTerm().compareTo(m2.getTerm()));
+		});
+		CORRECT_TIME.stop(start);
+		return (corrections.size() > k ? new ArrayList<>(corrections.subList(0, k)) : corrections);
+	}
+
+	/**
+	 * The method to correct a query, replacing each of its terms missing from the index with its best correction
+	 * @param queryText is the processed text of the query
+	 * @return the corrected query, NULL if no term was corrected
+	 * @throws IOException if the spelling index cannot be opened
+	 */
+	public String didYouMean(String queryText) throws IOException {
+		TermDictionary dictionary = getIndex().getDictionary();
+		StringBuilder sb = new StringBuilder();
+		boolean corrected = false;
+
+		for (String term : queryText.trim().split(" +")) {
+			if (dictionary.find(term) == null) {
+				List<FuzzyMatch> corrections = correct(term, 1);
+				if (!corrections.isEmpty()) {
+					term = corrections.get(0).getTerm();
+					corrected = true;
+				}
+			}
+			if (sb.length() > 0) sb.append(' ');
+			sb.append(term);
+		}
+
+		return (corrected ? sb.toString() : null);
+	}
+
+	/**
+	 * The method to compute the edit distance between two strings, where swapping two adjacent characters is one edit
+	 * @param a is the first string
+	 * @param b is the second string
+	 * @param maxEdits is the distance above which the exact value does not matter
+	 * @return the distance, or a number greater than maxEdits if it is greater
+	 */
+	public static int distance(String a, String b, int maxEdits) {
+		int[] beforePrevious = new int[b.length() + 1];
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int rowMin = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				int d = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+					d = Math.min(d, beforePrevious[j - 2] + 1);
+				current[j] = d;
+				rowMin = Math.min(rowMin, d);
+			}
+			if (rowMin > maxEdits) return maxEdits + 1;
+
+			int[] swap = beforePrevious;
+			beforePrevious = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+}
@@ -0,0 +1,28 @@
+package ir.algorithms.suggest;
+
+/**
+ * Utility class to store a term suggested for what the user typed, along with the number of documents it occurs in
+ * @author Surbhi Gupta
+ */
+public class Suggestion {
+	private final String term;
+	private final int df;
+
+	public Suggestion(String term, int df) {
+		this.term = term;
+		this.df = df;
+	}
+
+	public String getTerm() {
+		return term;
+	}
+
+	public int getDf() {
+		return df;
+	}
+
+	@Override
+	public String toString() {
+		return term + " (" + df + ")";
+	}
+}
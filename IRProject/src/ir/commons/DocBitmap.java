@@ -0,0 +1,268 @@
+package ir.commons;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of document numbers in the style of Roaring bitmaps: the numbers are split in chunks of 65536 by
+ * their high 16 bits, and each chunk keeps its low 16 bits either as a sorted array, while it has at most 4096 of
+ * them, or as a bitmap of 65536 bits (8KB) past that. A sparse set costs 2 bytes per document and a dense one 1 bit,
+ * and intersections and unions work a chunk at a time on whichever representations the two chunks have.
+ * A bitmap must not be modified once it is shared between threads
+ * @author Surbhi Gupta
+ */
+public class DocBitmap {
+	private static final int ARRAY_MAX = 4096;		// past it a chunk is smaller as a bitmap
+	private static final int BITMAP_WORDS = 1024;	// 65536 bits
+
+	private int[] keys = new int[0];				// high 16 bits of the documents of every chunk, increasing
+	private Container[] containers = new Container[0];
+
+	/**
+	 * a private class to store the low 16 bits of the documents of a chunk, as a sorted array or as a bitmap
+	 */
+	private static class Container {
+		char[] values;		// NULL when the chunk is a bitmap
+		long[] bits;		// NULL when the chunk is an array
+		int cardinality;
+
+		static Container ofArray(char[] values, int cardinality) {
+			Container c = new Container();
+			c.values = values;
+			c.cardinality = cardinality;
+			return c;
+		}
+
+		static Container ofBits(long[] bits, int cardinality) {
+			Container c = new Container();
+			c.bits = bits;
+			c.cardinality = cardinality;
+			// a bitmap emptied down to a few documents is smaller as an array
+			return (cardinality > ARRAY_MAX ? c : c.toArray());
+		}
+
+		boolean contains(char low) {
+			if (bits != null) return (bits[low >>> 6] & (1L << low)) != 0;
+			return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+		}
+
+		void add(char low) {
+			if (bits != null) {
+				long before = bits[low >>> 6];
+				bits[low >>> 6] |= 1L << low;
+				if (bits[low >>> 6] != before) cardinality++;
+				return;
+			}
+
+			int i = Arrays.binarySearch(values, 0, cardinality, low);
+			if (i >= 0) return;
+			i = -i - 1;
+			if (cardinality == ARRAY_MAX) {
+				Container c = toBits();
+				bits = c.bits;
+				values = null;
+				add(low);
+				return;
+			}
+			if (cardinality == values.length) values = Arrays.copyOf(values, Math.max(4, cardinality * 2));
+			System.arraycopy(values, i, values, i + 1, cardinality - i);
+			values[i] = low;
+			cardinality++;
+		}
+
+		Container copy() {
+			return (bits != null ? ofBits(bits.clone(), cardinality) :
+					ofArray(Arrays.copyOf(values, cardinality), cardinality));
+		}
+
+		Container toBits() {
+			long[] b = new long[BITMAP_WORDS];
+			for (int i = 0; i < cardinality; i++) {
+				b[values[i] >>> 6] |= 1L << values[i];
+			}
+			Container c = new Container();
+			c.bits = b;
+			c.cardinality = cardinality;
+			return c;
+		}
+
+		Container toArray() {
+			char[] v = new char[cardinality];
+			int n = 0;
+			for (int w = 0; w < BITMAP_WORDS; w++) {
+				long word = bits[w];
+				while (word != 0) {
+					v[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			return ofArray(v, n);
+		}
+
+		Container and(Container o) {
+			if (bits != null && o.bits != null) {
+				long[] b = new long[BITMAP_WORDS];
+				int card = 0;
+				for (int w = 0; w < BITMAP_WORDS; w++) {
+					b[w] = bits[w] & o.bits[w];
+					card += Long.bitCount(b[w]);
+				}
+				return ofBits(b, card);
+			}
+			if (bits != null) return o.and(this);
+
+			// this chunk is an array: keep its documents that the other chunk has
+			char[] v = new char[cardinality];
+			int n = 0;
+			for (int i = 0; i < cardinality; i++) {
+				if (o.contains(values[i])) v[n++] = values[i];
+			}
+			return ofArray(v, n);
+		}
+
+		Container or(Container o) {
+			if (bits != null || o.bits != null || cardinality + o.cardinality > ARRAY_MAX) {
+				Container a = (bits != null ? this : toBits());
+				Container b = (o.bits != null ? o : o.toBits());
+				long[] result = new long[BITMAP_WORDS];
+				int card = 0;
+				for (int w = 0; w < BITMAP_WORDS; w++) {
+					result[w] = a.bits[w] | b.bits[w];
+					card += Long.bitCount(result[w]);
+				}
+				return ofBits(result, card);
+			}
+
+			char[] v = new char[cardinality + o.cardinality];
+			int n = 0, i = 0, j = 0;
+			while (i < cardinality && j < o.cardinality) {
+				if (values[i] < o.values[j]) v[n++] = values[i++];
+				else if (values[i] > o.values[j]) v[n++] = o.values[j++];
+				else { v[n++] = values[i++]; j++; }
+			}
+			while (i < cardinality) v[n++] = values[i++];
+			while (j < o.cardinality) v[n++] = o.values[j++];
+			return ofArray(v, n);
+		}
+
+		int toArray(int high, int[] out, int from) {
+			if (bits == null) {
+				for (int i = 0; i < cardinality; i++) out[from++] = high | values[i];
+				return from;
+			}
+			for (int w = 0; w < BITMAP_WORDS; w++) {
+				long word = bits[w];
+				while (word != 0) {
+					out[from++] = high | ((w << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			return from;
+		}
+	}
+
+	/**
+	 * The method to add a document to the set
+	 * @param doc is the number of the document, not negative
+	 */
+	public void add(int doc) {
+		int key = doc >>> 16;
+		int i = Arrays.binarySearch(keys, key);
+		if (i < 0) {
+			i = -i - 1;
+			keys = insert(keys, i, key);
+			Container[] c = new Container[containers.length + 1];
+			System.arraycopy(containers, 0, c, 0, i);
+			System.arraycopy(containers, i, c, i + 1, containers.length - i);
+			c[i] = Container.ofArray(new char[4], 0);
+			containers = c;
+		}
+		containers[i].add((char) doc);
+	}
+
+	private static int[] insert(int[] a, int i, int value) {
+		int[] r = new int[a.length + 1];
+		System.arraycopy(a, 0, r, 0, i);
+		r[i] = value;
+		System.arraycopy(a, i, r, i + 1, a.length - i);
+		return r;
+	}
+
+	public boolean contains(int doc) {
+		int i = Arrays.binarySearch(keys, doc >>> 16);
+		return i >= 0 && containers[i].contains((char) doc);
+	}
+
+	public int cardinality() {
+		int card = 0;
+		for (Container c : containers) card += c.cardinality;
+		return card;
+	}
+
+	/**
+	 * @return the documents in both this set and the given one, as a new set
+	 */
+	public DocBitmap and(DocBitmap o) {
+		DocBitmap result = new DocBitmap();
+		int[] k = new int[Math.min(keys.length, o.keys.length)];
+		Container[] c = new Container[k.length];
+		int n = 0;
+
+		for (int i = 0, j = 0; i < keys.length && j < o.keys.length; ) {
+			if (keys[i] < o.keys[j]) i++;
+			else if (keys[i] > o.keys[j]) j++;
+			else {
+				Container and = containers[i].and(o.containers[j]);
+				if (and.cardinality > 0) {
+					k[n] = keys[i];
+					c[n++] = and;
+				}
+				i++;
+				j++;
+			}
+		}
+
+		result.keys = Arrays.copyOf(k, n);
+		result.containers = Arrays.copyOf(c, n);
+		return result;
+	}
+
+	/**
+	 * @return the documents in this set or the given one, as a new set
+	 */
+	public DocBitmap or(DocBitmap o) {
+		DocBitmap result = new DocBitmap();
+		int[] k = new int[keys.length + o.keys.length];
+		Container[] c = new Container[k.length];
+		int n = 0;
+
+		int i = 0, j = 0;
+		while (i < keys.length || j < o.keys.length) {
+			if (j == o.keys.length || (i < keys.length && keys[i] < o.keys[j])) {
+				k[n] = keys[i];
+				c[n++] = containers[i++].copy();
+			} else if (i == keys.length || keys[i] > o.keys[j]) {
+				k[n] = o.keys[j];
+				c[n++] = o.containers[j++].copy();
+			} else {
+				k[n] = keys[i];
+				c[n++] = containers[i++].or(o.containers[j++]);
+			}
+		}
+
+		result.keys = Arrays.copyOf(k, n);
+		result.containers = Arrays.copyOf(c, n);
+		return result;
+	}
+
+	/**
+	 * @return the documents of the set, in increasing order
+	 */
+	public int[] toArray() {
+		int[] docs = new int[cardinality()];
+		int n = 0;
+		for (int i = 0; i < keys.length; i++) {
+			n = containers[i].toArray(keys[i] << 16, docs, n);
+		}
+		return docs;
+	}
+}
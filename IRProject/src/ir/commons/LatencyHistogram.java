@@ -0,0 +1,112 @@
+package ir.commons;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in the style of HdrHistogram: every power of two is split into SUB_BUCKET_COUNT / 2
+ * linear buckets, so any recorded value is kept with a relative error below 1%, in a fixed amount of memory and
+ * without any allocation per recorded value. It can be recorded into by many threads at once
+ * @author Surbhi Gupta
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 8;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * @param value is the value to be recorded, e.g. a latency in nanoseconds, negative values are recorded as 0
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		counts.incrementAndGet(indexOf(value));
+		totalCount.incrementAndGet();
+		sum.addAndGet(value);
+
+		long currentMax;
+		while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+			// retry until this value or a larger one is the maximum
+		}
+	}
+
+	/**
+	 * The method to find the value at the given percentile of all the recorded values
+	 * @param percentile is the percentile, e.g. 99.9
+	 * @return the highest value equivalent to the value at the percentile, 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = totalCount.get();
+		if (total == 0) return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100d * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) return Math.min(highestValueOf(i), max.get());
+		}
+		return max.get();
+	}
+
+	public long getTotalCount() {
+		return totalCount.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long total = totalCount.get();
+		return (total == 0 ? 0d : (double) sum.get() / total);
+	}
+
+	/**
+	 * The method to add all the values recorded in another histogram to this one
+	 * @param other is the histogram to be added
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			long c = other.counts.get(i);
+			if (c > 0) counts.addAndGet(i, c);
+		}
+		totalCount.addAndGet(other.totalCount.get());
+		sum.addAndGet(other.sum.get());
+
+		long otherMax = other.max.get();
+		long currentMax;
+		while (otherMax > (currentMax = max.get()) && !max.compareAndSet(currentMax, otherMax)) {
+			// retry until the other maximum or a larger one is the maximum
+		}
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		totalCount.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	private static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT) return (int) value;
+
+		// the shift that brings the value in [HALF_SUB_BUCKET_COUNT, SUB_BUCKET_COUNT)
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+		return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (int) ((value >> shift) - HALF_SUB_BUCKET_COUNT);
+	}
+
+	private static long highestValueOf(int index) {
+		if (index < SUB_BUCKET_COUNT) return index;
+
+		int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+		long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
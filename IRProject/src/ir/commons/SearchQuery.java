@@ -1,19 +1,42 @@
 package ir.commons;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
- * Utility class to store a query with its id
+ * Utility class to store a query with its id, its words as written, the weights of its terms and the filter on its
+ * documents
  * @author Surbhi Gupta
  */
 public class SearchQuery {
+	public static final double DEFAULT_TERM_WEIGHT = 1d;
+
 	public int id;
 	public String queryText;
-	
+	public String surfaceText;		// the processed words the terms were analysed from, NULL if they are the terms
+	public Map<String, Double> termWeights;		// weights of the terms that do not count fully, e.g. expansion terms
+	public DocBitmap filter;					// the only documents that may be returned, NULL for all of them
+
 	public SearchQuery(int id, String queryText) {
 		this.id = id;
 		this.queryText = queryText;
+		this.termWeights = new HashMap<>();
 	}
 
 	public void setQueryText(String newText) {
 		queryText = newText;
 	}
+
+	public void setTermWeight(String term, double weight) {
+		termWeights.put(term, weight);
+	}
+
+	/**
+	 * @param term is a term of this query
+	 * @return the weight of the term in this query, DEFAULT_TERM_WEIGHT unless it was explicitly set
+	 */
+	public double getTermWeight(String term) {
+		Double weight = termWeights.get(term);
+		return (weight == null ? DEFAULT_TERM_WEIGHT : weight);
+	}
 }
@@ -17,6 +17,8 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import ir.commons.analysis.AnalysisChain;
+
 /**
  * @author Surbhi Gupta
  */
@@ -37,6 +39,20 @@ public class Utils {
 	 * @throws SAXException
      */
 	public static List<SearchQuery> parseXML(String fileName) throws IOException, ParserConfigurationException, SAXException {
+		return parseXML(fileName, AnalysisChain.STANDARD);
+	}
+
+	/**
+	 * The method to create a list of SearchQuery objects reading from an XML file, their text analysed into terms
+	 * @param fileName is the relative name of the file that contains the XML of the input queries
+	 * @param analysis is the analysis chain of the index the queries are run against
+	 * @return a list of the queries as objects of the SearchQuery class
+	 * @throws IOException
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 */
+	public static List<SearchQuery> parseXML(String fileName, AnalysisChain analysis)
+			throws IOException, ParserConfigurationException, SAXException {
 		List<SearchQuery> queryList = new ArrayList<>();
 		
 		File fXmlFile = new File(fileName);
@@ -58,7 +74,8 @@ public class Utils {
 			String text = e.getTextContent().trim().substring(idText.length()).trim();
 			
 			if (text.length() > 0) {
-				SearchQuery q = new SearchQuery(id, processContent(text));
+				SearchQuery q = new SearchQuery(id, analysis.analyze(text));
+				q.surfaceText = processContent(text);
 				queryList.add(q);
 			}
 		}
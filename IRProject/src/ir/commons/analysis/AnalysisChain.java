@@ -0,0 +1,84 @@
+package ir.commons.analysis;
+
+import ir.commons.Utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The analysis of the text of the documents and of the queries into terms: the text is processed by
+ * Utils.processContent, then every word goes through the token filters in order. An index only answers the queries
+ * analysed by the chain its documents were, so InvertedIndex, Utils.parseXML, ThesaurusAndOntology, SnippetGenerator,
+ * BooleanQueryParser and SearchServer take the chain to use, the standard one by default
+ * STANDARD: the processed words as they are, the terms of the indexes built without a chain
+ * PORTER: the processed words stemmed by the Porter stemmer, through a StemCache
+ * @author Surbhi Gupta
+ */
+public class AnalysisChain {
+	public static final AnalysisChain STANDARD = new AnalysisChain("standard");
+	public static final AnalysisChain PORTER = new AnalysisChain("porter",
+			new StemCache(new PorterStemmer(), StemCache.DEFAULT_SIZE));
+
+	private final String name;
+	private final List<TokenFilter> filters;
+
+	/**
+	 * @param name is the name of the chain, for the options of the runners
+	 * @param filters is the token filters, applied in the given order
+	 */
+	public AnalysisChain(String name, TokenFilter... filters) {
+		this.name = name;
+		this.filters = Arrays.asList(filters);
+	}
+
+	/**
+	 * @param name is the name of a predefined chain
+	 * @return the chain of this name
+	 * @throws IllegalArgumentException if there is no chain of this name
+	 */
+	public static AnalysisChain forName(String name) {
+		for (AnalysisChain chain : new AnalysisChain[] {STANDARD, PORTER}) {
+			if (chain.name.equals(name)) return chain;
+		}
+		throw new IllegalArgumentException("Unknown analysis chain: " + name);
+	}
+
+	/**
+	 * The method to turn a word into its term
+	 * @param token is a processed word
+	 * @return the term of the word, the word itself if the chain has no filter
+	 */
+	public String filter(String token) {
+		for (TokenFilter f : filters) {
+			token = f.filter(token);
+		}
+		return token;
+	}
+
+	/**
+	 * The method to turn a raw text into its terms
+	 * @param text is the text of a document or a query
+	 * @return the terms of the text separated by single spaces, the processed text if the chain has no filter
+	 */
+	public String analyze(String text) {
+		String content = Utils.processContent(text);
+		if (filters.isEmpty()) return content;
+
+		StringBuilder sb = new StringBuilder(content.length());
+		for (String word : content.split(" +")) {
+			if (word.isEmpty()) continue;
+			if (sb.length() > 0) sb.append(' ');
+			sb.append(filter(word));
+		}
+		return sb.toString();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
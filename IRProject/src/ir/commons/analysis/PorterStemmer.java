@@ -0,0 +1,312 @@
+package ir.commons.analysis;
+
+/**
+ * The Porter stemmer, which strips the inflectional and derivational suffixes of English words in five steps, so that
+ * e.g. "compute", "computer", "computing" and "computation" all become "comput". Only the words made of letters a to
+ * z are stemmed, numbers and hyphenated words are returned as they are. A stemmer keeps no state between words, so it
+ * can be shared between threads
+ * @author Surbhi Gupta
+ */
+public class PorterStemmer implements TokenFilter {
+
+	@Override
+	public String filter(String token) {
+		if (token.length() <= 2) return token;
+		for (int i = 0; i < token.length(); i++) {
+			char c = token.charAt(i);
+			if (c < 'a' || c > 'z') return token;
+		}
+
+		Word w = new Word(token);
+		w.step1ab();
+		if (w.end > 0) {
+			w.step1c();
+			w.step2();
+			w.step3();
+			w.step4();
+			w.step5();
+		}
+		return new String(w.b, 0, w.end + 1);
+	}
+
+	/**
+	 * a private class holding the word being stemmed: its letters up to end are the word, and j marks the end of the
+	 * stem once a suffix is found by ends
+	 */
+	private static class Word {
+		final char[] b;
+		int end;
+		int j;
+
+		Word(String token) {
+			b = token.toCharArray();
+			end = b.length - 1;
+		}
+
+		/**
+		 * @return true if the letter at i is a consonant, y being one at the start of the word or after a vowel
+		 */
+		boolean cons(int i) {
+			switch (b[i]) {
+				case 'a': case 'e': case 'i': case 'o': case 'u': return false;
+				case 'y': return (i == 0 || !cons(i - 1));
+				default: return true;
+			}
+		}
+
+		/**
+		 * @return the number of vowel consonant sequences between 0 and j, m in [C](VC)^m[V]
+		 */
+		int m() {
+			int n = 0;
+			int i = 0;
+			while (true) {
+				if (i > j) return n;
+				if (!cons(i)) break;
+				i++;
+			}
+			i++;
+			while (true) {
+				while (true) {
+					if (i > j) return n;
+					if (cons(i)) break;
+					i++;
+				}
+				i++;
+				n++;
+				while (true) {
+					if (i > j) return n;
+					if (!cons(i)) break;
+					i++;
+				}
+				i++;
+			}
+		}
+
+		/**
+		 * @return true if there is a vowel between 0 and j
+		 */
+		boolean vowelInStem() {
+			for (int i = 0; i <= j; i++) {
+				if (!cons(i)) return true;
+			}
+			return false;
+		}
+
+		/**
+		 * @return true if the letters at i - 1 and i are the same consonant
+		 */
+		boolean doublec(int i) {
+			return i >= 1 && b[i] == b[i - 1] && cons(i);
+		}
+
+		/**
+		 * @return true if the letters at i - 2, i - 1 and i are consonant vowel consonant, the last one not w, x or y,
+		 * as in "hop" whose "e" is restored in "hoping"
+		 */
+		boolean cvc(int i) {
+			if (i < 2 || !cons(i) || cons(i - 1) || !cons(i - 2)) return false;
+			char c = b[i];
+			return c != 'w' && c != 'x' && c != 'y';
+		}
+
+		/**
+		 * @return true if the word ends with s, setting j to the end of the stem before it
+		 */
+		boolean ends(String s) {
+			int l = s.length();
+			int o = end - l + 1;
+			if (o < 0) return false;
+			for (int i = 0; i < l; i++) {
+				if (b[o + i] != s.charAt(i)) return false;
+			}
+			j = end - l;
+			return true;
+		}
+
+		/**
+		 * The method to replace the letters after j with s
+		 */
+		void setTo(String s) {
+			for (int i = 0; i < s.length(); i++) b[j + 1 + i] = s.charAt(i);
+			end = j + s.length();
+		}
+
+		void r(String s) {
+			if (m() > 0) setTo(s);
+		}
+
+		/**
+		 * The method to remove the plurals and -ed or -ing, e.g. caresses -> caress, ponies -> poni, meetings -> meet
+		 */
+		void step1ab() {
+			if (b[end] == 's') {
+				if (ends("sses")) end -= 2;
+				else if (ends("ies")) setTo("i");
+				else if (b[end - 1] != 's') end--;
+			}
+			if (ends("eed")) {
+				if (m() > 0) end--;
+			} else if ((ends("ed") || ends("ing")) && vowelInStem()) {
+				end = j;
+				if (ends("at")) setTo("ate");
+				else if (ends("bl")) setTo("ble");
+				else if (ends("iz")) setTo("ize");
+				else if (doublec(end)) {
+					end--;
+					char c = b[end];
+					if (c == 'l' || c == 's' || c == 'z') end++;
+				} else if (m() == 1 && cvc(end)) {
+					setTo("e");
+				}
+			}
+		}
+
+		/**
+		 * The method to turn a final y into i when there is another vowel in the stem
+		 */
+		void step1c() {
+			if (ends("y") && vowelInStem()) b[end] = 'i';
+		}
+
+		/**
+		 * The method to map the double suffixes to single ones, e.g. -ization -> -ize, the stem having m > 0
+		 */
+		void step2() {
+			if (end == 0) return;
+			switch (b[end - 1]) {
+				case 'a':
+					if (ends("ational")) { r("ate"); break; }
+					if (ends("tional")) { r("tion"); break; }
+					break;
+				case 'c':
+					if (ends("enci")) { r("ence"); break; }
+					if (ends("anci")) { r("ance"); break; }
+					break;
+				case 'e':
+					if (ends("izer")) { r("ize"); break; }
+					break;
+				case 'l':
+					if (ends("bli")) { r("ble"); break; }
+					if (ends("alli")) { r("al"); break; }
+					if (ends("entli")) { r("ent"); break; }
+					if (ends("eli")) { r("e"); break; }
+					if (ends("ousli")) { r("ous"); break; }
+					break;
+				case 'o':
+					if (ends("ization")) { r("ize"); break; }
+					if (ends("ation")) { r("ate"); break; }
+					if (ends("ator")) { r("ate"); break; }
+					break;
+				case 's':
+					if (ends("alism")) { r("al"); break; }
+					if (ends("iveness")) { r("ive"); break; }
+					if (ends("fulness")) { r("ful"); break; }
+					if (ends("ousness")) { r("ous"); break; }
+					break;
+				case 't':
+					if (ends("aliti")) { r("al"); break; }
+					if (ends("iviti")) { r("ive"); break; }
+					if (ends("biliti")) { r("ble"); break; }
+					break;
+				case 'g':
+					if (ends("logi")) { r("log"); break; }
+					break;
+				default:
+					break;
+			}
+		}
+
+		/**
+		 * The method to handle -ic-, -full, -ness etc., the stem having m > 0
+		 */
+		void step3() {
+			switch (b[end]) {
+				case 'e':
+					if (ends("icate")) { r("ic"); break; }
+					if (ends("ative")) { r(""); break; }
+					if (ends("alize")) { r("al"); break; }
+					break;
+				case 'i':
+					if (ends("iciti")) { r("ic"); break; }
+					break;
+				case 'l':
+					if (ends("ical")) { r("ic"); break; }
+					if (ends("ful")) { r(""); break; }
+					break;
+				case 's':
+					if (ends("ness")) { r(""); break; }
+					break;
+				default:
+					break;
+			}
+		}
+
+		/**
+		 * The method to remove -ant, -ence etc. when the stem has m > 1
+		 */
+		void step4() {
+			if (end == 0) return;
+			switch (b[end - 1]) {
+				case 'a':
+					if (ends("al")) break;
+					return;
+				case 'c':
+					if (ends("ance")) break;
+					if (ends("ence")) break;
+					return;
+				case 'e':
+					if (ends("er")) break;
+					return;
+				case 'i':
+					if (ends("ic")) break;
+					return;
+				case 'l':
+					if (ends("able")) break;
+					if (ends("ible")) break;
+					return;
+				case 'n':
+					if (ends("ant")) break;
+					if (ends("ement")) break;
+					if (ends("ment")) break;
+					if (ends("ent")) break;
+					return;
+				case 'o':
+					if (ends("ion") && j >= 0 && (b[j] == 's' || b[j] == 't')) break;
+					if (ends("ou")) break;
+					return;
+				case 's':
+					if (ends("ism")) break;
+					return;
+				case 't':
+					if (ends("ate")) break;
+					if (ends("iti")) break;
+					return;
+				case 'u':
+					if (ends("ous")) break;
+					return;
+				case 'v':
+					if (ends("ive")) break;
+					return;
+				case 'z':
+					if (ends("ize")) break;
+					return;
+				default:
+					return;
+			}
+			if (m() > 1) end = j;
+		}
+
+		/**
+		 * The method to remove a final -e when m > 1, and to turn -ll into -l when m > 1
+		 */
+		void step5() {
+			j = end;
+			if (b[end] == 'e') {
+				int a = m();
+				if (a > 1 || a == 1 && !cvc(end - 1)) end--;
+			}
+			if (b[end] == 'l' && doublec(end) && m() > 1) end--;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package ir.commons.analysis;
+
+import ir.commons.metrics.Counter;
+import ir.commons.metrics.Metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The bounded memo of a token filter, for filters like stemmers that are costly and see the same few words over and
+ * over. It is a direct mapped cache: a word can only be held in the slot of its hash, and a new word replaces the one
+ * there. Lookups and updates take no lock, the entries being immutable, so every indexing and query thread can share
+ * one cache, and its size never grows past the given number of slots, however many distinct words go through it
+ * @author Surbhi Gupta
+ */
+public class StemCache implements TokenFilter {
+	public static final int DEFAULT_SIZE = 1 << 16;
+
+	private static final Counter HITS = Metrics.counter("analysis.stem.cache.hits");
+	private static final Counter MISSES = Metrics.counter("analysis.stem.cache.misses");
+
+	private final TokenFilter filter;
+	private final AtomicReferenceArray<Entry> slots;
+	private final int mask;
+
+	/**
+	 * Utility class to store a word and its term
+	 */
+	private static class Entry {
+		final String token;
+		final String term;
+
+		Entry(String token, String term) {
+			this.token = token;
+			this.term = term;
+		}
+	}
+
+	/**
+	 * @param filter is the filter whose terms are held
+	 * @param size is the number of words held at most, rounded up to a power of 2
+	 */
+	public StemCache(TokenFilter filter, int size) {
+		if (size < 1) throw new IllegalArgumentException("A cache holds at least one word: " + size);
+		this.filter = filter;
+		int slotCount = (size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1);
+		this.slots = new AtomicReferenceArray<>(slotCount);
+		this.mask = slotCount - 1;
+	}
+
+	@Override
+	public String filter(String token) {
+		int h = token.hashCode();
+		int slot = (h ^ (h >>> 16)) & mask;
+		Entry e = slots.get(slot);
+		if (e != null && e.token.equals(token)) {
+			HITS.inc();
+			return e.term;
+		}
+
+		MISSES.inc();
+		String term = filter.filter(token);
+		slots.lazySet(slot, new Entry(token, term));
+		return term;
+	}
+
+	public int getSize() {
+		return slots.length();
+	}
+}
@@ -0,0 +1,13 @@
+package ir.commons.analysis;
+
+/**
+ * a filter of the tokens of an analysis chain, applied to every processed word of the documents and of the queries
+ * @author Surbhi Gupta
+ */
+public interface TokenFilter {
+	/**
+	 * @param token is a processed word, lower case and without punctuation
+	 * @return the term the word is indexed and searched as
+	 */
+	String filter(String token);
+}
@@ -0,0 +1,31 @@
+package ir.commons.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A metric counting events, e.g. documents indexed, cheap to increment from many threads at once
+ * @author Surbhi Gupta
+ */
+public class Counter implements Metric {
+	private final LongAdder count = new LongAdder();
+
+	public void inc() {
+		count.increment();
+	}
+
+	public void add(long n) {
+		count.add(n);
+	}
+
+	public long get() {
+		return count.sum();
+	}
+
+	@Override
+	public void putValues(String name, Map<String, Object> values, double uptimeSeconds) {
+		long c = get();
+		values.put(name, c);
+		values.put(name + ".perSecond", (uptimeSeconds > 0 ? c / uptimeSeconds : 0d));
+	}
+}
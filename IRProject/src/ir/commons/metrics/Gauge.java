@@ -0,0 +1,25 @@
+package ir.commons.metrics;
+
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A metric reading a current value when it is reported, e.g. the number of terms in the index
+ * @author Surbhi Gupta
+ */
+public class Gauge implements Metric {
+	private final DoubleSupplier value;
+
+	Gauge(DoubleSupplier value) {
+		this.value = value;
+	}
+
+	public double get() {
+		return value.getAsDouble();
+	}
+
+	@Override
+	public void putValues(String name, Map<String, Object> values, double uptimeSeconds) {
+		values.put(name, get());
+	}
+}
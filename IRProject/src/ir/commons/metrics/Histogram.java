@@ -0,0 +1,37 @@
+package ir.commons.metrics;
+
+import ir.commons.LatencyHistogram;
+
+import java.util.Map;
+
+/**
+ * A metric keeping the distribution of a value, e.g. the number of terms per expanded query
+ * @author Surbhi Gupta
+ */
+public class Histogram implements Metric {
+	private final LatencyHistogram histogram = new LatencyHistogram();
+	private final double unit;				// the recorded values are reported divided by this
+
+	Histogram(double unit) {
+		this.unit = unit;
+	}
+
+	public void record(long value) {
+		histogram.record(value);
+	}
+
+	public long getCount() {
+		return histogram.getTotalCount();
+	}
+
+	@Override
+	public void putValues(String name, Map<String, Object> values, double uptimeSeconds) {
+		values.put(name + ".count", histogram.getTotalCount());
+		values.put(name + ".mean", histogram.getMean() / unit);
+		values.put(name + ".p50", histogram.getValueAtPercentile(50) / unit);
+		values.put(name + ".p95", histogram.getValueAtPercentile(95) / unit);
+		values.put(name + ".p99", histogram.getValueAtPercentile(99) / unit);
+		values.put(name + ".p999", histogram.getValueAtPercentile(99.9) / unit);
+		values.put(name + ".max", histogram.getMax() / unit);
+	}
+}
@@ -0,0 +1,17 @@
+package ir.commons.metrics;
+
+import java.util.Map;
+
+/**
+ * A metric kept in the Metrics registry
+ * @author Surbhi Gupta
+ */
+interface Metric {
+	/**
+	 * The method to put the current values of this metric in a map, e.g. to expose them over JMX
+	 * @param name is the name the metric is registered with
+	 * @param values is the map the values are put in, keyed by the name of the metric and its value
+	 * @param uptimeSeconds is the time since the registry was created
+	 */
+	void putValues(String name, Map<String, Object> values, double uptimeSeconds);
+}
@@ -0,0 +1,203 @@
+package ir.commons.metrics;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The registry of all the metrics of the search engine: counters, gauges, histograms and timers, each one created on
+ * first use under a dotted name, e.g. index.docs.indexed. All of them can be exposed over JMX as the attributes of a
+ * single MBean, and written to a text file, once or periodically
+ * @author Surbhi Gupta
+ */
+public class Metrics {
+	private static final String JMX_NAME = "ir:type=Metrics";
+
+	private static final Map<String, Metric> registry = new ConcurrentSkipListMap<>();
+	private static final long startNanos = System.nanoTime();
+	private static ScheduledExecutorService dumper;
+
+	public static Counter counter(String name) {
+		return lookup(name, Counter.class, Counter::new);
+	}
+
+	public static Histogram histogram(String name) {
+		return lookup(name, Histogram.class, () -> new Histogram(1d));
+	}
+
+	public static Timer timer(String name) {
+		return lookup(name, Timer.class, Timer::new);
+	}
+
+	/**
+	 * The helper method to get the metric registered under a name, registering a new one on first use
+	 * @param name is the name of the metric
+	 * @param type is the type the metric is used as
+	 * @param factory is the creator of the metric if there is none under this name yet
+	 * @return the metric registered under the name
+	 * @throws IllegalArgumentException if a metric of another type is already registered under the name
+	 */
+	private static <M extends Metric> M lookup(String name, Class<M> type, Supplier<M> factory) {
+		Metric metric = registry.computeIfAbsent(name, n -> factory.get());
+		if (!type.isInstance(metric)) {
+			throw new IllegalArgumentException("Metric " + name + " is a " + metric.getClass().getSimpleName()
+					+ ", not a " + type.getSimpleName());
+		}
+		return type.cast(metric);
+	}
+
+	/**
+	 * The method to register a gauge, replacing any gauge already registered under the same name
+	 * @param name is the name of the gauge
+	 * @param value is the function reading the current value of the gauge
+	 * @return the registered gauge
+	 */
+	public static Gauge gauge(String name, DoubleSupplier value) {
+		Gauge gauge = new Gauge(value);
+		registry.put(name, gauge);
+		return gauge;
+	}
+
+	/**
+	 * @return the current values of all the metrics, in the order of their names
+	 */
+	public static Map<String, Object> snapshot() {
+		Map<String, Object> values = new LinkedHashMap<>();
+		double uptimeSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+		for (Map.Entry<String, Metric> e : registry.entrySet()) {
+			e.getValue().putValues(e.getKey(), values, uptimeSeconds);
+		}
+
+		return values;
+	}
+
+	/**
+	 * @return the current values of all the metrics as text, one "name value" per line
+	 */
+	public static String toText() {
+		StringBuilder sb = new StringBuilder();
+
+		for (Map.Entry<String, Object> e : snapshot().entrySet()) {
+			Object v = e.getValue();
+			sb.append(e.getKey()).append(' ');
+			if (v instanceof Double)
+				sb.append(String.format("%.3f", (Double) v));
+			else
+				sb.append(v);
+			sb.append('\n');
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * The method to write the current values of all the metrics in a file, replacing its content
+	 * @param path is the relative path of the file
+	 */
+	public static void dumpTo(String path) {
+		try (FileWriter writer = new FileWriter(path)) {
+			writer.write(toText());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * The method to write the current values of all the metrics in a file every given number of seconds, from a
+	 * background thread that does not keep the JVM alive
+	 * @param path is the relative path of the file
+	 * @param periodSeconds is the time between two dumps
+	 */
+	public static synchronized void dumpPeriodically(String path, long periodSeconds) {
+		if (dumper != null) dumper.shutdownNow();
+
+		dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "metrics-dumper");
+			t.setDaemon(true);
+			return t;
+		});
+		dumper.scheduleAtFixedRate(() -> dumpTo(path), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * The method to expose all the metrics over JMX as the read only attributes of the MBean ir:type=Metrics
+	 */
+	public static synchronized void exposeOverJmx() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(JMX_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new MetricsMBean(), name);
+			}
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * a private class exposing the metrics registry as an MBean, its attributes are read from the registry every time
+	 * so that metrics created after the registration are exposed too
+	 */
+	private static class MetricsMBean implements DynamicMBean {
+		@Override
+		public Object getAttribute(String attribute) {
+			return snapshot().get(attribute);
+		}
+
+		@Override
+		public AttributeList getAttributes(String[] attributes) {
+			Map<String, Object> values = snapshot();
+			AttributeList list = new AttributeList();
+			for (String attribute : attributes) {
+				if (values.containsKey(attribute))
+					list.add(new Attribute(attribute, values.get(attribute)));
+			}
+			return list;
+		}
+
+		@Override
+		public MBeanInfo getMBeanInfo() {
+			Map<String, Object> values = snapshot();
+			MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+			int i = 0;
+			for (Map.Entry<String, Object> e : values.entrySet()) {
+				attributes[i++] = new MBeanAttributeInfo(e.getKey(), e.getValue().getClass().getName(), e.getKey(),
+						true, false, false);
+			}
+			return new MBeanInfo(Metrics.class.getName(), "Search engine metrics", attributes, null, null, null);
+		}
+
+		@Override
+		public void setAttribute(Attribute attribute) {
+			throw new UnsupportedOperationException("Metrics are read only");
+		}
+
+		@Override
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList();
+		}
+
+		@Override
+		public Object invoke(String actionName, Object[] params, String[] signature) {
+			throw new UnsupportedOperationException("Metrics have no operations");
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package ir.commons.metrics;
+
+/**
+ * A metric keeping the distribution of the time spent in an operation, reported in milliseconds
+ * @author Surbhi Gupta
+ */
+public class Timer extends Histogram {
+	private static final double NANOS_PER_MILLI = 1e6;
+
+	Timer() {
+		super(NANOS_PER_MILLI);
+	}
+
+	/**
+	 * @return the start time of an operation, to be passed to stop
+	 */
+	public long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * The method to record the time spent since the given start
+	 * @param start is the value returned by start when the operation began
+	 * @return the time spent in nanoseconds
+	 */
+	public long stop(long start) {
+		long nanos = System.nanoTime() - start;
+		record(nanos);
+		return nanos;
+	}
+}
@@ -0,0 +1,90 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.scoreAndRank.CompiledQuery;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the bytes the searcher allocates per query, with the allocation counter of the current thread, on the
+ * steady state path running compiled queries and on the full search path, after warming both up. It exits with
+ * status 1 if the steady state path allocates more than the budget, which fails the build run with the
+ * allocation-budget profile
+ * usage: AllocationBudgetRunner [name=value]... with the names
+ * budget (bytes per query), rounds, warmup (rounds), k, queries, index, docLength
+ * @author Surbhi Gupta
+ */
+public class AllocationBudgetRunner {
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("budget", "64");
+		options.put("rounds", "50");
+		options.put("warmup", "200");
+		options.put("k", "100");
+		options.put("queries", "data/input/cacm.query");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+			System.out.println("This JVM does not count the bytes allocated by a thread");
+			return;
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		long thread = Thread.currentThread().getId();
+
+		Searcher searcher = new Searcher(InMemoryIndex.load(options.get("index"), options.get("docLength")), null, 0,
+				null);
+		List<SearchQuery> queries = Utils.parseXML(options.get("queries"));
+		List<CompiledQuery> compiled = new ArrayList<>();
+		for (SearchQuery query : queries) {
+			compiled.add(searcher.compile(query));
+		}
+		int k = Integer.parseInt(options.get("k"));
+		int[] docs = new int[k];
+		double[] scores = new double[k];
+		int rounds = Integer.parseInt(options.get("rounds"));
+
+		for (int r = 0; r < Integer.parseInt(options.get("warmup")); r++) {
+			for (int q = 0; q < queries.size(); q++) {
+				searcher.search(compiled.get(q), k, docs, scores);
+				searcher.search(queries.get(q), k, false);
+			}
+		}
+
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int r = 0; r < rounds; r++) {
+			for (CompiledQuery cq : compiled) {
+				searcher.search(cq, k, docs, scores);
+			}
+		}
+		double steadyBytes = (double) (threads.getThreadAllocatedBytes(thread) - before) / rounds / queries.size();
+
+		before = threads.getThreadAllocatedBytes(thread);
+		for (int r = 0; r < rounds; r++) {
+			for (SearchQuery query : queries) {
+				searcher.search(query, k, false);
+			}
+		}
+		double fullBytes = (double) (threads.getThreadAllocatedBytes(thread) - before) / rounds / queries.size();
+
+		double budget = Double.parseDouble(options.get("budget"));
+		System.out.println(String.format("bytes allocated per query, steady state path: %.1f (budget %.0f), "
+				+ "full search path: %.1f", steadyBytes, budget, fullBytes));
+		if (steadyBytes > budget) {
+			System.out.println("The steady state path is over its allocation budget");
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.scoreAndRank.AnytimeResult;
+import ir.algorithms.scoreAndRank.AnytimeSearcher;
+import ir.algorithms.scoreAndRank.DocScore;
+import ir.algorithms.scoreAndRank.ImpactIndex;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+import ir.commons.metrics.Metrics;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs the query file through the score-at-a-time searcher under a series of posting budgets and a time budget, and
+ * prints for every posting budget how much of the budgets the queries used, how many of them were scored completely
+ * and how many of the top k documents of exhaustive BM25 scoring they found
+ * usage: AnytimeSearchRunner [name=value]... with the names
+ * budgets (postings, comma separated), time (milliseconds), k, queries, index, docLength
+ * @author Surbhi Gupta
+ */
+public class AnytimeSearchRunner {
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("budgets", "500,1000,2000,5000,1000000");
+		options.put("time", "5");
+		options.put("k", "100");
+		options.put("queries", "data/input/cacm.query");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		Metrics.exposeOverJmx();
+		InMemoryIndex index = InMemoryIndex.load(options.get("index"), options.get("docLength"));
+		Searcher exact = new Searcher(index, null, 0, null);
+		AnytimeSearcher anytime = new AnytimeSearcher(ImpactIndex.build(index));
+		List<SearchQuery> queries = Utils.parseXML(options.get("queries"));
+		int k = Integer.parseInt(options.get("k"));
+		long timeBudgetNanos = (long) (Double.parseDouble(options.get("time")) * 1e6);
+
+		System.out.println("postings budget | budget used | complete | latency (ms) | overlap@" + k);
+		for (String budget : options.get("budgets").split(",")) {
+			long postingBudget = Long.parseLong(budget.trim());
+			double budgetUsed = 0d;
+			int complete = 0;
+			long nanos = 0;
+			double overlap = 0d;
+
+			for (SearchQuery query : queries) {
+				AnytimeResult result = anytime.search(query, k, postingBudget, timeBudgetNanos);
+				budgetUsed += result.getBudgetUsed();
+				if (result.isComplete()) complete++;
+				nanos += result.nanos;
+				overlap += overlap(result.hits, exact.search(query, k, false).hits);
+			}
+
+			System.out.println(String.format("%15d | %10.1f%% | %4d/%-3d | %12.3f | %8.1f%%", postingBudget,
+					100d * budgetUsed / queries.size(), complete, queries.size(), nanos / 1e6 / queries.size(),
+					100d * overlap / queries.size()));
+		}
+		Metrics.dumpTo(METRICS_PATH);
+	}
+
+	/**
+	 * @return the fraction of the exact top documents that the approximate ones have
+	 */
+	private static double overlap(List<DocScore> approximate, List<DocScore> exact) {
+		if (exact.isEmpty()) return 1d;
+
+		Set<String> docIDs = new HashSet<>();
+		for (DocScore ds : exact) {
+			docIDs.add(ds.docID);
+		}
+		int found = 0;
+		for (DocScore ds : approximate) {
+			if (docIDs.contains(ds.docID)) found++;
+		}
+		return (double) found / exact.size();
+	}
+}
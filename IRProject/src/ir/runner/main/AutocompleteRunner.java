@@ -0,0 +1,94 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.TermDictionary;
+import ir.algorithms.suggest.Autocompleter;
+import ir.algorithms.suggest.Suggestion;
+import ir.commons.metrics.Metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the autocompleter of the printed inverted index, checks the completions of every prefix of every term against
+ * a scan of the dictionary, times them, and prints the completions of a few prefixes. Options are given as name=value:
+ * k: the number of completions per prefix (10)
+ * prefixes: the comma separated prefixes to print the completions of (a,com,par,sort,zzz)
+ * @author Surbhi Gupta
+ */
+public class AutocompleteRunner {
+	private static final String INDEX_PATH = "data/output/invertedIndex1gram.txt";
+	private static final String DOC_LENGTH_PATH = "data/output/docLength.txt";
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("k", String.valueOf(Autocompleter.DEFAULT_MAX_K));
+		options.put("prefixes", "a,com,par,sort,zzz");
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (eq > 0) options.put(arg.substring(0, eq), arg.substring(eq + 1));
+		}
+		int k = Integer.parseInt(options.get("k"));
+		Metrics.exposeOverJmx();
+
+		TermDictionary dictionary = InMemoryIndex.load(INDEX_PATH, DOC_LENGTH_PATH).getDictionary();
+		long start = System.nanoTime();
+		Autocompleter autocompleter = Autocompleter.build(dictionary, k);
+		System.out.println(String.format("%d terms, trie of %d nodes built in %.3fms", dictionary.size(),
+				autocompleter.getNodeCount(), (System.nanoTime() - start) / 1e6));
+
+		Set<String> prefixes = new LinkedHashSet<>();
+		prefixes.add("");
+		TermDictionary.Cursor cursor = dictionary.first();
+		while (cursor.next()) {
+			String term = cursor.term();
+			for (int i = 1; i <= term.length(); i++) prefixes.add(term.substring(0, i));
+		}
+
+		int errors = 0;
+		for (String prefix : prefixes) {
+			if (!autocompleter.complete(prefix, k).toString().equals(scan(dictionary, prefix, k).toString())) errors++;
+		}
+
+		long[] nanos = new long[prefixes.size()];
+		for (int round = 0; round < 3; round++) {
+			int i = 0;
+			for (String prefix : prefixes) {
+				long t = System.nanoTime();
+				autocompleter.complete(prefix, k);
+				nanos[i++] = System.nanoTime() - t;
+			}
+		}
+		Arrays.sort(nanos);
+		System.out.println(String.format("%d prefixes, %d differ from a scan, latency p50: %.3fus, p99: %.3fus, " +
+				"max: %.3fus", prefixes.size(), errors, nanos[nanos.length / 2] / 1e3,
+				nanos[(int) (nanos.length * 0.99)] / 1e3, nanos[nanos.length - 1] / 1e3));
+
+		for (String prefix : options.get("prefixes").split(",")) {
+			System.out.println(prefix + ": " + autocompleter.complete(prefix, k));
+		}
+
+		Metrics.dumpTo(METRICS_PATH);
+	}
+
+	/**
+	 * The method to complete a prefix by scanning all the terms starting with it
+	 */
+	private static List<Suggestion> scan(TermDictionary dictionary, String prefix, int k) {
+		byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+		List<Suggestion> all = new ArrayList<>();
+		for (TermDictionary.Cursor c = dictionary.seek(bytes); c.isValid() && c.startsWith(bytes); c.next())
+			all.add(new Suggestion(c.term(), c.df()));
+
+		// a stable sort keeps the terms of equal df in dictionary order
+		all.sort((s1, s2) -> Integer.compare(s2.getDf(), s1.getDf()));
+		return all.subList(0, Math.min(k, all.size()));
+	}
+}
@@ -0,0 +1,92 @@
+package ir.runner.main;
+
+import ir.algorithms.analysis.Analyzer;
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.TermStatistics;
+import ir.algorithms.scoreAndRank.BM25Parameters;
+import ir.algorithms.scoreAndRank.BM25Sweep;
+import ir.algorithms.scoreAndRank.ThesaurusAndOntology;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+import ir.commons.metrics.Metrics;
+
+import java.io.FileWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sweeps the BM25 parameters over a grid of values on the query file, reading the index and the relevance judgements
+ * once, and writes every combination ranked by MAP, printing the best ones
+ * usage: BM25SweepRunner [name=value]... with the names
+ * k1, k2, b (comma separated values), threads, n, top (rows printed), expand (true|false), queries, rel, index,
+ * docLength, output
+ * @author Surbhi Gupta
+ */
+public class BM25SweepRunner {
+	private static final String STOP_LIST_PATH = "data/input/common_words";
+	private static final long EXPANSION_POSTING_BUDGET = 5000;
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("k1", "0.6,0.9,1.2,1.5,2.0");
+		options.put("k2", "1,10,100,1000");
+		options.put("b", "0.25,0.5,0.75,0.9,1.0");
+		options.put("threads", "" + Runtime.getRuntime().availableProcessors());
+		options.put("n", "100");
+		options.put("top", "10");
+		options.put("expand", "false");
+		options.put("queries", "data/input/cacm.query");
+		options.put("rel", "data/input/cacm.rel");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		options.put("output", "data/output/analysis/bm25_sweep.txt");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		Metrics.exposeOverJmx();
+		InMemoryIndex index = InMemoryIndex.load(options.get("index"), options.get("docLength"));
+		List<SearchQuery> queries = Utils.parseXML(options.get("queries"));
+		if (Boolean.parseBoolean(options.get("expand"))) {
+			TermStatistics termStats = TermStatistics.load(options.get("index"), options.get("docLength"));
+			queries = new ThesaurusAndOntology(STOP_LIST_PATH).getExpandedQueries_THR(queries, termStats,
+					EXPANSION_POSTING_BUDGET);
+		}
+		BM25Sweep sweep = new BM25Sweep(index, queries, Analyzer.loadRelevance(options.get("rel")),
+				Integer.parseInt(options.get("n")));
+		List<BM25Parameters> grid = BM25Sweep.grid(parse(options.get("k1")), parse(options.get("k2")),
+				parse(options.get("b")));
+
+		System.out.println("Evaluating " + grid.size() + " configurations on " + sweep.getQueryCount() + " queries...");
+		long start = System.nanoTime();
+		List<BM25Sweep.Configuration> results = sweep.run(grid, Integer.parseInt(options.get("threads")));
+		System.out.println(String.format("Done in %.3fs", (System.nanoTime() - start) / 1e9));
+
+		int top = Integer.parseInt(options.get("top"));
+		try (FileWriter writer = new FileWriter(options.get("output"))) {
+			String header = String.format("%4s %6s %8s %6s | %6s %6s %6s %6s", "rank", "k1", "k2", "b", "MAP", "MRR",
+					"P@5", "P@20");
+			writer.write(header + "\n");
+			System.out.println(header);
+			for (int i = 0; i < results.size(); i++) {
+				BM25Sweep.Configuration c = results.get(i);
+				String row = String.format("%4d %6.2f %8.1f %6.2f | %6.4f %6.4f %6.4f %6.4f", i + 1,
+						c.parameters.k1, c.parameters.k2, c.parameters.b, c.MAP, c.MRR, c.pAt5, c.pAt20);
+				writer.write(row + "\n");
+				if (i < top) System.out.println(row);
+			}
+		}
+		Metrics.dumpTo(METRICS_PATH);
+	}
+
+	private static double[] parse(String values) {
+		String[] parts = values.split(",");
+		double[] parsed = new double[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			parsed[i] = Double.parseDouble(parts[i].trim());
+		}
+		return parsed;
+	}
+}
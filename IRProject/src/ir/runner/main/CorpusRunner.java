@@ -3,13 +3,32 @@ package ir.runner.main;
 import java.io.IOException;
 
 import ir.algorithms.corpus.CorpusGenerator;
+import ir.commons.metrics.Metrics;
 
 /**
+ * usage: CorpusRunner [metadata | threshold [collapse]], where threshold is the least Jaccard similarity of a
+ * near-duplicate to its original (0.9), and collapse leaves the near-duplicates out of the corpus instead of only
+ * flagging them in data/output/nearDuplicates.txt
  * @author Surbhi Gupta
  */
 public class CorpusRunner {
+	private final static String METRICS_PATH = "data/output/metrics.txt";
+
 	public static void main(String[] args) throws IOException {
-		//create corpus
-		CorpusGenerator.corpus();
+		Metrics.exposeOverJmx();
+		Metrics.dumpPeriodically(METRICS_PATH, 10);
+
+		if (args.length > 0 && args[0].equals("metadata")) {
+			//extract only the metadata of a corpus generated without it
+			CorpusGenerator.metadata();
+		} else if (args.length > 0) {
+			//create corpus with the given near-duplicate detection
+			CorpusGenerator.corpus(Double.parseDouble(args[0]), args.length > 1 && args[1].equals("collapse"));
+		} else {
+			//create corpus
+			CorpusGenerator.corpus();
+		}
+
+		Metrics.dumpTo(METRICS_PATH);
 	}
 }
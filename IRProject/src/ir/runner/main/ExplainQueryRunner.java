@@ -0,0 +1,34 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.scoreAndRank.SearchResult;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.algorithms.scoreAndRank.ThesaurusAndOntology;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+
+/**
+ * Runs a single query with profiling on and prints, for every query term, what it cost and what it added to the score
+ * of every returned document
+ * usage: ExplainQueryRunner "query text" [k] [expand (true|false)]
+ * @author Surbhi Gupta
+ */
+public class ExplainQueryRunner {
+	private static final String STOP_LIST_PATH = "data/input/common_words";
+	private static final String INDEX_PATH = "data/output/invertedIndex1gram.txt";
+	private static final String DOC_LENGTH_PATH = "data/output/docLength.txt";
+	private static final long EXPANSION_POSTING_BUDGET = 5000;
+
+	public static void main(String[] args) throws Exception {
+		String queryText = Utils.processContent(args[0]);
+		int k = (args.length > 1 ? Integer.parseInt(args[1]) : 10);
+		boolean expand = (args.length > 2 && Boolean.parseBoolean(args[2]));
+
+		InMemoryIndex index = InMemoryIndex.load(INDEX_PATH, DOC_LENGTH_PATH);
+		ThesaurusAndOntology thesaurus = (expand ? new ThesaurusAndOntology(STOP_LIST_PATH) : null);
+		Searcher searcher = new Searcher(index, thesaurus, EXPANSION_POSTING_BUDGET, null);
+
+		SearchResult result = searcher.search(new SearchQuery(1, queryText), k, false, true);
+		System.out.print(result.profile.explain(result.hits));
+	}
+}
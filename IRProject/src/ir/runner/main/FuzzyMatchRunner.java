@@ -0,0 +1,147 @@
+package ir.runner.main;
+
+import ir.algorithms.analysis.Analyzer;
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.TermDictionary;
+import ir.algorithms.scoreAndRank.DocScore;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.algorithms.suggest.FuzzyExpander;
+import ir.algorithms.suggest.FuzzyMatch;
+import ir.algorithms.suggest.FuzzyMatcher;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+import ir.commons.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Misspells the terms of the CACM queries, checks that the Levenshtein automaton finds exactly the terms an edit
+ * distance computation over the whole dictionary finds, compares their times, then measures the MAP of the misspelled
+ * queries with and without fuzzy matching against that of the original queries. Options are given as name=value:
+ * edits: the highest edit distance of a match (2)
+ * queries, rel, index, docLength: the input files
+ * @author Surbhi Gupta
+ */
+public class FuzzyMatchRunner {
+	private static final int MIN_MISSPELLED_LENGTH = 6;
+	private static final int RESULT_COUNT = 100;
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("edits", String.valueOf(FuzzyExpander.DEFAULT_MAX_EDITS));
+		options.put("queries", "data/input/cacm.query");
+		options.put("rel", "data/input/cacm.rel");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		int edits = Integer.parseInt(options.get("edits"));
+		Metrics.exposeOverJmx();
+
+		InMemoryIndex index = InMemoryIndex.load(options.get("index"), options.get("docLength"));
+		TermDictionary dictionary = index.getDictionary();
+		List<String> terms = TermDictionary.sort(index.getTerms());
+		FuzzyMatcher matcher = new FuzzyMatcher(dictionary);
+		List<SearchQuery> queries = Utils.parseXML(options.get("queries"));
+
+		Set<String> misspellings = new LinkedHashSet<>();
+		for (SearchQuery q : queries) {
+			for (String term : q.queryText.trim().split(" +")) {
+				if (term.length() < 3) continue;
+				misspellings.add(term.substring(0, term.length() / 2) + term.substring(term.length() / 2 + 1));
+				misspellings.add(term.substring(0, 1) + 'x' + term.substring(2));
+			}
+		}
+
+		int mismatches = 0;
+		long automatonNanos = 0, scanNanos = 0;
+		for (String word : misspellings) {
+			long start = System.nanoTime();
+			List<FuzzyMatch> matches = matcher.match(word, edits);
+			automatonNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			Set<String> expected = new LinkedHashSet<>();
+			for (String term : terms) {
+				if (distance(word, term) <= edits) expected.add(term);
+			}
+			scanNanos += System.nanoTime() - start;
+
+			Set<String> found = new LinkedHashSet<>();
+			for (FuzzyMatch m : matches) found.add(m.getTerm());
+			if (!found.equals(expected)) mismatches++;
+		}
+		long visited = Metrics.counter("suggest.fuzzy.terms.visited").get();
+		System.out.println(String.format("%d misspellings within %d edits, %d differ from a scan of %d terms",
+				misspellings.size(), edits, mismatches, terms.size()));
+		System.out.println(String.format("automaton: %.3fus and %d terms read per match, scan: %.3fus per match",
+				automatonNanos / 1e3 / misspellings.size(), visited / misspellings.size(),
+				scanNanos / 1e3 / misspellings.size()));
+
+		// every long term of every query loses its middle letter
+		List<SearchQuery> misspelled = new ArrayList<>();
+		for (SearchQuery q : queries) {
+			StringBuilder text = new StringBuilder();
+			for (String term : q.queryText.trim().split(" +")) {
+				if (term.length() >= MIN_MISSPELLED_LENGTH)
+					term = term.substring(0, term.length() / 2) + term.substring(term.length() / 2 + 1);
+				text.append(term).append(' ');
+			}
+			misspelled.add(new SearchQuery(q.id, text.toString().trim()));
+		}
+
+		Map<Integer, Set<String>> relevance = Analyzer.loadRelevance(options.get("rel"));
+		Searcher exact = new Searcher(index, null, 0, null);
+		Searcher fuzzy = new Searcher(index, index.getTermStatistics(), null, 0, null,
+				new FuzzyExpander(dictionary, edits));
+		System.out.println(String.format("MAP of the original queries: %.4f, of the misspelled ones: %.4f, " +
+				"with fuzzy matching: %.4f", map(exact, queries, relevance), map(exact, misspelled, relevance),
+				map(fuzzy, misspelled, relevance)));
+
+		Metrics.dumpTo(METRICS_PATH);
+	}
+
+	private static double map(Searcher searcher, List<SearchQuery> queries, Map<Integer, Set<String>> relevance)
+			throws Exception {
+		double sum = 0;
+		int judged = 0;
+		for (SearchQuery q : queries) {
+			Set<String> relevant = relevance.get(q.id);
+			if (relevant == null) continue;
+
+			List<String> ranked = new ArrayList<>();
+			for (DocScore ds : searcher.search(q, RESULT_COUNT, false).hits) ranked.add(ds.docID);
+			sum += Analyzer.evaluate(q.id, ranked, relevant).averagePrecision;
+			judged++;
+		}
+		return sum / judged;
+	}
+
+	/**
+	 * The method to compute the edit distance between two strings over their characters, as a check of the automaton
+	 */
+	private static int distance(String a, String b) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+}
@@ -0,0 +1,34 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.IndexSnapshot;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.commons.SearchQuery;
+
+/**
+ * Saves the printed inverted index as a snapshot, then times opening the snapshot, answering a first query from it
+ * and warming it up, as a searcher restarting from the snapshot would
+ * @author Surbhi Gupta
+ */
+public class IndexSnapshotRunner {
+	private static final String INDEX_PATH = "data/output/invertedIndex1gram.txt";
+	private static final String DOC_LENGTH_PATH = "data/output/docLength.txt";
+	private static final String SNAPSHOT_PATH = "data/output/index.snapshot";
+	private static final String FIRST_QUERY = "parallel algorithms for sorting";
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("Writing the index snapshot...");
+		IndexSnapshot.write(InMemoryIndex.load(INDEX_PATH, DOC_LENGTH_PATH), SNAPSHOT_PATH);
+
+		long start = System.nanoTime();
+		IndexSnapshot snapshot = IndexSnapshot.open(SNAPSHOT_PATH);
+		long opened = System.nanoTime();
+		new Searcher(snapshot, null, 0, null).search(new SearchQuery(1, FIRST_QUERY), 100, false);
+		long firstQuery = System.nanoTime();
+		long postings = snapshot.warmUp();
+		long warm = System.nanoTime();
+
+		System.out.println(String.format("open: %.3fms, first query: %.3fms, warmup of %d postings: %.3fms",
+				(opened - start) / 1e6, (firstQuery - opened) / 1e6, postings, (warm - firstQuery) / 1e6));
+	}
+}
@@ -3,16 +3,31 @@ package ir.runner.main;
 import java.io.IOException;
 
 import ir.algorithms.indexer.InvertedIndex;
+import ir.commons.analysis.AnalysisChain;
+import ir.commons.metrics.Metrics;
 
 /**
+ * usage: InvertedIndexRunner [standard | porter], porter writing the index of the stemmed words as
+ * data/output/invertedIndexPorter1gram.txt next to the standard one
  * @author Surbhi Gupta
  */
 public class InvertedIndexRunner {
 	private final static String CORPUS_DIR_NAME = "data/output/cacm_corpus/";
 	private final static String INDEX_NAME_PREFIX = "data/output/invertedIndex";
+	private final static String METRICS_PATH = "data/output/metrics.txt";
 	
 	public static void main(String[] args) throws IOException {
+		Metrics.exposeOverJmx();
+		Metrics.dumpPeriodically(METRICS_PATH, 10);
+
 		//create index
-		InvertedIndex.invertedIndexGenerator(CORPUS_DIR_NAME, INDEX_NAME_PREFIX);
+		AnalysisChain analysis = AnalysisChain.forName(args.length > 0 ? args[0] : AnalysisChain.STANDARD.getName());
+		String prefix = INDEX_NAME_PREFIX;
+		if (analysis != AnalysisChain.STANDARD) {
+			prefix += Character.toUpperCase(analysis.getName().charAt(0)) + analysis.getName().substring(1);
+		}
+		InvertedIndex.invertedIndexGenerator(CORPUS_DIR_NAME, prefix, analysis);
+
+		Metrics.dumpTo(METRICS_PATH);
 	}
 }
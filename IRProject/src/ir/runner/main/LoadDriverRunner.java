@@ -0,0 +1,79 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.IndexSnapshot;
+import ir.algorithms.indexer.SearchIndex;
+import ir.algorithms.load.LoadDriver;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.algorithms.scoreAndRank.ThesaurusAndOntology;
+import ir.algorithms.snippet.SnippetGenerator;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+import ir.commons.metrics.Metrics;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays a query file against the searcher, closed loop or open loop, and prints throughput and latency percentiles
+ * usage: LoadDriverRunner [name=value]... with the names
+ * mode (closed|open), clients, qps, duration (seconds), k, snippets (true|false), expand (true|false),
+ * queries, snapshot (opened instead of the index if it exists), index, docLength, corpus
+ * @author Surbhi Gupta
+ */
+public class LoadDriverRunner {
+	private static final String STOP_LIST_PATH = "data/input/common_words";
+	private static final long EXPANSION_POSTING_BUDGET = 5000;
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("mode", "closed");
+		options.put("clients", "4");
+		options.put("qps", "50");
+		options.put("duration", "30");
+		options.put("k", "100");
+		options.put("snippets", "false");
+		options.put("expand", "false");
+		options.put("queries", "data/input/cacm.query");
+		options.put("snapshot", "data/output/index.snapshot");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		options.put("corpus", "data/output/cacm_corpus/");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		Metrics.exposeOverJmx();
+		Metrics.dumpPeriodically(METRICS_PATH, 10);
+
+		SearchIndex index;
+		if (new File(options.get("snapshot")).exists()) {
+			System.out.println("Opening the index snapshot...");
+			index = IndexSnapshot.open(options.get("snapshot"));
+		} else {
+			System.out.println("Loading the index...");
+			index = InMemoryIndex.load(options.get("index"), options.get("docLength"));
+		}
+		ThesaurusAndOntology thesaurus = (Boolean.parseBoolean(options.get("expand")) ?
+				new ThesaurusAndOntology(STOP_LIST_PATH) : null);
+		Searcher searcher = new Searcher(index, thesaurus, EXPANSION_POSTING_BUDGET,
+				new SnippetGenerator(options.get("corpus")));
+		List<SearchQuery> queries = Utils.parseXML(options.get("queries"));
+
+		LoadDriver driver = new LoadDriver(searcher, queries, Integer.parseInt(options.get("k")),
+				Boolean.parseBoolean(options.get("snippets")));
+		double duration = Double.parseDouble(options.get("duration"));
+		int clients = Integer.parseInt(options.get("clients"));
+		if (options.get("mode").equals("open")) {
+			driver.runOpenLoop(Double.parseDouble(options.get("qps")), duration, clients);
+		} else {
+			driver.runClosedLoop(clients, duration);
+		}
+
+		System.out.print(driver.report());
+		Metrics.dumpTo(METRICS_PATH);
+	}
+}
@@ -0,0 +1,126 @@
+package ir.runner.main;
+
+import ir.algorithms.corpus.NearDuplicateDetector;
+import ir.commons.Utils;
+import ir.commons.metrics.Metrics;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Reads a generated corpus, adds near-duplicates of some of its documents with a few words changed, then checks the
+ * near-duplicates MinHash and LSH find against those an exact Jaccard similarity over every pair of documents finds,
+ * timing both. Nothing is written but the metrics. Options are given as name=value:
+ * threshold: the least Jaccard similarity of a near-duplicate (0.9)
+ * copies: the number of near-duplicates added (200)
+ * edits: the highest number of words changed in a near-duplicate (2)
+ * corpus: the corpus directory
+ * @author Surbhi Gupta
+ */
+public class NearDuplicateRunner {
+	private static final String CORPUS_FILE_PREFIX = "CACM";
+	private static final long SEED = 7;
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("threshold", String.valueOf(NearDuplicateDetector.DEFAULT_THRESHOLD));
+		options.put("copies", "200");
+		options.put("edits", "2");
+		options.put("corpus", "data/output/cacm_corpus/");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		double threshold = Double.parseDouble(options.get("threshold"));
+		Metrics.exposeOverJmx();
+
+		List<String> docIDs = new ArrayList<>();
+		List<String> contents = new ArrayList<>();
+		for (File file : Utils.readFilesFromDirectory(options.get("corpus"), CORPUS_FILE_PREFIX, "")) {
+			docIDs.add(file.getName().replace(".txt", ""));
+			contents.add(new String(Files.readAllBytes(file.toPath())));
+		}
+		int corpusSize = docIDs.size();
+
+		// a copy of a random document, with up to edits of its words replaced by a word of another document
+		Random random = new Random(SEED);
+		int edits = Integer.parseInt(options.get("edits"));
+		for (int c = 0; c < Integer.parseInt(options.get("copies")); c++) {
+			String[] words = contents.get(random.nextInt(corpusSize)).split("\\s+");
+			String[] other = contents.get(random.nextInt(corpusSize)).split("\\s+");
+			for (int e = random.nextInt(edits + 1); e > 0; e--) {
+				words[random.nextInt(words.length)] = other[random.nextInt(other.length)];
+			}
+			docIDs.add("COPY-" + c);
+			contents.add(String.join(" ", words));
+		}
+
+		NearDuplicateDetector detector = new NearDuplicateDetector(threshold);
+		long start = System.nanoTime();
+		Set<String> found = new HashSet<>();
+		for (int d = 0; d < docIDs.size(); d++) {
+			NearDuplicateDetector.NearDuplicate duplicate = detector.add(docIDs.get(d), contents.get(d));
+			if (duplicate != null) found.add(duplicate.docID);
+		}
+		long lshNanos = System.nanoTime() - start;
+
+		// a document is a near-duplicate if it is similar enough to any document before it
+		start = System.nanoTime();
+		List<Set<String>> shingleSets = new ArrayList<>();
+		for (String content : contents) shingleSets.add(shingles(content));
+		Set<String> expected = new HashSet<>();
+		for (int d = 0; d < docIDs.size(); d++) {
+			for (int o = 0; o < d; o++) {
+				if (jaccard(shingleSets.get(d), shingleSets.get(o)) >= threshold) {
+					expected.add(docIDs.get(d));
+					break;
+				}
+			}
+		}
+		long pairwiseNanos = System.nanoTime() - start;
+
+		Set<String> missed = new HashSet<>(expected);
+		missed.removeAll(found);
+		Set<String> extra = new HashSet<>(found);
+		extra.removeAll(expected);
+		System.out.println(String.format("%d documents (%d copies), %d bands of %d rows at a threshold of %.2f",
+				docIDs.size(), docIDs.size() - corpusSize, detector.getBands(), detector.getRows(), threshold));
+		System.out.println(String.format("near-duplicates: %d found, %d by the pairwise comparison, %d missed, " +
+				"%d found below the threshold", found.size(), expected.size(), missed.size(), extra.size()));
+		System.out.println(String.format("MinHash and LSH: %.1fms (%.1fus per document, %d comparisons), " +
+				"pairwise: %.1fms", lshNanos / 1e6, lshNanos / 1e3 / docIDs.size(),
+				Metrics.counter("corpus.near.duplicates.candidates").get(), pairwiseNanos / 1e6));
+
+		Metrics.dumpTo(METRICS_PATH);
+	}
+
+	/**
+	 * The method to get the shingles of a document the way NearDuplicateDetector hashes them
+	 */
+	private static Set<String> shingles(String content) {
+		String[] words = content.trim().split("\\s+");
+		int size = NearDuplicateDetector.DEFAULT_SHINGLE_SIZE;
+		Set<String> shingles = new HashSet<>();
+		for (int s = 0; s < Math.max(1, words.length - size + 1); s++) {
+			StringBuilder shingle = new StringBuilder();
+			for (int w = s; w < Math.min(s + size, words.length); w++) shingle.append(words[w]).append(' ');
+			shingles.add(shingle.toString());
+		}
+		return shingles;
+	}
+
+	private static double jaccard(Set<String> a, Set<String> b) {
+		int common = 0;
+		for (String s : a) {
+			if (b.contains(s)) common++;
+		}
+		return (double) common / (a.size() + b.size() - common);
+	}
+}
@@ -0,0 +1,82 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.DocumentTable;
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.PostingList;
+import ir.algorithms.scoreAndRank.ScoringKernel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the scoring kernel this JVM loads with the scalar one over every inverted list of the index: checks that
+ * their contributions are within ScoringKernel.EPSILON of each other, exiting with status 1 if they are not, and
+ * prints the postings each one scores per second on a single core. Run it with --add-modules jdk.incubator.vector
+ * to load the SIMD kernel
+ * usage: ScoringKernelRunner [name=value]... with the names rounds, index, docLength
+ * @author Surbhi Gupta
+ */
+public class ScoringKernelRunner {
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("rounds", "200");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		InMemoryIndex index = InMemoryIndex.load(options.get("index"), options.get("docLength"));
+		DocumentTable docTable = index.getDocTable();
+		double[] docNorms = ScoringKernel.docNorms(docTable, docTable.getAverageDocLength());
+		List<PostingList> postings = new ArrayList<>();
+		for (String term : index.getTerms()) {
+			postings.add(index.getPostings(term));
+		}
+		ScoringKernel kernel = ScoringKernel.DEFAULT;
+		System.out.println("Loaded kernel: " + kernel.getName());
+
+		double[] expected = new double[ScoringKernel.BLOCK_SIZE];
+		double[] actual = new double[ScoringKernel.BLOCK_SIZE];
+		double maxError = 0d;
+		for (PostingList pl : postings) {
+			for (int from = 0; from < pl.df(); from += ScoringKernel.BLOCK_SIZE) {
+				int to = Math.min(from + ScoringKernel.BLOCK_SIZE, pl.df());
+				ScoringKernel.SCALAR.contributions(pl.docs, pl.tfs, from, to, docNorms, 1.2d, 3.7d, expected);
+				kernel.contributions(pl.docs, pl.tfs, from, to, docNorms, 1.2d, 3.7d, actual);
+				for (int i = 0; i < to - from; i++) {
+					maxError = Math.max(maxError, Math.abs(actual[i] - expected[i]) / Math.abs(expected[i]));
+				}
+			}
+		}
+		System.out.println(String.format("largest relative difference from the scalar kernel: %.3e (epsilon %.0e)",
+				maxError, ScoringKernel.EPSILON));
+
+		int rounds = Integer.parseInt(options.get("rounds"));
+		for (ScoringKernel k : new ScoringKernel[]{ScoringKernel.SCALAR, kernel, ScoringKernel.SCALAR, kernel}) {
+			long scored = 0;
+			double checksum = 0d;
+			long start = System.nanoTime();
+			for (int r = 0; r < rounds; r++) {
+				for (PostingList pl : postings) {
+					for (int from = 0; from < pl.df(); from += ScoringKernel.BLOCK_SIZE) {
+						int to = Math.min(from + ScoringKernel.BLOCK_SIZE, pl.df());
+						k.contributions(pl.docs, pl.tfs, from, to, docNorms, 1.2d, 3.7d, actual);
+						checksum += actual[0];
+					}
+					scored += pl.df();
+				}
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.println(String.format("%-10s %8.1f M postings/s (checksum %.3f)", k.getName(),
+					scored / seconds / 1e6, checksum));
+		}
+
+		if (maxError > ScoringKernel.EPSILON) {
+			System.out.println("The loaded kernel is not within epsilon of the scalar one");
+			System.exit(1);
+		}
+	}
+}
@@ -5,17 +5,21 @@ import java.util.List;
 import javax.xml.parsers.ParserConfigurationException;
 import org.xml.sax.SAXException;
 import ir.algorithms.analysis.Analyzer;
+import ir.algorithms.indexer.TermStatistics;
 import ir.algorithms.scoreAndRank.BM25;
 import ir.commons.SearchQuery;
 import ir.algorithms.scoreAndRank.ThesaurusAndOntology;
 import ir.algorithms.snippet.SnippetGenerator;
 import ir.commons.Utils;
+import ir.commons.metrics.Metrics;
 
 /**
  * @author Surbhi Gupta
  */
 public class SearchEngineRunner {
 	private static final int RESULT_SIZE = 100;
+	private static final long EXPANSION_POSTING_BUDGET = 5000;
+	private static final int QUERY_BATCH_SIZE = 16;
 
 	private static final String STOP_LIST_PATH = "data/input/common_words";
 	private static final String QUERY_PATH = "data/input/cacm.query";
@@ -23,6 +27,8 @@ public class SearchEngineRunner {
 	private static final String CORPUS_PATH = "data/output/cacm_corpus/";
 	private static final String INDEX_PATH = "data/output/invertedIndex1gram.txt";
 	private static final String DOC_LENGTH_PATH = "data/output/docLength.txt";
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+	private static final long METRICS_DUMP_PERIOD_SECONDS = 10;
 	private static final String RESULT_FILE_PREFIX_BM25_THR = "data/output/result/bm25_thr/resultBM25_THR_forQuery_";
 	private static final String SNIPPET_FILE_PREFIX_BM25_THR = "data/output/snippet/bm25_thr/snippetBM25_THR_forQuery_";
 	private static final String ANALYSIS_FILE_PREFIX_BM25_THR = "data/output/analysis/bm25_thr/analysisBM25_THR";
@@ -36,17 +42,21 @@ public class SearchEngineRunner {
 	public static void main(String[] args) throws IOException, ParserConfigurationException, SAXException {
 		System.out.println("Search Engine");
 		System.out.println("uses BM25 for scoring, Thesaurus for expanding queries and Relevance Feedback for evaluation");
+		Metrics.exposeOverJmx();
+		Metrics.dumpPeriodically(METRICS_PATH, METRICS_DUMP_PERIOD_SECONDS);
 
 		// read the queries from the XML file into a List
 		List<SearchQuery> queryList = Utils.parseXML(QUERY_PATH);
 
-		// perform query expansion by referring to the query terms in a dictionary for their synonyms
+		// perform query expansion by referring to the query terms in a dictionary for their synonyms, keeping only
+		// the synonyms whose postings fit in the per-query budget
+		TermStatistics termStats = TermStatistics.load(INDEX_PATH, DOC_LENGTH_PATH);
 		ThesaurusAndOntology thr = new ThesaurusAndOntology(STOP_LIST_PATH);
-		List<SearchQuery> queryListAfterTHR = thr.getExpandedQueries_THR(queryList);
+		List<SearchQuery> queryListAfterTHR = thr.getExpandedQueries_THR(queryList, termStats, EXPANSION_POSTING_BUDGET);
 
-		// perform Search on the expanded query list
-		BM25.scoreAndRetrieve(queryListAfterTHR, RESULT_SIZE, CORPUS_PATH, INDEX_PATH, DOC_LENGTH_PATH,
-				RESULT_FILE_PREFIX_BM25_THR, REL_FEEDBACK_PATH, queryList.size());
+		// perform Search on the expanded query list, in batches sharing the decoding of common terms
+		BM25.scoreAndRetrieveBatch(queryListAfterTHR, RESULT_SIZE, CORPUS_PATH, INDEX_PATH, DOC_LENGTH_PATH,
+				RESULT_FILE_PREFIX_BM25_THR, REL_FEEDBACK_PATH, queryList.size(), QUERY_BATCH_SIZE);
 
 		/**
 		 * generate snippets for the results
@@ -62,5 +72,7 @@ public class SearchEngineRunner {
 		 */
 		Analyzer.generateStats(RESULT_FILE_PREFIX_BM25_THR, REL_FEEDBACK_PATH, ANALYSIS_FILE_PREFIX_BM25_THR,
 				queryList.size());
+
+		Metrics.dumpTo(METRICS_PATH);
 	}
 }
@@ -0,0 +1,100 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.DocumentMetadata;
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.IndexSnapshot;
+import ir.algorithms.indexer.SearchIndex;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.algorithms.scoreAndRank.ThesaurusAndOntology;
+import ir.algorithms.server.SearchServer;
+import ir.algorithms.snippet.SnippetGenerator;
+import ir.algorithms.suggest.FuzzyExpander;
+import ir.algorithms.suggest.SpellChecker;
+import ir.commons.Utils;
+import ir.commons.analysis.AnalysisChain;
+import ir.commons.metrics.Metrics;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Loads the index, the document lengths and the expansion table once and serves queries over HTTP until it is killed.
+ * The index is opened from its snapshot if there is one, and warmed up in the background while queries are served
+ * usage: SearchServerRunner [name=value]... with the names
+ * port, expand (true|false), fuzzy (true|false, to match the misspelled terms), queries (to preload the expansion
+ * table from), snapshot, index, docLength, metadata, corpus, spelling (the spelling index, "did you mean" is off
+ * if it does not exist), analysis (standard|porter, the analysis chain the index was built with)
+ * @author Surbhi Gupta
+ */
+public class SearchServerRunner {
+	private static final String STOP_LIST_PATH = "data/input/common_words";
+	private static final long EXPANSION_POSTING_BUDGET = 5000;
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("port", "8080");
+		options.put("expand", "false");
+		options.put("fuzzy", "false");
+		options.put("queries", "data/input/cacm.query");
+		options.put("snapshot", "data/output/index.snapshot");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		options.put("metadata", "data/output/docMetadata.txt");
+		options.put("corpus", "data/output/cacm_corpus/");
+		options.put("spelling", "data/output/invertedIndex1gram.spelling");
+		options.put("analysis", AnalysisChain.STANDARD.getName());
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		AnalysisChain analysis = AnalysisChain.forName(options.get("analysis"));
+		Metrics.exposeOverJmx();
+		Metrics.dumpPeriodically(METRICS_PATH, 10);
+
+		SearchIndex index;
+		if (new File(options.get("snapshot")).exists()) {
+			System.out.println("Opening the index snapshot...");
+			IndexSnapshot snapshot = IndexSnapshot.open(options.get("snapshot"));
+			Thread warmUp = new Thread(snapshot::warmUp, "snapshot-warmup");
+			warmUp.setDaemon(true);
+			warmUp.start();
+			index = snapshot;
+		} else {
+			System.out.println("Loading the index...");
+			index = InMemoryIndex.load(options.get("index"), options.get("docLength"));
+		}
+		ThesaurusAndOntology thesaurus = null;
+		if (Boolean.parseBoolean(options.get("expand"))) {
+			System.out.println("Loading the expansion table...");
+			thesaurus = new ThesaurusAndOntology(STOP_LIST_PATH, analysis);
+			thesaurus.preloadExpansionTable(Utils.parseXML(options.get("queries"), analysis));
+		}
+		FuzzyExpander fuzzyExpander = null;
+		if (Boolean.parseBoolean(options.get("fuzzy"))) {
+			fuzzyExpander = new FuzzyExpander(index.getDictionary(), FuzzyExpander.DEFAULT_MAX_EDITS);
+		}
+		Searcher searcher = new Searcher(index, index.getTermStatistics(), thesaurus, EXPANSION_POSTING_BUDGET,
+				new SnippetGenerator(options.get("corpus"), analysis), fuzzyExpander);
+
+		DocumentMetadata metadata = null;
+		if (new File(options.get("metadata")).exists()) {
+			metadata = DocumentMetadata.load(options.get("metadata"), index.getDocTable());
+		}
+
+		SpellChecker spellChecker = null;
+		if (new File(options.get("spelling")).exists()) {
+			spellChecker = new SpellChecker(options.get("spelling"));
+		}
+
+		SearchServer server = new SearchServer(searcher, metadata, spellChecker, analysis,
+				Integer.parseInt(options.get("port")));
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop(1);
+			Metrics.dumpTo(METRICS_PATH);
+		}));
+		server.start();
+		System.out.println("Serving queries on port " + server.getPort());
+	}
+}
@@ -0,0 +1,128 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.IndexSharder;
+import ir.algorithms.scoreAndRank.DocScore;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.algorithms.scoreAndRank.ThesaurusAndOntology;
+import ir.algorithms.shard.ShardCoordinator;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+import ir.commons.metrics.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the index into shards, starts a worker process per shard on this machine, then runs the query file through
+ * a coordinator of the shards and through a single searcher over the whole index, and checks that both rank the same
+ * documents with the same scores
+ * usage: ShardCoordinatorRunner [name=value]... with the names
+ * shards, port (of the first worker, the others follow), k, expand (true|false), queries, dir, index, docLength
+ * @author Surbhi Gupta
+ */
+public class ShardCoordinatorRunner {
+	private static final String STOP_LIST_PATH = "data/input/common_words";
+	private static final long EXPANSION_POSTING_BUDGET = 5000;
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+	private static final long WORKER_START_TIMEOUT_MILLIS = 30000;
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("shards", "3");
+		options.put("port", "9100");
+		options.put("k", "100");
+		options.put("expand", "false");
+		options.put("queries", "data/input/cacm.query");
+		options.put("dir", "data/output/shards");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		Metrics.exposeOverJmx();
+		int shardCount = Integer.parseInt(options.get("shards"));
+		int basePort = Integer.parseInt(options.get("port"));
+		int k = Integer.parseInt(options.get("k"));
+		IndexSharder.shard(options.get("index"), options.get("docLength"), shardCount, options.get("dir"));
+
+		List<Process> workers = new ArrayList<>();
+		List<InetSocketAddress> addresses = new ArrayList<>();
+		try {
+			String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+			for (int s = 0; s < shardCount; s++) {
+				ProcessBuilder pb = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+						ShardWorkerRunner.class.getName(), "shard=" + s, "shards=" + shardCount,
+						"port=" + (basePort + s), "dir=" + options.get("dir"));
+				workers.add(pb.inheritIO().start());
+				addresses.add(new InetSocketAddress("localhost", basePort + s));
+			}
+			for (InetSocketAddress address : addresses) {
+				awaitWorker(address);
+			}
+
+			ThesaurusAndOntology thesaurus = (Boolean.parseBoolean(options.get("expand")) ?
+					new ThesaurusAndOntology(STOP_LIST_PATH) : null);
+			Searcher searcher = new Searcher(InMemoryIndex.load(options.get("index"), options.get("docLength")),
+					thesaurus, EXPANSION_POSTING_BUDGET, null);
+			List<SearchQuery> queries = Utils.parseXML(options.get("queries"));
+
+			try (ShardCoordinator coordinator = new ShardCoordinator(addresses, thesaurus, EXPANSION_POSTING_BUDGET)) {
+				int mismatches = 0;
+				long shardedNanos = 0;
+				long singleNanos = 0;
+				for (SearchQuery query : queries) {
+					long start = System.nanoTime();
+					List<DocScore> sharded = coordinator.search(query, k);
+					long middle = System.nanoTime();
+					List<DocScore> single = searcher.search(query, k, false).hits;
+					long end = System.nanoTime();
+					shardedNanos += middle - start;
+					singleNanos += end - middle;
+
+					if (!sameRanking(sharded, single)) {
+						mismatches++;
+						System.out.println("Query " + query.id + " ranks differently on the shards");
+					}
+				}
+
+				System.out.println(String.format("%d queries on %d shards, %d ranked differently, "
+								+ "mean latency sharded: %.3fms, single index: %.3fms", queries.size(), shardCount,
+						mismatches, shardedNanos / 1e6 / queries.size(), singleNanos / 1e6 / queries.size()));
+			}
+		} finally {
+			for (Process worker : workers) {
+				worker.destroy();
+			}
+		}
+		Metrics.dumpTo(METRICS_PATH);
+	}
+
+	private static void awaitWorker(InetSocketAddress address) throws IOException, InterruptedException {
+		long deadline = System.currentTimeMillis() + WORKER_START_TIMEOUT_MILLIS;
+		while (true) {
+			try {
+				new Socket(address.getAddress(), address.getPort()).close();
+				return;
+			} catch (IOException e) {
+				if (System.currentTimeMillis() > deadline) throw e;
+				Thread.sleep(100);
+			}
+		}
+	}
+
+	private static boolean sameRanking(List<DocScore> a, List<DocScore> b) {
+		if (a.size() != b.size()) return false;
+		for (int i = 0; i < a.size(); i++) {
+			if (!a.get(i).docID.equals(b.get(i).docID) || a.get(i).docScore != b.get(i).docScore) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,27 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.IndexSharder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits the printed inverted index into shards, each one saved as a snapshot a ShardWorkerRunner can serve
+ * usage: ShardIndexRunner [name=value]... with the names shards, dir, index, docLength
+ * @author Surbhi Gupta
+ */
+public class ShardIndexRunner {
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("shards", "3");
+		options.put("dir", "data/output/shards");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		IndexSharder.shard(options.get("index"), options.get("docLength"), Integer.parseInt(options.get("shards")),
+				options.get("dir"));
+	}
+}
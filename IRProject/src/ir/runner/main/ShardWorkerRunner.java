@@ -0,0 +1,33 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.IndexSharder;
+import ir.algorithms.indexer.IndexSnapshot;
+import ir.algorithms.shard.ShardWorker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serves a single shard of the index to a ShardCoordinator until it is stopped
+ * usage: ShardWorkerRunner [name=value]... with the names shard, shards, port, dir
+ * @author Surbhi Gupta
+ */
+public class ShardWorkerRunner {
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("shard", "0");
+		options.put("shards", "3");
+		options.put("port", "9100");
+		options.put("dir", "data/output/shards");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		int shard = Integer.parseInt(options.get("shard"));
+		IndexSnapshot snapshot = IndexSnapshot.open(IndexSharder.getShardPath(options.get("dir"), shard));
+		snapshot.warmUp();
+		System.out.println("Serving shard " + shard + " on port " + options.get("port"));
+		new ShardWorker(snapshot, shard, Integer.parseInt(options.get("shards")))
+				.serve(Integer.parseInt(options.get("port")));
+	}
+}
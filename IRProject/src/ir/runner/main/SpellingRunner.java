@@ -0,0 +1,121 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.SpellingIndex;
+import ir.algorithms.suggest.FuzzyMatch;
+import ir.algorithms.suggest.SpellChecker;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+import ir.commons.metrics.Metrics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the spelling index of the vocabulary of an inverted index, as InvertedIndex does when it builds one, then
+ * misspells the terms of the CACM queries and checks that the best correction of every misspelling is the best term of
+ * a scan of the whole vocabulary, timing both, and prints the "did you mean" of a few misspelled queries. Options are
+ * given as name=value:
+ * spelling: the spelling index file to write and read (data/output/invertedIndex1gram.spelling)
+ * queries, index, docLength: the input files
+ * @author Surbhi Gupta
+ */
+public class SpellingRunner {
+	private static final int SHOWN_QUERIES = 5;
+	private static final int MIN_MISSPELLED_LENGTH = 6;
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("spelling", "data/output/invertedIndex1gram.spelling");
+		options.put("queries", "data/input/cacm.query");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		Metrics.exposeOverJmx();
+
+		InMemoryIndex index = InMemoryIndex.load(options.get("index"), options.get("docLength"));
+		Map<String, Integer> dfs = new HashMap<>();
+		for (String term : index.getTerms()) dfs.put(term, index.getPostings(term).df());
+
+		long start = System.nanoTime();
+		SpellingIndex.write(dfs, options.get("spelling"));
+		System.out.println(String.format("spelling index of %d terms written in %.0fms, %d bytes", dfs.size(),
+				(System.nanoTime() - start) / 1e6, new File(options.get("spelling")).length()));
+
+		SpellChecker checker = new SpellChecker(options.get("spelling"));
+		List<SearchQuery> queries = Utils.parseXML(options.get("queries"));
+		Set<String> misspellings = new LinkedHashSet<>();
+		for (SearchQuery q : queries) {
+			for (String term : q.queryText.trim().split(" +")) {
+				if (term.length() < 3) continue;
+				misspellings.add(term.substring(0, term.length() / 2) + term.substring(term.length() / 2 + 1));
+				misspellings.add(term.substring(0, 1) + 'x' + term.substring(2));
+				misspellings.add(term.substring(0, 1) + term.charAt(2) + term.charAt(1) + term.substring(3));
+			}
+		}
+		misspellings.removeAll(dfs.keySet());
+
+		int mismatches = 0;
+		long scanNanos = 0;
+		for (String word : misspellings) {
+			List<FuzzyMatch> corrections = checker.correct(word, 1);
+
+			start = System.nanoTime();
+			List<FuzzyMatch> expected = scan(word, dfs);
+			scanNanos += System.nanoTime() - start;
+
+			String found = (corrections.isEmpty() ? null : corrections.get(0).getTerm());
+			String best = (expected.isEmpty() ? null : expected.get(0).getTerm());
+			if (found == null ? best != null : !found.equals(best)) mismatches++;
+		}
+
+		// the check above mapped the index and warmed the code up, the corrections are timed again once they are
+		start = System.nanoTime();
+		for (String word : misspellings) checker.correct(word, 1);
+		long checkerNanos = System.nanoTime() - start;
+		System.out.println(String.format("%d misspellings, %d best corrections differ from a scan of %d terms",
+				misspellings.size(), mismatches, dfs.size()));
+		System.out.println(String.format("spelling index: %.3fus per correction, scan: %.3fus per correction",
+				checkerNanos / 1e3 / misspellings.size(), scanNanos / 1e3 / misspellings.size()));
+
+		for (SearchQuery q : queries.subList(0, Math.min(SHOWN_QUERIES, queries.size()))) {
+			StringBuilder text = new StringBuilder();
+			for (String term : q.queryText.trim().split(" +")) {
+				if (term.length() >= MIN_MISSPELLED_LENGTH)
+					term = term.substring(0, term.length() / 2) + term.substring(term.length() / 2 + 1);
+				text.append(term).append(' ');
+			}
+			System.out.println(text.toString().trim() + "\n  did you mean: " + checker.didYouMean(text.toString()));
+		}
+
+		Metrics.dumpTo(METRICS_PATH);
+	}
+
+	/**
+	 * The method to find the corrections of a word by computing its distance to every term, as a check of the index
+	 */
+	private static List<FuzzyMatch> scan(String word, Map<String, Integer> dfs) {
+		int edits = (word.length() < 3 ? 0 : word.length() < 6 ? 1 : SpellingIndex.DEFAULT_MAX_EDITS);
+		List<FuzzyMatch> matches = new ArrayList<>();
+		if (edits == 0) return matches;
+
+		for (Map.Entry<String, Integer> e : dfs.entrySet()) {
+			int d = SpellChecker.distance(word, e.getKey(), edits);
+			if (d <= edits) matches.add(new FuzzyMatch(e.getKey(), e.getValue(), d));
+		}
+		matches.sort((m1, m2) -> {
+			int c = Integer.compare(m1.getDistance(), m2.getDistance());
+			if (c == 0) c = Integer.compare(m2.getDf(), m1.getDf());
+			return (c != 0 ? c : m1.getTerm().compareTo(m2.getTerm()));
+		});
+		return matches;
+	}
+}
@@ -0,0 +1,160 @@
+package ir.runner.main;
+
+import ir.algorithms.analysis.Analyzer;
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.InvertedIndex;
+import ir.algorithms.scoreAndRank.DocScore;
+import ir.algorithms.scoreAndRank.Searcher;
+import ir.algorithms.scoreAndRank.ThesaurusAndOntology;
+import ir.commons.SearchQuery;
+import ir.commons.Utils;
+import ir.commons.analysis.AnalysisChain;
+import ir.commons.analysis.PorterStemmer;
+import ir.commons.analysis.StemCache;
+import ir.commons.analysis.TokenFilter;
+import ir.commons.metrics.Metrics;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the index of the stemmed words of the corpus next to the standard one, then compares the two: the size of
+ * their dictionaries, the posting lists and postings the CACM queries read, and their MAP, also with the queries
+ * expanded by the thesaurus if asked for, which looks up the words as written and stems the words it finds for the
+ * stemmed index. It also times the Porter stemmer over every word of the corpus, alone and through a StemCache shared
+ * by several threads. Options are given as name=value:
+ * threads: the number of threads sharing the cache (4)
+ * expand: true to also compare the MAP of the expanded queries, which needs the whole WordNet dictionary (false)
+ * prefix: the prefix of the stemmed index (data/output/invertedIndexPorter)
+ * corpus, queries, rel, index, docLength: the input files
+ * @author Surbhi Gupta
+ */
+public class StemmingRunner {
+	private static final int RESULT_COUNT = 100;
+	private static final String CORPUS_FILE_PREFIX = "CACM";
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+	private static final String STOP_LIST_PATH = "data/input/common_words";
+	private static final long EXPANSION_POSTING_BUDGET = 5000;
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("threads", "4");
+		options.put("expand", "false");
+		options.put("prefix", "data/output/invertedIndexPorter");
+		options.put("corpus", "data/output/cacm_corpus/");
+		options.put("queries", "data/input/cacm.query");
+		options.put("rel", "data/input/cacm.rel");
+		options.put("index", "data/output/invertedIndex1gram.txt");
+		options.put("docLength", "data/output/docLength.txt");
+		for (String arg : args) {
+			options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		Metrics.exposeOverJmx();
+
+		InvertedIndex.invertedIndexGenerator(options.get("corpus"), options.get("prefix"), AnalysisChain.PORTER);
+		InMemoryIndex standard = InMemoryIndex.load(options.get("index"), options.get("docLength"));
+		InMemoryIndex stemmed = InMemoryIndex.load(options.get("prefix") + "1gram.txt", options.get("docLength"));
+		System.out.println(String.format("dictionary: %d terms standard, %d stemmed", standard.getTermCount(),
+				stemmed.getTermCount()));
+
+		List<SearchQuery> standardQueries = Utils.parseXML(options.get("queries"));
+		List<SearchQuery> stemmedQueries = Utils.parseXML(options.get("queries"), AnalysisChain.PORTER);
+		System.out.println(String.format("per query: %s posting lists standard, %s stemmed",
+				postingsRead(standard, standardQueries), postingsRead(stemmed, stemmedQueries)));
+
+		Map<Integer, Set<String>> relevance = Analyzer.loadRelevance(options.get("rel"));
+		System.out.println(String.format("MAP: %.4f standard, %.4f stemmed",
+				map(new Searcher(standard, null, 0, null), standardQueries, relevance),
+				map(new Searcher(stemmed, null, 0, null), stemmedQueries, relevance)));
+		if (Boolean.parseBoolean(options.get("expand"))) {
+			System.out.println(String.format("MAP with expansion: %.4f standard, %.4f stemmed",
+					map(new Searcher(standard, new ThesaurusAndOntology(STOP_LIST_PATH), EXPANSION_POSTING_BUDGET,
+							null), standardQueries, relevance),
+					map(new Searcher(stemmed, new ThesaurusAndOntology(STOP_LIST_PATH, AnalysisChain.PORTER),
+							EXPANSION_POSTING_BUDGET, null), stemmedQueries, relevance)));
+		}
+
+		List<String> words = new ArrayList<>();
+		for (File file : Utils.readFilesFromDirectory(options.get("corpus"), CORPUS_FILE_PREFIX, "")) {
+			for (String word : new String(Files.readAllBytes(file.toPath())).split("\\s+")) words.add(word);
+		}
+		int threads = Integer.parseInt(options.get("threads"));
+		TokenFilter stemmer = new PorterStemmer();
+		TokenFilter cache = new StemCache(stemmer, StemCache.DEFAULT_SIZE);
+		for (int round = 0; round < 3; round++) {	// the last round is timed once the code is compiled
+			double plain = stemsPerSecond(stemmer, words, threads);
+			double cached = stemsPerSecond(cache, words, threads);
+			if (round < 2) continue;
+
+			long hits = Metrics.counter("analysis.stem.cache.hits").get();
+			long misses = Metrics.counter("analysis.stem.cache.misses").get();
+			System.out.println(String.format("%d words on %d threads: %.1fM stems/s, %.1fM with the cache " +
+					"(%.0f%% hits)", words.size(), threads, plain / 1e6, cached / 1e6, 100.0 * hits / (hits + misses)));
+		}
+
+		Metrics.dumpTo(METRICS_PATH);
+	}
+
+	/**
+	 * @return the average number of posting lists and of postings the queries read, as text
+	 */
+	private static String postingsRead(InMemoryIndex index, List<SearchQuery> queries) {
+		long lists = 0, postings = 0;
+		for (SearchQuery q : queries) {
+			for (String term : new LinkedHashSet<>(Arrays.asList(q.queryText.trim().split(" +")))) {
+				if (index.getPostings(term) == null) continue;
+				lists++;
+				postings += index.getPostings(term).df();
+			}
+		}
+		return String.format("%.1f (%.0f postings)", (double) lists / queries.size(), (double) postings / queries.size());
+	}
+
+	private static double map(Searcher searcher, List<SearchQuery> queries, Map<Integer, Set<String>> relevance)
+			throws Exception {
+		double sum = 0;
+		int judged = 0;
+		for (SearchQuery q : queries) {
+			Set<String> relevant = relevance.get(q.id);
+			if (relevant == null) continue;
+
+			List<String> ranked = new ArrayList<>();
+			for (DocScore ds : searcher.search(q, RESULT_COUNT, false).hits) ranked.add(ds.docID);
+			sum += Analyzer.evaluate(q.id, ranked, relevant).averagePrecision;
+			judged++;
+		}
+		return sum / judged;
+	}
+
+	/**
+	 * The method to stem all the words with a filter shared by the given number of threads, each of them stemming them
+	 * all
+	 * @return the number of words stemmed per second by all the threads
+	 */
+	private static double stemsPerSecond(TokenFilter filter, List<String> words, int threads) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				int length = 0;
+				for (String word : words) length += filter.filter(word).length();
+				return length;
+			}));
+		}
+		for (Future<Integer> f : futures) f.get();
+		long nanos = System.nanoTime() - start;
+		executor.shutdown();
+		return (double) words.size() * threads / nanos * 1e9;
+	}
+}
@@ -0,0 +1,32 @@
+package ir.runner.main;
+
+import ir.algorithms.corpus.SyntheticCorpusGenerator;
+
+/**
+ * Generates a synthetic corpus, its document lengths and a query set, learned from CACM and scaled by a factor
+ * usage: SyntheticCorpusRunner [scale factor] [seed] [query count] [output dir]
+ * @author Surbhi Gupta
+ */
+public class SyntheticCorpusRunner {
+	private static final String QUERY_PATH = "data/input/cacm.query";
+	private static final String INDEX_PATH = "data/output/invertedIndex1gram.txt";
+	private static final String DOC_LENGTH_PATH = "data/output/docLength.txt";
+
+	private static final double DEFAULT_SCALE = 10;
+	private static final long DEFAULT_SEED = 42;
+	private static final int DEFAULT_QUERY_COUNT = 64;
+	private static final String DEFAULT_OUTPUT_DIR = "data/synthetic/";
+
+	public static void main(String[] args) throws Exception {
+		double scale = (args.length > 0 ? Double.parseDouble(args[0]) : DEFAULT_SCALE);
+		long seed = (args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SEED);
+		int queryCount = (args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_QUERY_COUNT);
+		String outputDir = (args.length > 3 ? args[3] : DEFAULT_OUTPUT_DIR);
+
+		SyntheticCorpusGenerator generator = SyntheticCorpusGenerator.learn(INDEX_PATH, DOC_LENGTH_PATH, QUERY_PATH);
+		long docCount = Math.round(generator.getLearnedDocCount() * scale);
+
+		generator.generateCorpus(docCount, seed, outputDir + "cacm_corpus/", outputDir + "docLength.txt");
+		generator.generateQueries(queryCount, seed + 1, outputDir + "synthetic.query");
+	}
+}
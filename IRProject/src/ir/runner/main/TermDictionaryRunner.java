@@ -0,0 +1,117 @@
+package ir.runner.main;
+
+import ir.algorithms.indexer.InMemoryIndex;
+import ir.algorithms.indexer.PostingList;
+import ir.algorithms.indexer.TermDictionary;
+import ir.commons.metrics.Metrics;
+import ir.commons.metrics.Timer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the front coded term dictionary of the printed inverted index and compares its heap footprint with the map of
+ * String keys it replaces, checks that every term is found with its statistics, times exact lookups, and prints a
+ * range of terms found by an ordered scan. Options are given as name=value:
+ * blockSize: the number of terms per dictionary block (16)
+ * from, to: the bounds of the range to print, from included and to excluded (para, parb)
+ * @author Surbhi Gupta
+ */
+public class TermDictionaryRunner {
+	private static final String INDEX_PATH = "data/output/invertedIndex1gram.txt";
+	private static final String DOC_LENGTH_PATH = "data/output/docLength.txt";
+	private static final String METRICS_PATH = "data/output/metrics.txt";
+	private static final Timer LOOKUP_TIME = Metrics.timer("dictionary.lookup");
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		options.put("blockSize", String.valueOf(TermDictionary.DEFAULT_BLOCK_SIZE));
+		options.put("from", "para");
+		options.put("to", "parb");
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (eq > 0) options.put(arg.substring(0, eq), arg.substring(eq + 1));
+		}
+		Metrics.exposeOverJmx();
+
+		InMemoryIndex index = InMemoryIndex.load(INDEX_PATH, DOC_LENGTH_PATH);
+		List<String> terms = TermDictionary.sort(index.getTerms());
+
+		long before = usedHeap();
+		Map<String, int[]> map = new HashMap<>();
+		for (String term : terms) {
+			PostingList pl = index.getPostings(term);
+			map.put(new String(term.toCharArray()), new int[]{pl.df(), maxTf(pl)});
+		}
+		long mapBytes = usedHeap() - before;
+
+		before = usedHeap();
+		TermDictionary.Builder builder = new TermDictionary.Builder(Integer.parseInt(options.get("blockSize")));
+		long offset = 0;
+		for (String term : terms) {
+			PostingList pl = index.getPostings(term);
+			builder.add(term, pl.df(), maxTf(pl), offset);
+			offset += pl.df();
+		}
+		TermDictionary dictionary = builder.build();
+		builder = null;
+		long dictionaryBytes = usedHeap() - before;
+
+		int errors = 0;
+		offset = 0;
+		TermDictionary.Cursor scan = dictionary.first();
+		for (String term : terms) {
+			TermDictionary.Cursor cursor = dictionary.find(term);
+			int[] stats = map.get(term);
+			if (cursor == null || cursor.df() != stats[0] || cursor.maxTf() != stats[1]
+					|| cursor.postingOffset() != offset || !scan.next() || !scan.term().equals(term))
+				errors++;
+			offset += stats[0];
+		}
+		if (dictionary.find(terms.get(0) + "\u0000") != null) errors++;
+
+		long lookupNanos = 0;
+		for (int round = 0; round < 5; round++) {
+			for (String term : terms) {
+				long start = LOOKUP_TIME.start();
+				dictionary.find(term);
+				lookupNanos += LOOKUP_TIME.stop(start);
+			}
+		}
+
+		System.out.println(String.format("%d terms, %d lookup errors", dictionary.size(), errors));
+		System.out.println(String.format("HashMap<String, int[]>: %,d bytes on the heap", mapBytes));
+		System.out.println(String.format("front coded dictionary: %,d bytes encoded, %,d bytes on the heap",
+				dictionary.sizeInBytes(), dictionaryBytes));
+		System.out.println(String.format("lookup: %.3fus mean", lookupNanos / 1e3 / (5 * terms.size())));
+
+		StringBuilder range = new StringBuilder();
+		byte[] to = options.get("to").getBytes(StandardCharsets.UTF_8);
+		TermDictionary.Cursor cursor = dictionary.seek(options.get("from"));
+		while (cursor.isValid() && cursor.compareTo(to) < 0) {
+			range.append(' ').append(cursor.term());
+			cursor.next();
+		}
+		System.out.println("[" + options.get("from") + ", " + options.get("to") + "):" + range);
+
+		map.clear();
+		Metrics.dumpTo(METRICS_PATH);
+	}
+
+	private static int maxTf(PostingList pl) {
+		int maxTf = 0;
+		for (int tf : pl.tfs) maxTf = Math.max(maxTf, tf);
+		return maxTf;
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}